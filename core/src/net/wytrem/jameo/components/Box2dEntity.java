@@ -1,9 +1,9 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 import com.badlogic.gdx.physics.box2d.Body;
 
-public class Box2dEntity extends Component {
+public class Box2dEntity extends PooledComponent {
     public Body body;
 
     public void setLinearVelocity(float vX, float vY) {
@@ -13,4 +13,9 @@ public class Box2dEntity extends Component {
     public void applyForceToCenter(float forceX, float forceY, boolean wake) {
         body.applyForceToCenter(forceX, forceY, wake);
     }
+
+    @Override
+    protected void reset() {
+        body = null;
+    }
 }
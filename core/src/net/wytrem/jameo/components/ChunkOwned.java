@@ -0,0 +1,21 @@
+package net.wytrem.jameo.components;
+
+import com.artemis.PooledComponent;
+
+/**
+ * Set on entities spawned by a streamed chunk, which are deleted with it.
+ * Managed by {@link net.wytrem.jameo.systems.ChunkStreamingSystem}.
+ */
+public class ChunkOwned extends PooledComponent {
+    /**
+     * Index of the chunk, in the map streamed as {@link #generation}.
+     */
+    public int chunk;
+    public int generation;
+
+    @Override
+    protected void reset() {
+        chunk = 0;
+        generation = 0;
+    }
+}
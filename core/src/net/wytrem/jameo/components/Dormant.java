@@ -0,0 +1,10 @@
+package net.wytrem.jameo.components;
+
+import com.artemis.Component;
+
+/**
+ * Set on entities far from every player, which costly systems exclude.
+ * Managed by {@link net.wytrem.jameo.systems.ActivitySystem}.
+ */
+public class Dormant extends Component {
+}
@@ -1,9 +1,14 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 
 import net.wytrem.jameo.utils.CardDir;
 
-public class Facing extends Component {
+public class Facing extends PooledComponent {
     public CardDir value = CardDir.EAST;
+
+    @Override
+    protected void reset() {
+        value = CardDir.EAST;
+    }
 }
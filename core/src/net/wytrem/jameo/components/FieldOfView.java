@@ -0,0 +1,36 @@
+package net.wytrem.jameo.components;
+
+import com.artemis.PooledComponent;
+
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * What the entity sees of the map, and has seen since the map was loaded.
+ * Maintained by {@link net.wytrem.jameo.systems.FieldOfViewSystem}.
+ */
+public class FieldOfView extends PooledComponent {
+    public int radius = 12;
+
+    public MapMask visible;
+    public MapMask explored;
+
+    /**
+     * Tile the view was last computed from.
+     */
+    public int tileX, tileY;
+
+    /**
+     * Set to compute the view again even if the entity did not change tile.
+     */
+    public boolean dirty = true;
+
+    @Override
+    protected void reset() {
+        radius = 12;
+        visible = null;
+        explored = null;
+        tileX = 0;
+        tileY = 0;
+        dirty = true;
+    }
+}
@@ -0,0 +1,21 @@
+package net.wytrem.jameo.components;
+
+import com.artemis.PooledComponent;
+
+/**
+ * Moves the entity down the flow field of a player.
+ */
+public class FlowFollower extends PooledComponent {
+    public float speed = 40.0f;
+
+    /**
+     * The player to chase, or -1 for the closest one.
+     */
+    public int target = -1;
+
+    @Override
+    protected void reset() {
+        speed = 40.0f;
+        target = -1;
+    }
+}
@@ -1,7 +1,13 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 
-public class Motion extends Component {
+public class Motion extends PooledComponent {
     public float x, y;
+
+    @Override
+    protected void reset() {
+        x = 0;
+        y = 0;
+    }
 }
@@ -1,7 +1,13 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 
-public class Position extends Component {
+public class Position extends PooledComponent {
     public float x, y;
+
+    @Override
+    protected void reset() {
+        x = 0;
+        y = 0;
+    }
 }
@@ -1,12 +1,17 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 
-public class Size extends Component {
+public class Size extends PooledComponent {
     public float width = 16.0f, height = 16.0f;
 
     public void set(float width, float height) {
         this.width = width;
         this.height = height;
     }
+
+    @Override
+    protected void reset() {
+        set(16.0f, 16.0f);
+    }
 }
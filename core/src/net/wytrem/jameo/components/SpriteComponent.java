@@ -1,8 +1,24 @@
 package net.wytrem.jameo.components;
 
-import com.artemis.Component;
+import com.artemis.PooledComponent;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
-public class SpriteComponent extends Component {
+import net.wytrem.jameo.utils.SpriteVariants;
+
+public class SpriteComponent extends PooledComponent {
+    /**
+     * Region drawn, shared: never modify it.
+     */
     public TextureRegion sprite;
+
+    /**
+     * Facing variants {@link #sprite} is picked from, if any.
+     */
+    public SpriteVariants variants;
+
+    @Override
+    protected void reset() {
+        sprite = null;
+        variants = null;
+    }
 }
@@ -0,0 +1,26 @@
+package net.wytrem.jameo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.wytrem.jameo.MapLoad")
+@Label("Map Load")
+@Category({"Dungeons", "Map"})
+@Description("Map parsing and mask generation")
+public class MapLoadEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Tiles")
+    @Description("Tile cells across every tile layer")
+    public int tiles;
+}
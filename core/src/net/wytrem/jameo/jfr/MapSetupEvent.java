@@ -0,0 +1,23 @@
+package net.wytrem.jameo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.wytrem.jameo.MapSetup")
+@Label("Map Setup")
+@Category({"Dungeons", "Map"})
+@Description("Wall baking and entity spawning of a loaded map")
+public class MapSetupEvent extends Event {
+    @Label("Solid Tiles")
+    public int solidTiles;
+
+    @Label("Wall Bodies")
+    public int wallBodies;
+
+    @Label("Entities")
+    @Description("Entities spawned from the map")
+    public int entities;
+}
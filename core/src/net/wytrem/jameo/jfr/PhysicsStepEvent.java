@@ -0,0 +1,23 @@
+package net.wytrem.jameo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.wytrem.jameo.PhysicsStep")
+@Label("Physics Step")
+@Category({"Dungeons", "Physics"})
+@Description("One Box2D world step")
+public class PhysicsStepEvent extends Event {
+    @Label("Bodies")
+    public int bodies;
+
+    @Label("Contacts")
+    public int contacts;
+
+    @Label("Contact Events")
+    @Description("Begin and end contacts recorded during the step")
+    public int contactEvents;
+}
@@ -0,0 +1,19 @@
+package net.wytrem.jameo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.wytrem.jameo.SpawnBatch")
+@Label("Spawn Batch")
+@Category({"Dungeons", "Simulation"})
+@Description("Entities created in one go through the entity factory")
+public class SpawnBatchEvent extends Event {
+    @Label("Source")
+    public String source;
+
+    @Label("Entities")
+    public int entities;
+}
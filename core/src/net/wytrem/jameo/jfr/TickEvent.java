@@ -0,0 +1,23 @@
+package net.wytrem.jameo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.wytrem.jameo.Tick")
+@Label("Tick")
+@Category({"Dungeons", "Simulation"})
+@Description("One World.process() call")
+public class TickEvent extends Event {
+    @Label("Tick")
+    public int tick;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Delta")
+    @Description("World delta, in seconds")
+    public float delta;
+}
@@ -0,0 +1,38 @@
+package net.wytrem.jameo.jfr;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+
+/**
+ * Reports every tick of a world as a {@link TickEvent}, for the invocation
+ * strategies. Call {@link #begin()} and {@link #end()} around each tick.
+ */
+public class TickRecorder {
+    private final World world;
+    private final EntitySubscription all;
+    private TickEvent event;
+    private int processed;
+
+    public TickRecorder(World world) {
+        this.world = world;
+        all = world.getAspectSubscriptionManager().get(Aspect.all());
+    }
+
+    public void begin() {
+        event = new TickEvent();
+        event.begin();
+    }
+
+    public void end() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = processed;
+            event.entities = all.getEntities().size();
+            event.delta = world.delta;
+            event.commit();
+        }
+        event = null;
+        processed++;
+    }
+}
@@ -0,0 +1,122 @@
+package net.wytrem.jameo.net;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Receives snapshots from a {@link ReplicationServer} over non-blocking UDP and
+ * acknowledges them.
+ *
+ * The server only knows a client once it hears from it: HELLO is sent again
+ * every {@link #HELLO_INTERVAL} until the first snapshot arrives, in case it
+ * was lost.
+ */
+public class ReplicationClient implements Disposable {
+    private static final long HELLO_INTERVAL = 250000000L;
+
+    private final DatagramChannel channel;
+    private final SnapshotRing history = new SnapshotRing(32);
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final ByteBuffer in = ByteBuffer.allocateDirect(65536);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(8);
+
+    private Snapshot latest;
+    private long bytesReceived;
+    private long lastHello;
+
+    public ReplicationClient(String host, int port) {
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(new InetSocketAddress(host, port));
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot connect to " + host + ":" + port, e);
+        }
+        hello();
+    }
+
+    private void hello() {
+        lastHello = TimeUtils.nanoTime();
+        write(ReplicationServer.HELLO, -1);
+    }
+
+    /**
+     * Read every pending snapshot.
+     *
+     * @return the latest snapshot, or null if none was ever received.
+     */
+    public Snapshot poll() {
+        try {
+            while (true) {
+                in.clear();
+                if (channel.read(in) <= 0) {
+                    break;
+                }
+                in.flip();
+                bytesReceived += in.remaining();
+                if (in.get() != ReplicationServer.SNAPSHOT) {
+                    continue;
+                }
+
+                // Decoded, a snapshot older than the history would take the slot of a newer one.
+                if (latest != null && SnapshotCodec.tick(in) <= latest.tick - history.capacity()) {
+                    continue;
+                }
+
+                final Snapshot snapshot = codec.decode(in, history);
+                if (snapshot == null) {
+                    // Baseline is gone: acknowledge the latest one again, for the server to move to it.
+                    if (latest != null) {
+                        write(ReplicationServer.ACK, latest.tick);
+                    }
+                    continue;
+                }
+                if (latest == null || snapshot.tick > latest.tick) {
+                    latest = snapshot;
+                }
+                write(ReplicationServer.ACK, snapshot.tick);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot receive snapshots", e);
+        }
+        if (latest == null && TimeUtils.nanoTime() - lastHello >= HELLO_INTERVAL) {
+            hello();
+        }
+        return latest;
+    }
+
+    public Snapshot getLatest() {
+        return latest;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    private void write(byte type, int tick) {
+        out.clear();
+        out.put(type);
+        out.putInt(tick);
+        out.flip();
+        try {
+            channel.write(out);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot reach the server", e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+}
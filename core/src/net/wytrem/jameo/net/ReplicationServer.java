@@ -0,0 +1,200 @@
+package net.wytrem.jameo.net;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends snapshots to clients over non-blocking UDP.
+ *
+ * Each client gets the current snapshot delta-compressed against the last one it
+ * acknowledged, or a full snapshot when that one has left the history. Clients
+ * register by sending any packet, and are dropped after {@link #TIMEOUT} without
+ * hearing from them.
+ *
+ * A snapshot must fit in one datagram: around five thousand entities changing
+ * every tick.
+ */
+public class ReplicationServer implements Disposable {
+    public static final byte HELLO = 0;
+    public static final byte ACK = 1;
+    public static final byte SNAPSHOT = 2;
+
+    private static final long TIMEOUT = 5000000000L;
+    private static final long STATS_WINDOW = 1000000000L;
+    private static final int MAX_DATAGRAM = 65507;
+
+    private final DatagramChannel channel;
+    private final SnapshotRing history = new SnapshotRing(32);
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+
+    private final ObjectMap<SocketAddress, Client> clientsByAddress = new ObjectMap<>();
+    private final Array<Client> clients = new Array<>();
+
+    private long statsStart = TimeUtils.nanoTime();
+    private long statsBytes;
+    private float bytesPerClientPerSecond;
+    private long encodeNanos;
+    private float encodeMillisPerSecond;
+
+    public ReplicationServer(int port) {
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot bind replication server on port " + port, e);
+        }
+    }
+
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+
+    /**
+     * The snapshot of the next tick, to be filled and then {@link #send(Snapshot)}.
+     */
+    public Snapshot acquire(int tick) {
+        return history.acquire(tick);
+    }
+
+    /**
+     * Read client acknowledgements, then send the snapshot to every client.
+     */
+    public void send(Snapshot snapshot) {
+        receive();
+
+        final long now = TimeUtils.nanoTime();
+        for (int i = clients.size - 1; i >= 0; i--) {
+            final Client client = clients.get(i);
+            if (now - client.lastHeard > TIMEOUT) {
+                clients.removeIndex(i);
+                clientsByAddress.remove(client.address);
+                continue;
+            }
+
+            Snapshot baseline = null;
+            if (client.ack >= 0 && snapshot.tick - client.ack < history.capacity()) {
+                baseline = history.get(client.ack);
+            }
+
+            final long start = TimeUtils.nanoTime();
+            out.clear();
+            out.put(SNAPSHOT);
+            try {
+                codec.encode(snapshot, baseline, out);
+            } catch (BufferOverflowException e) {
+                // The next clients may be on a closer baseline with a smaller delta.
+                Gdx.app.error("ReplicationServer", "Snapshot of tick " + snapshot.tick + " does not fit in a datagram for " + client.address);
+                continue;
+            }
+            out.flip();
+            encodeNanos += TimeUtils.nanoTime() - start;
+
+            statsBytes += out.remaining();
+            try {
+                channel.send(out, client.address);
+            } catch (IOException e) {
+                Gdx.app.error("ReplicationServer", "Cannot send to " + client.address, e);
+            }
+        }
+
+        updateStats(now);
+    }
+
+    private void receive() {
+        try {
+            SocketAddress address;
+            while (true) {
+                in.clear();
+                address = channel.receive(in);
+                if (address == null) {
+                    return;
+                }
+                in.flip();
+                if (!in.hasRemaining()) {
+                    continue;
+                }
+
+                Client client = clientsByAddress.get(address);
+                if (client == null) {
+                    client = new Client(address);
+                    clientsByAddress.put(address, client);
+                    clients.add(client);
+                }
+                client.lastHeard = TimeUtils.nanoTime();
+
+                if (in.get() == ACK && in.remaining() >= 4) {
+                    client.ack = Math.max(client.ack, in.getInt());
+                }
+            }
+        } catch (IOException e) {
+            Gdx.app.error("ReplicationServer", "Cannot receive", e);
+        }
+    }
+
+    private void updateStats(long now) {
+        final long elapsed = now - statsStart;
+        if (elapsed >= STATS_WINDOW) {
+            final float seconds = elapsed / 1e9f;
+            bytesPerClientPerSecond = clients.size == 0 ? 0 : statsBytes / seconds / clients.size;
+            encodeMillisPerSecond = encodeNanos / 1e6f / seconds;
+            statsBytes = 0;
+            encodeNanos = 0;
+            statsStart = now;
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size;
+    }
+
+    /**
+     * @return average bytes sent per client per second over the last second.
+     */
+    public float getBytesPerClientPerSecond() {
+        return bytesPerClientPerSecond;
+    }
+
+    /**
+     * @return milliseconds spent serializing per second, over the last second.
+     */
+    public float getEncodeMillisPerSecond() {
+        return encodeMillisPerSecond;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Gdx.app.error("ReplicationServer", "Cannot close", e);
+        }
+    }
+
+    private static class Client {
+        final SocketAddress address;
+        long lastHeard;
+        int ack = -1;
+
+        Client(SocketAddress address) {
+            this.address = address;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package net.wytrem.jameo.net;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Vector2;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.FieldOfViewSystem;
+import net.wytrem.jameo.utils.CardDir;
+
+/**
+ * Captures the replicated state of every positioned entity each tick, and hands
+ * it to a {@link ReplicationServer}.
+ *
+ * With a {@link FieldOfViewSystem}, only the entities some player sees are
+ * replicated: clients are not told about what hides in the dark.
+ */
+@Reads({Position.class, Facing.class, Box2dEntity.class, Box2dSystem.class, FieldOfViewSystem.class})
+@Writes(ReplicationServer.class)
+public class ReplicationSystem extends BaseEntitySystem {
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<Facing> facingComponentMapper;
+
+    @Wire
+    ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
+
+    @Wire(failOnNull = false)
+    FieldOfViewSystem fieldOfViewSystem;
+
+    private final ReplicationServer server;
+    private int tick;
+
+    public ReplicationSystem(ReplicationServer server) {
+        super(Aspect.all(Position.class));
+        this.server = server;
+    }
+
+    public ReplicationServer getServer() {
+        return server;
+    }
+
+    @Override
+    protected void processSystem() {
+        final Snapshot snapshot = server.acquire(tick++);
+
+        // Subscription ids are in increasing order, as snapshots expect.
+        final IntBag entities = getEntityIds();
+        final int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            final int id = ids[i];
+            final Position pos = positionComponentMapper.get(id);
+            if (fieldOfViewSystem != null && !fieldOfViewSystem.isSeen(pos.x, pos.y)) {
+                continue;
+            }
+            final CardDir facing = facingComponentMapper.has(id) ? facingComponentMapper.get(id).value : CardDir.EAST;
+
+            float vx = 0, vy = 0;
+            if (box2dEntityComponentMapper.has(id)) {
+                final Box2dEntity box2dEntity = box2dEntityComponentMapper.get(id);
+                if (box2dEntity.body != null) {
+                    final Vector2 velocity = box2dEntity.body.getLinearVelocity();
+                    vx = velocity.x;
+                    vy = velocity.y;
+                }
+            }
+
+            snapshot.add(id, pos.x, pos.y, vx, vy, facing);
+        }
+
+        server.send(snapshot);
+    }
+
+    @Override
+    protected void dispose() {
+        server.dispose();
+    }
+}
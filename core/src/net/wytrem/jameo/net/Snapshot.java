@@ -0,0 +1,113 @@
+package net.wytrem.jameo.net;
+
+import java.util.Arrays;
+
+import net.wytrem.jameo.utils.CardDir;
+
+/**
+ * State of the replicated entities at one tick, quantized.
+ *
+ * Positions are stored in 1/{@value #POSITION_SCALE} pixels and velocities in
+ * 1/{@value #VELOCITY_SCALE} pixels per second, so that comparing a snapshot
+ * against its baseline is exact and delta chains do not drift. Entities are
+ * kept in increasing id order.
+ */
+public class Snapshot {
+    public static final float POSITION_SCALE = 8f;
+    public static final float VELOCITY_SCALE = 16f;
+
+    public int tick = -1;
+    public int size;
+    public int[] ids;
+    public int[] x, y, vx, vy;
+    public byte[] facing;
+
+    public Snapshot() {
+        this(64);
+    }
+
+    public Snapshot(int capacity) {
+        ids = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        vx = new int[capacity];
+        vy = new int[capacity];
+        facing = new byte[capacity];
+    }
+
+    public void clear(int tick) {
+        this.tick = tick;
+        size = 0;
+    }
+
+    /**
+     * Append an entity. Ids must be appended in increasing order.
+     */
+    public void add(int id, float x, float y, float vx, float vy, CardDir facing) {
+        addQuantized(id, Math.round(x * POSITION_SCALE), Math.round(y * POSITION_SCALE),
+                Math.round(vx * VELOCITY_SCALE), Math.round(vy * VELOCITY_SCALE), (byte) facing.ordinal());
+    }
+
+    public void addQuantized(int id, int x, int y, int vx, int vy, byte facing) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.vx[size] = vx;
+        this.vy[size] = vy;
+        this.facing[size] = facing;
+        size++;
+    }
+
+    public float positionX(int index) {
+        return x[index] / POSITION_SCALE;
+    }
+
+    public float positionY(int index) {
+        return y[index] / POSITION_SCALE;
+    }
+
+    public float velocityX(int index) {
+        return vx[index] / VELOCITY_SCALE;
+    }
+
+    public float velocityY(int index) {
+        return vy[index] / VELOCITY_SCALE;
+    }
+
+    public CardDir facing(int index) {
+        return CardDir.values()[facing[index]];
+    }
+
+    /**
+     * @return index of the entity, or a negative value when absent.
+     */
+    public int indexOf(int id) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] < id) {
+                low = mid + 1;
+            }
+            else if (ids[mid] > id) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        facing = Arrays.copyOf(facing, capacity);
+    }
+}
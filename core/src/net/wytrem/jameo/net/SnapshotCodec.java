@@ -0,0 +1,221 @@
+package net.wytrem.jameo.net;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Delta compression of {@link Snapshot}s against a baseline the receiver has
+ * acknowledged.
+ *
+ * Layout: tick (int), baseline tick (int, -1 for a full snapshot), then the
+ * changed entities and the removed entities. Changed entities are written as an
+ * id gap (varint), a flag byte telling which fields follow, and each field as a
+ * zigzag varint of its difference with the baseline. Entities that did not
+ * change are not written at all.
+ *
+ * Not thread safe: holds decoding scratch buffers.
+ */
+public class SnapshotCodec {
+    private static final int NEW = 1;
+    private static final int X = 1 << 1;
+    private static final int Y = 1 << 2;
+    private static final int VX = 1 << 3;
+    private static final int VY = 1 << 4;
+    private static final int FACING = 1 << 5;
+    private static final int ALL = X | Y | VX | VY | FACING;
+
+    private final Snapshot changes = new Snapshot();
+    private int[] changeFlags = new int[64];
+    private final IntArray removed = new IntArray();
+
+    /**
+     * @param baseline snapshot acknowledged by the receiver, or null for a full snapshot.
+     */
+    public void encode(Snapshot current, Snapshot baseline, ByteBuffer out) {
+        out.putInt(current.tick);
+        out.putInt(baseline == null ? -1 : baseline.tick);
+
+        final int countPosition = out.position();
+        out.putShort((short) 0);
+        int count = 0;
+        int previous = -1;
+        int b = 0;
+
+        for (int i = 0; i < current.size; i++) {
+            final int id = current.ids[i];
+            while (baseline != null && b < baseline.size && baseline.ids[b] < id) {
+                b++;
+            }
+            final boolean known = baseline != null && b < baseline.size && baseline.ids[b] == id;
+
+            int flags;
+            if (known) {
+                flags = 0;
+                if (current.x[i] != baseline.x[b]) flags |= X;
+                if (current.y[i] != baseline.y[b]) flags |= Y;
+                if (current.vx[i] != baseline.vx[b]) flags |= VX;
+                if (current.vy[i] != baseline.vy[b]) flags |= VY;
+                if (current.facing[i] != baseline.facing[b]) flags |= FACING;
+                if (flags == 0) {
+                    continue;
+                }
+            }
+            else {
+                flags = NEW | ALL;
+            }
+
+            writeVarint(out, id - previous - 1);
+            previous = id;
+            out.put((byte) flags);
+            if ((flags & X) != 0) writeZigzag(out, current.x[i] - (known ? baseline.x[b] : 0));
+            if ((flags & Y) != 0) writeZigzag(out, current.y[i] - (known ? baseline.y[b] : 0));
+            if ((flags & VX) != 0) writeZigzag(out, current.vx[i] - (known ? baseline.vx[b] : 0));
+            if ((flags & VY) != 0) writeZigzag(out, current.vy[i] - (known ? baseline.vy[b] : 0));
+            if ((flags & FACING) != 0) out.put(current.facing[i]);
+            count++;
+        }
+        out.putShort(countPosition, (short) count);
+
+        final int removedPosition = out.position();
+        out.putShort((short) 0);
+        count = 0;
+        previous = -1;
+        if (baseline != null) {
+            int c = 0;
+            for (int i = 0; i < baseline.size; i++) {
+                final int id = baseline.ids[i];
+                while (c < current.size && current.ids[c] < id) {
+                    c++;
+                }
+                if (c >= current.size || current.ids[c] != id) {
+                    writeVarint(out, id - previous - 1);
+                    previous = id;
+                    count++;
+                }
+            }
+        }
+        out.putShort(removedPosition, (short) count);
+    }
+
+    /**
+     * Read the tick of an encoded snapshot without consuming it.
+     */
+    public static int tick(ByteBuffer in) {
+        return in.getInt(in.position());
+    }
+
+    /**
+     * Read the baseline tick of an encoded snapshot without consuming it.
+     */
+    public static int baselineTick(ByteBuffer in) {
+        return in.getInt(in.position() + 4);
+    }
+
+    /**
+     * Decode a snapshot into the history, on top of its baseline.
+     *
+     * @return the decoded snapshot, or null when the baseline is no longer in the history.
+     */
+    public Snapshot decode(ByteBuffer in, SnapshotRing history) {
+        final int tick = in.getInt();
+        final int baselineTick = in.getInt();
+        final Snapshot baseline = history.get(baselineTick);
+        if (baselineTick >= 0 && baseline == null) {
+            return null;
+        }
+
+        changes.clear(tick);
+        int count = in.getShort() & 0xFFFF;
+        if (changeFlags.length < count) {
+            changeFlags = new int[Math.max(count, changeFlags.length * 2)];
+        }
+        int id = -1;
+        for (int i = 0; i < count; i++) {
+            id += readVarint(in) + 1;
+            final int flags = in.get();
+            final int x = (flags & X) != 0 ? readZigzag(in) : 0;
+            final int y = (flags & Y) != 0 ? readZigzag(in) : 0;
+            final int vx = (flags & VX) != 0 ? readZigzag(in) : 0;
+            final int vy = (flags & VY) != 0 ? readZigzag(in) : 0;
+            final byte facing = (flags & FACING) != 0 ? in.get() : 0;
+            changeFlags[i] = flags;
+            changes.addQuantized(id, x, y, vx, vy, facing);
+        }
+
+        removed.clear();
+        count = in.getShort() & 0xFFFF;
+        id = -1;
+        for (int i = 0; i < count; i++) {
+            id += readVarint(in) + 1;
+            removed.add(id);
+        }
+
+        final Snapshot out = history.acquire(tick);
+        merge(baseline, out);
+        return out;
+    }
+
+    private void merge(Snapshot baseline, Snapshot out) {
+        final int baseSize = baseline == null ? 0 : baseline.size;
+        int b = 0, c = 0, r = 0;
+        while (b < baseSize || c < changes.size) {
+            final int baseId = b < baseSize ? baseline.ids[b] : Integer.MAX_VALUE;
+            final int changeId = c < changes.size ? changes.ids[c] : Integer.MAX_VALUE;
+
+            if (changeId < baseId) {
+                out.addQuantized(changeId, changes.x[c], changes.y[c], changes.vx[c], changes.vy[c], changes.facing[c]);
+                c++;
+            }
+            else if (changeId == baseId) {
+                final int flags = changeFlags[c];
+                out.addQuantized(baseId,
+                        (flags & X) != 0 ? baseline.x[b] + changes.x[c] : baseline.x[b],
+                        (flags & Y) != 0 ? baseline.y[b] + changes.y[c] : baseline.y[b],
+                        (flags & VX) != 0 ? baseline.vx[b] + changes.vx[c] : baseline.vx[b],
+                        (flags & VY) != 0 ? baseline.vy[b] + changes.vy[c] : baseline.vy[b],
+                        (flags & FACING) != 0 ? changes.facing[c] : baseline.facing[b]);
+                b++;
+                c++;
+            }
+            else {
+                while (r < removed.size && removed.get(r) < baseId) {
+                    r++;
+                }
+                if (r >= removed.size || removed.get(r) != baseId) {
+                    out.addQuantized(baseId, baseline.x[b], baseline.y[b], baseline.vx[b], baseline.vy[b], baseline.facing[b]);
+                }
+                b++;
+            }
+        }
+    }
+
+    static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static void writeZigzag(ByteBuffer out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    static int readZigzag(ByteBuffer in) {
+        int value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,48 @@
+package net.wytrem.jameo.net;
+
+/**
+ * The last snapshots, by tick, in reused slots.
+ */
+public class SnapshotRing {
+    private final Snapshot[] slots;
+    private final int mask;
+
+    /**
+     * @param capacity number of ticks kept, a power of two.
+     */
+    public SnapshotRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        slots = new Snapshot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Snapshot();
+        }
+        mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return the slot of that tick, cleared. Overwrites the snapshot taken
+     * {@link #capacity()} ticks earlier.
+     */
+    public Snapshot acquire(int tick) {
+        Snapshot snapshot = slots[tick & mask];
+        snapshot.clear(tick);
+        return snapshot;
+    }
+
+    /**
+     * @return the snapshot of that tick, or null if it was overwritten or never taken.
+     */
+    public Snapshot get(int tick) {
+        if (tick < 0) {
+            return null;
+        }
+        Snapshot snapshot = slots[tick & mask];
+        return snapshot.tick == tick ? snapshot : null;
+    }
+}
@@ -0,0 +1,20 @@
+package net.wytrem.jameo.scheduling;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Pins a system to the thread that calls {@code World.process()}: the GL thread
+ * on the client. Pinned systems also keep their registration order between
+ * themselves.
+ *
+ * @see ParallelInvocationStrategy
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MainThread {
+}
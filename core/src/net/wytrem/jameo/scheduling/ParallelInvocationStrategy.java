@@ -0,0 +1,188 @@
+package net.wytrem.jameo.scheduling;
+
+import com.artemis.BaseSystem;
+import com.artemis.SystemInvocationStrategy;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import net.wytrem.jameo.jfr.TickRecorder;
+
+/**
+ * Runs systems that do not touch the same data concurrently on a work-stealing
+ * pool.
+ *
+ * Systems declare what they access with {@link Reads} and {@link Writes}. A
+ * system depends on every earlier registered system it conflicts with: one
+ * writes what the other reads or writes. A system without any declaration
+ * conflicts with everything, so undeclared systems run alone, in order, as with
+ * the default strategy.
+ * <p>
+ * Systems are grouped in stages: a system runs in the stage after the last of
+ * its dependencies. Systems of a stage run concurrently, then pending entity
+ * changes are applied before the next stage. {@link MainThread} systems run on
+ * the calling thread, in registration order.
+ */
+public class ParallelInvocationStrategy extends SystemInvocationStrategy {
+
+    private final ForkJoinPool pool;
+
+    private int[][] pooled;
+    private int[][] pinned;
+    private ForkJoinTask<?>[] tasks;
+
+    private TickRecorder recorder;
+
+    public ParallelInvocationStrategy() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelInvocationStrategy(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    protected void initialize() {
+        recorder = new TickRecorder(world);
+
+        final int count = systems.size();
+        final Access[] access = new Access[count];
+        tasks = new ForkJoinTask<?>[count];
+        for (int i = 0; i < count; i++) {
+            final BaseSystem system = systems.get(i);
+            access[i] = new Access(system.getClass());
+            tasks[i] = ForkJoinTask.adapt(system::process);
+        }
+
+        final int[] stage = new int[count];
+        int stages = 0;
+        for (int j = 0; j < count; j++) {
+            for (int i = 0; i < j; i++) {
+                if (access[i].conflicts(access[j]) && stage[j] <= stage[i]) {
+                    stage[j] = stage[i] + 1;
+                }
+            }
+            stages = Math.max(stages, stage[j] + 1);
+        }
+
+        final Array<IntArray> pooledStages = new Array<>();
+        final Array<IntArray> pinnedStages = new Array<>();
+        for (int s = 0; s < stages; s++) {
+            pooledStages.add(new IntArray());
+            pinnedStages.add(new IntArray());
+        }
+        for (int i = 0; i < count; i++) {
+            (access[i].pinned ? pinnedStages : pooledStages).get(stage[i]).add(i);
+        }
+
+        pooled = new int[stages][];
+        pinned = new int[stages][];
+        for (int s = 0; s < stages; s++) {
+            pooled[s] = pooledStages.get(s).toArray();
+            pinned[s] = pinnedStages.get(s).toArray();
+        }
+    }
+
+    @Override
+    protected void process() {
+        recorder.begin();
+
+        final BaseSystem[] data = systems.getData();
+        for (int s = 0; s < pooled.length; s++) {
+            updateEntityStates();
+
+            final int[] concurrent = pooled[s];
+            final int[] local = pinned[s];
+
+            if (concurrent.length == 1 && local.length == 0) {
+                // Nothing to overlap with: no need to hop threads.
+                if (!disabled.get(concurrent[0])) {
+                    data[concurrent[0]].process();
+                }
+                continue;
+            }
+
+            for (int system : concurrent) {
+                if (!disabled.get(system)) {
+                    tasks[system].reinitialize();
+                    pool.execute(tasks[system]);
+                }
+            }
+
+            for (int system : local) {
+                if (!disabled.get(system)) {
+                    data[system].process();
+                }
+            }
+
+            for (int system : concurrent) {
+                if (!disabled.get(system)) {
+                    tasks[system].join();
+                }
+            }
+        }
+        updateEntityStates();
+        recorder.end();
+    }
+
+    /**
+     * @return how many stages a tick is split into.
+     */
+    public int getStageCount() {
+        return pooled.length;
+    }
+
+    /**
+     * @return one line per stage, listing the systems that run concurrently.
+     */
+    public String describe() {
+        final StringBuilder builder = new StringBuilder();
+        for (int s = 0; s < pooled.length; s++) {
+            builder.append("stage ").append(s).append(':');
+            for (int system : pinned[s]) {
+                builder.append(' ').append(systems.get(system).getClass().getSimpleName()).append(" (main)");
+            }
+            for (int system : pooled[s]) {
+                builder.append(' ').append(systems.get(system).getClass().getSimpleName());
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static class Access {
+        final Class<?>[] reads;
+        final Class<?>[] writes;
+        final boolean exclusive;
+        final boolean pinned;
+
+        Access(Class<?> type) {
+            final Reads reads = type.getAnnotation(Reads.class);
+            final Writes writes = type.getAnnotation(Writes.class);
+            this.reads = reads == null ? new Class<?>[0] : reads.value();
+            this.writes = writes == null ? new Class<?>[0] : writes.value();
+            this.exclusive = reads == null && writes == null;
+            this.pinned = type.isAnnotationPresent(MainThread.class);
+        }
+
+        boolean conflicts(Access other) {
+            if (exclusive || other.exclusive || (pinned && other.pinned)) {
+                return true;
+            }
+            return intersects(writes, other.writes) || intersects(writes, other.reads) || intersects(reads, other.writes);
+        }
+
+        private static boolean intersects(Class<?>[] a, Class<?>[] b) {
+            for (Class<?> x : a) {
+                for (Class<?> y : b) {
+                    if (x == y) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
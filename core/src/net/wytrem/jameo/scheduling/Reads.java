@@ -0,0 +1,20 @@
+package net.wytrem.jameo.scheduling;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Components, or other shared state such as systems, that a system reads during
+ * {@code process()}.
+ *
+ * @see ParallelInvocationStrategy
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Reads {
+    Class<?>[] value();
+}
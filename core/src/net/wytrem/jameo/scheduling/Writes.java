@@ -0,0 +1,21 @@
+package net.wytrem.jameo.scheduling;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Components, or other shared state such as systems, that a system modifies
+ * during {@code process()}. A system that creates or deletes entities, or adds
+ * or removes components, writes {@link com.artemis.World}.
+ *
+ * @see ParallelInvocationStrategy
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Writes {
+    Class<?>[] value();
+}
@@ -1,26 +1,142 @@
 package net.wytrem.jameo.systems;
 
+import com.artemis.ArchetypeBuilder;
 import com.artemis.BaseSystem;
 import com.artemis.Entity;
+import com.artemis.World;
 import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import net.wytrem.jameo.jfr.SpawnBatchEvent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.Prefab;
 
 /**
  * Extend this system for entity instancing.
  *
+ * Entity kinds can be registered as {@link Prefab}s, keyed by the {@code entity}
+ * property of map tiles: their archetype is built once, and entities are
+ * created from it directly.
+ *
  * @author Daan van Yperen
  */
+@MainThread
+@Writes({World.class, Box2dSystem.class})
 public abstract class AbstractEntityFactorySystem extends BaseSystem {
 
+    private final ObjectMap<String, Prefab> prefabs = new ObjectMap<>();
+
+    /**
+     * Register the prefab spawned for an entity name.
+     *
+     * @param defaults sets the components up, may be null.
+     */
+    public Prefab register(String entity, ArchetypeBuilder archetype, Prefab.Defaults defaults) {
+        final Prefab prefab = new Prefab(entity, archetype.build(world), defaults);
+        prefabs.put(entity, prefab);
+        return prefab;
+    }
+
+    /**
+     * @return the prefab registered for an entity name, or null.
+     */
+    public Prefab getPrefab(String entity) {
+        return prefabs.get(entity);
+    }
+
     /**
-     * Instance entity archetype.
+     * Instance entity archetype. Creates the registered prefab by default;
+     * override for entities that need more.
      *
      * @param entity entity archetype to instance.
      * @param cx x spawn location
      * @param cy y spawn location
      * @param properties map of map properties.
-     * @return main instanced entity.
+     * @return main instanced entity, null if nothing was spawned.
+     */
+    public Entity createEntity(String entity, int cx, int cy, MapProperties properties) {
+        final Prefab prefab = prefabs.get(entity);
+        return prefab == null ? null : world.getEntity(prefab.create(world, cx, cy, properties));
+    }
+
+    private SpawnBatchEvent batch;
+    private int batchSize;
+
+    // Spawns queued in the current batch, grouped by tile properties in first seen order.
+    private final Array<MapProperties> queuedKinds = new Array<>();
+    private final ObjectMap<MapProperties, IntArray> queued = new ObjectMap<>();
+
+    /**
+     * Start a batch of {@link #spawn} calls, reported as one event.
+     *
+     * @param source what the entities are spawned for, e.g. the map file.
      */
-    public abstract Entity createEntity(String entity, int cx, int cy, MapProperties properties);
+    public void beginBatch(String source) {
+        batch = new SpawnBatchEvent();
+        batch.source = source;
+        batchSize = 0;
+        batch.begin();
+    }
+
+    /**
+     * {@link #createEntity} within a batch.
+     */
+    public Entity spawn(String entity, int cx, int cy, MapProperties properties) {
+        Entity instance = createEntity(entity, cx, cy, properties);
+        if (instance != null) {
+            batchSize++;
+        }
+        return instance;
+    }
+
+    /**
+     * Spawn a wave of the same entity.
+     *
+     * @param positions (x, y) spawn locations.
+     * @return entities spawned.
+     */
+    public int spawn(String entity, IntArray positions, MapProperties properties) {
+        final int before = batchSize;
+        for (int i = 0; i < positions.size; i += 2) {
+            spawn(entity, positions.get(i), positions.get(i + 1), properties);
+        }
+        return batchSize - before;
+    }
+
+    /**
+     * Spawn the {@code entity} of tile properties when the batch ends. Spawns
+     * of the same tile are created together.
+     */
+    public void queue(int cx, int cy, MapProperties properties) {
+        IntArray positions = queued.get(properties);
+        if (positions == null) {
+            positions = new IntArray();
+            queued.put(properties, positions);
+            queuedKinds.add(properties);
+        }
+        positions.add(cx, cy);
+    }
+
+    /**
+     * Create the queued spawns.
+     *
+     * @return entities spawned since {@link #beginBatch}.
+     */
+    public int endBatch() {
+        for (MapProperties properties : queuedKinds) {
+            spawn((String) properties.get("entity"), queued.get(properties), properties);
+        }
+        queuedKinds.clear();
+        queued.clear();
+
+        batch.entities = batchSize;
+        batch.commit();
+        batch = null;
+        return batchSize;
+    }
 
     @Override
     protected void processSystem() {
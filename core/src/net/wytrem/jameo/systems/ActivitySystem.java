@@ -0,0 +1,272 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntSet;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Camera;
+import net.wytrem.jameo.components.Dormant;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.SpatialGrid;
+
+/**
+ * Puts entities far from every player or camera to sleep.
+ *
+ * The map is cut in {@link #CELL_SIZE} cells. Entities within {@link #radius}
+ * cells of an anchor, an {@link InputControlled} or {@link Camera} entity, are
+ * active; entities more than one cell further get {@link Dormant} and their
+ * body deactivated, which takes them out of the physics step and out of the
+ * systems excluding {@link Dormant}. The cell of margin keeps entities on the
+ * border from flapping between the two.
+ * <p>
+ * Bodies keep their position and velocity while inactive, so waking only
+ * reactivates them. Each tick costs the active entities plus, when an anchor
+ * enters another cell, the entities of the cells around it: sleeping entities
+ * are never visited. Without anchors, nothing changes.
+ */
+@MainThread
+@Reads({Position.class, Box2dEntity.class, InputControlled.class, Camera.class})
+@Writes({World.class, Box2dSystem.class})
+public class ActivitySystem extends BaseEntitySystem {
+
+    /**
+     * Cell size, in pixels.
+     */
+    public static final float CELL_SIZE = 256f;
+
+    public static final int DEFAULT_RADIUS = 3;
+
+    /**
+     * Cells around an anchor in which entities wake up.
+     */
+    public int radius = DEFAULT_RADIUS;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
+
+    @Wire
+    ComponentMapper<Dormant> dormantComponentMapper;
+
+    private final SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+    private EntitySubscription anchors;
+    private EntitySubscription awake;
+
+    private final IntIntMap anchorCells = new IntIntMap();
+    private final IntSet keepCells = new IntSet();
+    private final BitVector sleeping = new BitVector();
+    private final IntArray inserted = new IntArray();
+    private final IntArray nearby = new IntArray();
+
+    private int dormant, slept, woken;
+
+    public ActivitySystem() {
+        super(Aspect.all(Position.class));
+    }
+
+    @Override
+    protected void initialize() {
+        anchors = world.getAspectSubscriptionManager().get(Aspect.all(Position.class).one(InputControlled.class, Camera.class));
+        awake = world.getAspectSubscriptionManager().get(Aspect.all(Position.class).exclude(Dormant.class));
+    }
+
+    @Override
+    protected void inserted(int entityId) {
+        final Position pos = positionComponentMapper.get(entityId);
+        grid.update(entityId, pos.x, pos.y);
+        if (dormantComponentMapper.has(entityId)) {
+            // Created asleep, from a snapshot: woken below if within reach.
+            sleeping.set(entityId);
+            dormant++;
+            inserted.add(entityId);
+        }
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        grid.remove(entityId);
+        if (sleeping.get(entityId)) {
+            sleeping.clear(entityId);
+            dormant--;
+        }
+    }
+
+    @Override
+    protected void processSystem() {
+        slept = 0;
+        woken = 0;
+
+        final IntBag anchorBag = anchors.getEntities();
+        if (anchorBag.isEmpty()) {
+            anchorCells.clear();
+        }
+        else {
+            update(anchorBag);
+        }
+
+        // Bodies of entities created asleep are created active.
+        for (int i = 0; i < inserted.size; i++) {
+            final Body body = body(inserted.get(i));
+            if (sleeping.get(inserted.get(i)) && body != null) {
+                body.setActive(false);
+            }
+        }
+        inserted.clear();
+    }
+
+    private void update(IntBag anchorBag) {
+        final boolean moved = updateAnchors(anchorBag);
+
+        // Active entities that left the zones fall asleep.
+        final IntBag awakeBag = awake.getEntities();
+        final int[] ids = awakeBag.getData();
+        for (int i = 0, s = awakeBag.size(); i < s; i++) {
+            final int id = ids[i];
+            final Position pos = positionComponentMapper.get(id);
+            final Body body = body(id);
+            if (body == null || body.isAwake()) {
+                grid.update(id, pos.x, pos.y);
+            }
+            if (!keepCells.contains(key(grid.cell(pos.x), grid.cell(pos.y)))) {
+                sleep(id, body);
+            }
+        }
+
+        // Sleeping entities only come back when an anchor comes near them.
+        if (moved) {
+            for (int i = 0, s = anchorBag.size(); i < s; i++) {
+                final Position pos = positionComponentMapper.get(anchorBag.get(i));
+                nearby.clear();
+                grid.queryCells(grid.cell(pos.x), grid.cell(pos.y), radius, nearby);
+                for (int j = 0; j < nearby.size; j++) {
+                    wake(nearby.get(j));
+                }
+            }
+        }
+        else {
+            for (int i = 0; i < inserted.size; i++) {
+                final Position pos = positionComponentMapper.get(inserted.get(i));
+                if (near(grid.cell(pos.x), grid.cell(pos.y))) {
+                    wake(inserted.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether an anchor entered another cell, in which case the zones were rebuilt.
+     */
+    private boolean updateAnchors(IntBag anchorBag) {
+        boolean moved = anchorBag.size() != anchorCells.size;
+        for (int i = 0, s = anchorBag.size(); i < s && !moved; i++) {
+            final int id = anchorBag.get(i);
+            final Position pos = positionComponentMapper.get(id);
+            final int key = key(grid.cell(pos.x), grid.cell(pos.y));
+            moved = !anchorCells.containsKey(id) || anchorCells.get(id, 0) != key;
+        }
+        if (!moved) {
+            return false;
+        }
+
+        anchorCells.clear();
+        keepCells.clear();
+        final int keep = radius + 1;
+        for (int i = 0, s = anchorBag.size(); i < s; i++) {
+            final int id = anchorBag.get(i);
+            final Position pos = positionComponentMapper.get(id);
+            final int cx = grid.cell(pos.x);
+            final int cy = grid.cell(pos.y);
+            anchorCells.put(id, key(cx, cy));
+            for (int y = cy - keep; y <= cy + keep; y++) {
+                for (int x = cx - keep; x <= cx + keep; x++) {
+                    keepCells.add(key(x, y));
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean near(int cx, int cy) {
+        final IntBag anchorBag = anchors.getEntities();
+        for (int i = 0, s = anchorBag.size(); i < s; i++) {
+            final Position pos = positionComponentMapper.get(anchorBag.get(i));
+            if (Math.abs(grid.cell(pos.x) - cx) <= radius && Math.abs(grid.cell(pos.y) - cy) <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sleep(int entityId, Body body) {
+        if (body != null) {
+            body.setActive(false);
+        }
+        dormantComponentMapper.create(entityId);
+        sleeping.set(entityId);
+        dormant++;
+        slept++;
+    }
+
+    private void wake(int entityId) {
+        if (!sleeping.get(entityId)) {
+            return;
+        }
+        final Body body = body(entityId);
+        if (body != null) {
+            body.setActive(true);
+        }
+        dormantComponentMapper.remove(entityId);
+        sleeping.clear(entityId);
+        dormant--;
+        woken++;
+    }
+
+    private Body body(int entityId) {
+        return box2dEntityComponentMapper.has(entityId) ? box2dEntityComponentMapper.get(entityId).body : null;
+    }
+
+    private static int key(int cx, int cy) {
+        return (cx << 16) | (cy & 0xFFFF);
+    }
+
+    /**
+     * @return entities asleep.
+     */
+    public int getDormantCount() {
+        return dormant;
+    }
+
+    /**
+     * @return entities put to sleep by the last tick.
+     */
+    public int getSlept() {
+        return slept;
+    }
+
+    /**
+     * @return entities woken by the last tick.
+     */
+    public int getWoken() {
+        return woken;
+    }
+
+    public boolean isDormant(int entityId) {
+        return sleeping.get(entityId);
+    }
+}
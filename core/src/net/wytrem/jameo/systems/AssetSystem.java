@@ -0,0 +1,190 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.Wire;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.SpriteVariants;
+
+/**
+ * Reference counted sprite cache. Sprites are cut out of their sheets and packed
+ * into a single atlas, so that every sprite shares the same texture.
+ *
+ * Each {@link #sprite} call takes a reference, released with {@link #release}.
+ * References held by {@link SpriteComponent#variants} are released when the
+ * entity is removed. Packed space is not reclaimed sprite by sprite: the atlas
+ * is disposed once no sprite is referenced anymore.
+ */
+@MainThread
+@Reads(SpriteComponent.class)
+@Writes(AssetSystem.class)
+public class AssetSystem extends BaseEntitySystem {
+
+    private static final int PAGE_SIZE = 1024;
+
+    @Wire
+    ComponentMapper<SpriteComponent> spriteComponentComponentMapper;
+
+    private PixmapPacker packer;
+    private TextureAtlas atlas;
+    private final ObjectMap<String, Entry> sprites = new ObjectMap<>();
+    private final ObjectMap<String, Pixmap> sheets = new ObjectMap<>();
+
+    public AssetSystem() {
+        super(Aspect.all(SpriteComponent.class));
+    }
+
+    /**
+     * Acquire a sprite cut out of a sheet.
+     *
+     * @param file   sheet file, internal.
+     * @param x      left of the sprite in the sheet, in pixels.
+     * @param y      top of the sprite in the sheet, in pixels.
+     * @param width  sprite width.
+     * @param height sprite height.
+     */
+    public SpriteVariants sprite(String file, int x, int y, int width, int height) {
+        final String name = file + "#" + x + "," + y + "," + width + "," + height;
+
+        Entry entry = sprites.get(name);
+        if (entry == null) {
+            entry = new Entry(new SpriteVariants(name, pack(name, file, x, y, width, height)));
+            sprites.put(name, entry);
+        }
+
+        entry.references++;
+        return entry.variants;
+    }
+
+    /**
+     * Acquire a sprite by the name it was registered under, as {@link SpriteVariants#name}.
+     */
+    public SpriteVariants sprite(String name) {
+        final Entry entry = sprites.get(name);
+        if (entry != null) {
+            entry.references++;
+            return entry.variants;
+        }
+
+        final int separator = name.lastIndexOf('#');
+        final String[] bounds = name.substring(separator + 1).split(",");
+        if (separator < 0 || bounds.length != 4) {
+            throw new GdxRuntimeException("Not a sprite name: " + name);
+        }
+        return sprite(name.substring(0, separator), Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]),
+                Integer.parseInt(bounds[2]), Integer.parseInt(bounds[3]));
+    }
+
+    /**
+     * @return the sprite registered under that name, without taking a reference, or null.
+     */
+    public SpriteVariants get(String name) {
+        final Entry entry = sprites.get(name);
+        return entry == null ? null : entry.variants;
+    }
+
+    /**
+     * Take another reference on an acquired sprite, without looking it up by
+     * file and bounds.
+     */
+    public SpriteVariants acquire(SpriteVariants variants) {
+        sprites.get(variants.name).references++;
+        return variants;
+    }
+
+    public void release(SpriteVariants variants) {
+        final Entry entry = sprites.get(variants.name);
+        if (entry == null || --entry.references > 0) {
+            return;
+        }
+
+        sprites.remove(variants.name);
+        if (sprites.size == 0) {
+            disposeAtlas();
+        }
+    }
+
+    private TextureRegion pack(String name, String file, int x, int y, int width, int height) {
+        if (packer == null) {
+            packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 2, false);
+            atlas = new TextureAtlas();
+        }
+
+        // A released sprite stays packed while other sprites keep the atlas, and
+        // cannot be packed again under its name.
+        final TextureRegion packed = atlas.findRegion(name);
+        if (packed != null) {
+            return packed;
+        }
+
+        Pixmap sheet = sheets.get(file);
+        if (sheet == null) {
+            sheet = new Pixmap(Gdx.files.internal(file));
+            sheets.put(file, sheet);
+        }
+
+        final Pixmap region = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        region.setBlending(Pixmap.Blending.None);
+        region.drawPixmap(sheet, 0, 0, x, y, width, height);
+        packer.pack(name, region);
+        region.dispose();
+
+        packer.updateTextureAtlas(atlas, Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        return atlas.findRegion(name);
+    }
+
+    private void disposeAtlas() {
+        for (Pixmap sheet : sheets.values()) {
+            sheet.dispose();
+        }
+        sheets.clear();
+
+        if (packer != null) {
+            atlas.dispose();
+            packer.dispose();
+            atlas = null;
+            packer = null;
+        }
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        final SpriteComponent spriteComponent = spriteComponentComponentMapper.get(entityId);
+        if (spriteComponent.variants != null) {
+            release(spriteComponent.variants);
+            spriteComponent.variants = null;
+        }
+    }
+
+    @Override
+    protected void processSystem() {
+    }
+
+    @Override
+    protected void dispose() {
+        sprites.clear();
+        disposeAtlas();
+    }
+
+    private static class Entry {
+        final SpriteVariants variants;
+        int references;
+
+        Entry(SpriteVariants variants) {
+            this.variants = variants;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package net.wytrem.jameo.systems;
 
 import com.artemis.Aspect;
 import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.Wire;
 import com.badlogic.gdx.math.Vector2;
@@ -10,17 +11,40 @@ import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
 
 import net.wytrem.jameo.components.Box2dEntity;
 import net.wytrem.jameo.components.Position;
 import net.wytrem.jameo.components.Size;
-
+import net.wytrem.jameo.jfr.PhysicsStepEvent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.ContactBuffer;
+
+/**
+ * Steps the physics world and gives every {@link Box2dEntity} a body.
+ *
+ * Bodies of removed entities are deactivated and kept, by box size, for the
+ * next entities of the same size: spawning then moves an existing body instead
+ * of creating one. Entity ids given as body user data are boxed once per id.
+ */
+@MainThread
+@Writes(Box2dSystem.class)
 public class Box2dSystem extends BaseEntitySystem {
 
+    public static final int DEFAULT_MAX_POOLED_BODIES = 4096;
+
+    /**
+     * Bodies kept for reuse at most, 0 to destroy them on removal.
+     */
+    public int maxPooledBodies = DEFAULT_MAX_POOLED_BODIES;
+
     @Wire
     ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
 
@@ -36,36 +60,52 @@ public class Box2dSystem extends BaseEntitySystem {
 
     World world;
 
+    private final ContactBuffer contacts = new ContactBuffer();
+    private final Array<CollisionListener> listeners = new Array<>();
+
+    private final LongMap<Array<Body>> pool = new LongMap<>();
+    private int pooled;
+    private final Array<Integer> ids = new Array<>();
+
     @Override
     protected void initialize() {
         world = new World(new Vector2(), true);
-    }
-
-    @Override
-    protected void processSystem() {
-        world.step(super.world.delta, 6, 2);
-        world.setContactListener(new ContactListener() {
+        world.setContactListener(new ContactRecorder());
 
-            @Override
-            public void preSolve(Contact contact, Manifold oldManifold) {
-                // TODO Auto-generated method stub
+        for (BaseSystem system : super.world.getSystems()) {
+            if (system instanceof CollisionListener) {
+                listeners.add((CollisionListener) system);
             }
+        }
+    }
 
-            @Override
-            public void postSolve(Contact contact, ContactImpulse impulse) {
-                // TODO Auto-generated method stub
-            }
+    public void addCollisionListener(CollisionListener listener) {
+        listeners.add(listener);
+    }
 
-            @Override
-            public void endContact(Contact contact) {
-                System.out.println(contact.toString());
-            }
+    public void removeCollisionListener(CollisionListener listener) {
+        listeners.removeValue(listener, true);
+    }
 
-            @Override
-            public void beginContact(Contact contact) {
-                System.out.println(contact.toString());
+    @Override
+    protected void processSystem() {
+        PhysicsStepEvent event = new PhysicsStepEvent();
+        event.begin();
+        world.step(super.world.delta, 6, 2);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bodies = world.getBodyCount();
+            event.contacts = world.getContactCount();
+            event.contactEvents = contacts.size();
+            event.commit();
+        }
+
+        if (contacts.size() > 0) {
+            for (CollisionListener listener : listeners) {
+                listener.collisions(contacts);
             }
-        });
+            contacts.clear();
+        }
     }
 
     @Override
@@ -74,11 +114,29 @@ public class Box2dSystem extends BaseEntitySystem {
         Position pos = positionComponentMapper.get(entityId);
         Size size = sizeComponentMapper.get(entityId);
 
+        final float x = pos.x + size.width / 2;
+        final float y = pos.y + size.height / 2;
+
+        final Array<Body> free = pool.get(sizeKey(size));
+        if (free != null && free.size > 0) {
+            final Body body = free.pop();
+            pooled--;
+            body.setTransform(x, y, 0);
+            body.setLinearVelocity(0, 0);
+            body.setAngularVelocity(0);
+            body.setActive(true);
+            body.setAwake(true);
+            body.setUserData(boxed(entityId));
+            component.body = body;
+            return;
+        }
+
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.DynamicBody;
-        bodyDef.position.set((pos.x + size.width / 2), (pos.y + size.height / 2));
+        bodyDef.position.set(x, y);
 
         component.body = world.createBody(bodyDef);
+        component.body.setUserData(boxed(entityId));
 
         PolygonShape shape = new PolygonShape();
         shape.setAsBox(size.width / 2, size.height / 2);
@@ -91,7 +149,32 @@ public class Box2dSystem extends BaseEntitySystem {
         shape.dispose();
     }
 
-    public void createWall(float x, float y, float width, float height) {
+    private static long sizeKey(Size size) {
+        return ((long) Float.floatToIntBits(size.width) << 32) | (Float.floatToIntBits(size.height) & 0xFFFFFFFFL);
+    }
+
+    private Integer boxed(int entityId) {
+        if (entityId >= ids.size) {
+            ids.ensureCapacity(entityId + 1 - ids.size);
+            for (int id = ids.size; id <= entityId; id++) {
+                ids.add(id);
+            }
+        }
+        return ids.get(entityId);
+    }
+
+    /**
+     * @return bodies waiting for reuse.
+     */
+    public int getPooledBodies() {
+        return pooled;
+    }
+
+    public World getPhysicsWorld() {
+        return world;
+    }
+
+    public Body createWall(float x, float y, float width, float height) {
         BodyDef bd = new BodyDef();
         bd.type = BodyDef.BodyType.StaticBody;
         bd.position.set(x, y);
@@ -101,6 +184,65 @@ public class Box2dSystem extends BaseEntitySystem {
         body.createFixture(shape, 1);
 
         shape.dispose();
+        return body;
     }
 
+    public void destroyWall(Body wall) {
+        world.destroyBody(wall);
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        Box2dEntity component = box2dEntityComponentMapper.get(entityId);
+        if (component.body == null) {
+            return;
+        }
+
+        final Body body = component.body;
+        component.body = null;
+        if (pooled >= maxPooledBodies) {
+            world.destroyBody(body);
+            return;
+        }
+
+        // Bodies are pooled by the size they were created with, which the entity still has.
+        final long key = sizeKey(sizeComponentMapper.get(entityId));
+        Array<Body> free = pool.get(key);
+        if (free == null) {
+            free = new Array<>(false, 64);
+            pool.put(key, free);
+        }
+        body.setActive(false);
+        body.setUserData(null);
+        free.add(body);
+        pooled++;
+    }
+
+    private static int entityOf(Fixture fixture) {
+        Object userData = fixture.getBody().getUserData();
+        return userData instanceof Integer ? (Integer) userData : -1;
+    }
+
+    /**
+     * Records contacts into {@link #contacts}, without allocating.
+     */
+    private class ContactRecorder implements ContactListener {
+        @Override
+        public void beginContact(Contact contact) {
+            contacts.add(entityOf(contact.getFixtureA()), entityOf(contact.getFixtureB()), ContactBuffer.BEGIN);
+        }
+
+        @Override
+        public void endContact(Contact contact) {
+            contacts.add(entityOf(contact.getFixtureA()), entityOf(contact.getFixtureB()), ContactBuffer.END);
+        }
+
+        @Override
+        public void preSolve(Contact contact, Manifold oldManifold) {
+        }
+
+        @Override
+        public void postSolve(Contact contact, ContactImpulse impulse) {
+        }
+    }
 }
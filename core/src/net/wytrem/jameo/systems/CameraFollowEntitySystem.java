@@ -6,6 +6,8 @@ import com.artemis.annotations.Wire;
 import com.artemis.systems.IteratingSystem;
 import net.wytrem.jameo.components.Camera;
 import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
 
 /**
  * Lock camera center on camera entity.
@@ -14,6 +16,8 @@ import net.wytrem.jameo.components.Position;
  *
  * @author Daan van Yperen
  */
+@Reads({Position.class, Camera.class})
+@Writes(CameraSystem.class)
 public class CameraFollowEntitySystem extends IteratingSystem {
 
     @Wire
@@ -4,6 +4,9 @@ import com.artemis.BaseSystem;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 
+import net.wytrem.jameo.scheduling.Writes;
+
+@Writes(CameraSystem.class)
 public class CameraSystem extends BaseSystem {
 
     public OrthographicCamera camera;
@@ -0,0 +1,463 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.Entity;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.wytrem.jameo.components.ChunkOwned;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.ColliderBaker;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * Streams a large map in fixed-size chunks around the camera and the players.
+ *
+ * The TMX file is parsed by an {@link AssetManager} off the render thread. Masks
+ * and per chunk data (merged walls, spawn lists) are then computed on a single
+ * background thread. Only the Box2D and artemis mutations, which are not thread
+ * safe, happen here, limited to {@link #chunkBudget} chunks per tick.
+ *
+ * Chunks farther than {@link #evictRadius} from every viewer are evicted along
+ * with their walls and the entities they spawned, marked {@link ChunkOwned}.
+ * Spawned entities that walked into another loaded chunk are handed over to it
+ * instead. Spawns are scanned once, so an evicted chunk respawns its entities
+ * from the map when it comes back.
+ */
+@MainThread
+@Reads({Position.class, InputControlled.class, CameraSystem.class})
+@Writes({World.class, Box2dSystem.class, TiledMapSystem.class})
+public class ChunkStreamingSystem extends BaseSystem {
+
+    @Wire
+    TiledMapSystem tiledMapSystem;
+
+    @Wire
+    AbstractEntityFactorySystem entityFactorySystem;
+
+    @Wire(failOnNull = false)
+    CameraSystem cameraSystem;
+
+    @Wire(failOnNull = false)
+    MapRenderSystem mapRenderSystem;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<ChunkOwned> chunkOwnedComponentMapper;
+
+    /**
+     * Chunks around a viewer, in chunks, that are loaded.
+     */
+    public int loadRadius = 1;
+
+    /**
+     * Chunks around a viewer, in chunks, that are kept once loaded. Greater than
+     * {@link #loadRadius} so that walking along a chunk border does not thrash.
+     */
+    public int evictRadius = 2;
+
+    /**
+     * Baked chunks materialized per tick.
+     */
+    public int chunkBudget = 2;
+
+    private AssetManager assets;
+    private ExecutorService executor;
+    private EntitySubscription players;
+    private EntitySubscription owned;
+
+    private String file;
+    /**
+     * Bumped whenever streaming starts or stops: work queued for an older generation is dropped.
+     */
+    private volatile int generation;
+    private int chunkSize;
+    private int chunksX, chunksY;
+    private Chunk[] chunks;
+    private volatile ObjectMap<String, MapMask> masks;
+    private boolean masksPublished;
+
+    private final Array<Chunk> loaded = new Array<>();
+    private final ConcurrentLinkedQueue<Chunk> baked = new ConcurrentLinkedQueue<>();
+    private final IntArray viewers = new IntArray();
+
+    @Override
+    protected void initialize() {
+        players = world.getAspectSubscriptionManager().get(Aspect.all(InputControlled.class, Position.class));
+        owned = world.getAspectSubscriptionManager().get(Aspect.all(ChunkOwned.class));
+    }
+
+    /**
+     * Start streaming a map.
+     *
+     * @param file      TMX file to stream.
+     * @param chunkSize chunk side in tiles.
+     */
+    public void stream(String file, int chunkSize) {
+        stop();
+
+        if (assets == null) {
+            assets = new AssetManager();
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "map-streaming");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.file = file;
+        this.chunkSize = chunkSize;
+        generation++;
+        assets.load(file, TiledMap.class);
+    }
+
+    /**
+     * Evict every chunk and unload the streamed map.
+     */
+    public void stop() {
+        for (Chunk chunk : loaded) {
+            evict(chunk);
+        }
+        loaded.clear();
+        baked.clear();
+        chunks = null;
+        masks = null;
+        masksPublished = false;
+
+        if (file != null) {
+            // Queued tasks read the map: let them see the new generation and return before unloading it.
+            generation++;
+            drain();
+            assets.unload(file);
+            file = null;
+        }
+    }
+
+    /**
+     * Wait for the tasks queued on the streaming thread.
+     */
+    private void drain() {
+        try {
+            executor.submit(() -> {
+            }).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            throw new GdxRuntimeException("Map streaming failed", e);
+        }
+    }
+
+    public boolean isStreaming() {
+        return file != null;
+    }
+
+    public int getLoadedChunks() {
+        return loaded.size;
+    }
+
+    @Override
+    protected void processSystem() {
+        if (file == null) {
+            return;
+        }
+
+        if (chunks == null) {
+            if (assets.update() && assets.isLoaded(file, TiledMap.class)) {
+                start(assets.get(file, TiledMap.class));
+            }
+            return;
+        }
+
+        if (!masksPublished && masks != null) {
+            masksPublished = true;
+            tiledMapSystem.setMasks(masks);
+        }
+
+        collectViewers();
+        request();
+        materialize();
+        evictFarChunks();
+    }
+
+    private void start(final TiledMap map) {
+        tiledMapSystem.setMap(map, false);
+        if (mapRenderSystem != null) {
+            mapRenderSystem.setup();
+        }
+
+        chunksX = (tiledMapSystem.getWidth() + chunkSize - 1) / chunkSize;
+        chunksY = (tiledMapSystem.getHeight() + chunkSize - 1) / chunkSize;
+        chunks = new Chunk[chunksX * chunksY];
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                chunks[cy * chunksX + cx] = new Chunk(generation, cx, cy);
+            }
+        }
+
+        // Chunk tasks are queued behind this one on the same thread, so they see the masks.
+        final Array<TiledMapTileLayer> layers = tiledMapSystem.layers;
+        final int width = tiledMapSystem.getWidth();
+        final int height = tiledMapSystem.getHeight();
+        final int tileWidth = tiledMapSystem.getTileWidth();
+        final int tileHeight = tiledMapSystem.getTileHeight();
+        final int started = generation;
+        executor.execute(() -> {
+            if (started == generation) {
+                masks = MapMask.generateAll(height, width, tileWidth, tileHeight, layers);
+            }
+        });
+    }
+
+    private void collectViewers() {
+        viewers.clear();
+        final float chunkWidth = chunkSize * tiledMapSystem.getTileWidth();
+        final float chunkHeight = chunkSize * tiledMapSystem.getTileHeight();
+
+        if (cameraSystem != null) {
+            viewers.add((int) (cameraSystem.camera.position.x / chunkWidth), (int) (cameraSystem.camera.position.y / chunkHeight));
+        }
+
+        final IntBag entities = players.getEntities();
+        final int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            final Position pos = positionComponentMapper.get(ids[i]);
+            viewers.add((int) (pos.x / chunkWidth), (int) (pos.y / chunkHeight));
+        }
+    }
+
+    private void request() {
+        for (int i = 0; i < viewers.size; i += 2) {
+            final int vx = viewers.get(i);
+            final int vy = viewers.get(i + 1);
+            for (int cy = Math.max(vy - loadRadius, 0); cy <= Math.min(vy + loadRadius, chunksY - 1); cy++) {
+                for (int cx = Math.max(vx - loadRadius, 0); cx <= Math.min(vx + loadRadius, chunksX - 1); cx++) {
+                    final Chunk chunk = chunks[cy * chunksX + cx];
+                    if (chunk.state == Chunk.UNLOADED) {
+                        chunk.state = Chunk.BAKING;
+                        executor.execute(() -> bake(chunk));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs on the streaming thread.
+     */
+    private void bake(Chunk chunk) {
+        if (chunk.generation != generation) {
+            // Streaming stopped while this chunk was queued.
+            return;
+        }
+
+        final int x0 = chunk.cx * chunkSize;
+        final int y0 = chunk.cy * chunkSize;
+
+        if (!chunk.scanned) {
+            final int x1 = Math.min(x0 + chunkSize, tiledMapSystem.getWidth());
+            final int y1 = Math.min(y0 + chunkSize, tiledMapSystem.getHeight());
+            for (TiledMapTileLayer layer : tiledMapSystem.layers) {
+                for (int ty = y0; ty < y1; ty++) {
+                    for (int tx = x0; tx < x1; tx++) {
+                        final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                        if (cell != null && cell.getTile().getProperties().containsKey("entity")) {
+                            chunk.spawns.add(new Spawn(layer, tx, ty, cell.getTile().getProperties()));
+                        }
+                    }
+                }
+            }
+            chunk.scanned = true;
+        }
+
+        final ObjectMap<String, MapMask> current = masks;
+        if (current == null) {
+            // Streaming stopped while this chunk was queued.
+            return;
+        }
+
+        chunk.walls.clear();
+        final MapMask solid = current.get("solid");
+        if (solid != null) {
+            ColliderBaker.bake(solid, x0, y0, chunkSize, chunkSize, chunk.walls);
+        }
+
+        baked.add(chunk);
+    }
+
+    private void materialize() {
+        for (int i = 0; i < chunkBudget; i++) {
+            final Chunk chunk = baked.poll();
+            if (chunk == null) {
+                return;
+            }
+
+            if (chunk.generation != generation) {
+                // Baked for a map that is no longer streamed.
+                continue;
+            }
+
+            if (!near(chunk, evictRadius)) {
+                chunk.state = Chunk.UNLOADED;
+                continue;
+            }
+
+            for (int w = 0; w < chunk.walls.size; w += 4) {
+                chunk.bodies.add(tiledMapSystem.createWall(chunk.walls.get(w), chunk.walls.get(w + 1), chunk.walls.get(w + 2), chunk.walls.get(w + 3)));
+            }
+
+            final int tileWidth = tiledMapSystem.getTileWidth();
+            final int tileHeight = tiledMapSystem.getTileHeight();
+            entityFactorySystem.beginBatch(file);
+            for (Spawn spawn : chunk.spawns) {
+                final Entity entity = entityFactorySystem.spawn((String) spawn.properties.get("entity"), spawn.tx * tileWidth, spawn.ty * tileHeight, spawn.properties);
+                if (entity != null) {
+                    final ChunkOwned owner = chunkOwnedComponentMapper.create(entity.getId());
+                    owner.chunk = index(chunk);
+                    owner.generation = generation;
+                }
+                tiledMapSystem.setCell(spawn.layer, spawn.tx, spawn.ty, null);
+            }
+            entityFactorySystem.endBatch();
+
+            chunk.state = Chunk.LOADED;
+            loaded.add(chunk);
+        }
+    }
+
+    private void evictFarChunks() {
+        for (int i = loaded.size - 1; i >= 0; i--) {
+            final Chunk chunk = loaded.get(i);
+            if (!near(chunk, evictRadius)) {
+                evict(chunk);
+                loaded.removeIndex(i);
+            }
+        }
+    }
+
+    private void evict(Chunk chunk) {
+        for (Body body : chunk.bodies) {
+            tiledMapSystem.destroyWall(body);
+        }
+        chunk.bodies.clear();
+
+        // Owned entities are looked up rather than remembered: an id kept here may
+        // have been deleted and reused since.
+        final int index = index(chunk);
+        final IntBag entities = owned.getEntities();
+        final int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            final ChunkOwned owner = chunkOwnedComponentMapper.get(ids[i]);
+            if (owner.chunk != index || owner.generation != chunk.generation) {
+                continue;
+            }
+            final Chunk current = chunkAt(ids[i]);
+            if (current != null && current != chunk && current.state == Chunk.LOADED) {
+                owner.chunk = index(current);
+            }
+            else {
+                world.delete(ids[i]);
+            }
+        }
+
+        chunk.state = Chunk.UNLOADED;
+    }
+
+    private int index(Chunk chunk) {
+        return chunk.cy * chunksX + chunk.cx;
+    }
+
+    /**
+     * @return the chunk an entity stands in, null if out of the map or not positioned.
+     */
+    private Chunk chunkAt(int entityId) {
+        if (chunks == null || !positionComponentMapper.has(entityId)) {
+            return null;
+        }
+        final Position pos = positionComponentMapper.get(entityId);
+        final int cx = (int) Math.floor(pos.x / (chunkSize * tiledMapSystem.getTileWidth()));
+        final int cy = (int) Math.floor(pos.y / (chunkSize * tiledMapSystem.getTileHeight()));
+        if (cx < 0 || cy < 0 || cx >= chunksX || cy >= chunksY) {
+            return null;
+        }
+        return chunks[cy * chunksX + cx];
+    }
+
+    private boolean near(Chunk chunk, int radius) {
+        for (int i = 0; i < viewers.size; i += 2) {
+            if (Math.abs(chunk.cx - viewers.get(i)) <= radius && Math.abs(chunk.cy - viewers.get(i + 1)) <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+            assets.dispose();
+        }
+    }
+
+    static class Chunk {
+        static final int UNLOADED = 0, BAKING = 1, LOADED = 2;
+
+        final int generation;
+        final int cx, cy;
+        int state = UNLOADED;
+
+        /**
+         * Written by the streaming thread, read here once the chunk is polled from the baked queue.
+         */
+        boolean scanned;
+        final Array<Spawn> spawns = new Array<>();
+        final IntArray walls = new IntArray();
+
+        final Array<Body> bodies = new Array<>();
+
+        Chunk(int generation, int cx, int cy) {
+            this.generation = generation;
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+
+    static class Spawn {
+        final TiledMapTileLayer layer;
+        final int tx, ty;
+        final MapProperties properties;
+
+        Spawn(TiledMapTileLayer layer, int tx, int ty, MapProperties properties) {
+            this.layer = layer;
+            this.tx = tx;
+            this.ty = ty;
+            this.properties = properties;
+        }
+    }
+}
@@ -5,11 +5,16 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+
 /**
  * Clearing the screenc color buffer with GL.
  *
  * @author Daan van Yperen
  */
+@MainThread
+@Reads({})
 public class ClearScreenSystem extends BaseSystem {
 
     private final Color color;
@@ -0,0 +1,19 @@
+package net.wytrem.jameo.systems;
+
+import net.wytrem.jameo.utils.ContactBuffer;
+
+/**
+ * Implemented by systems that want the contacts of each physics step.
+ *
+ * Systems registered in the world are subscribed automatically by
+ * {@link Box2dSystem}.
+ */
+public interface CollisionListener {
+
+    /**
+     * Called once per {@link Box2dSystem} tick, after the step, with every contact
+     * that began or ended since the previous batch. The buffer is reused: do not
+     * keep a reference to it.
+     */
+    void collisions(ContactBuffer contacts);
+}
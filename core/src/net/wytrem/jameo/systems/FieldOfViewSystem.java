@@ -0,0 +1,176 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.MathUtils;
+
+import net.wytrem.jameo.components.FieldOfView;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.MapMask;
+import net.wytrem.jameo.utils.ShadowcastingFov;
+
+/**
+ * Computes the {@link FieldOfView} of entities over the {@code solid} mask.
+ *
+ * A view is only computed again when its entity enters another tile, when the
+ * map changes, or when walls around it are reported changed with
+ * {@link #invalidate(int, int)}. The views of every viewer are merged into
+ * {@link #getSeen()}, which the fog of war and the replication interest filter
+ * read.
+ */
+@Reads({Position.class, TiledMapSystem.class})
+@Writes({FieldOfView.class, FieldOfViewSystem.class})
+public class FieldOfViewSystem extends BaseEntitySystem {
+
+    @Wire
+    ComponentMapper<FieldOfView> fieldOfViewComponentMapper;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    TiledMapSystem tiledMapSystem;
+
+    private MapMask solid;
+    private ShadowcastingFov fov;
+
+    /**
+     * Tiles seen by any viewer now, and ever since the map was loaded.
+     */
+    private MapMask seen, explored;
+    private boolean viewersChanged;
+
+    /**
+     * Views computed by the last tick.
+     */
+    private int recomputed;
+
+    public FieldOfViewSystem() {
+        super(Aspect.all(FieldOfView.class, Position.class));
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        viewersChanged = true;
+    }
+
+    @Override
+    protected void processSystem() {
+        final MapMask current = tiledMapSystem.map == null ? null : tiledMapSystem.getMask("solid");
+        final boolean changed = current != solid;
+        if (changed) {
+            solid = current;
+            fov = solid == null ? null : new ShadowcastingFov(solid);
+            seen = solid == null ? null : new MapMask(solid.height, solid.width, solid.getTileWidth(), solid.getTileHeight());
+            explored = seen == null ? null : seen.copy();
+        }
+        recomputed = 0;
+        if (solid == null) {
+            return;
+        }
+
+        final IntBag actives = subscription.getEntities();
+        final int[] ids = actives.getData();
+        for (int i = 0, s = actives.size(); i < s; i++) {
+            final FieldOfView view = fieldOfViewComponentMapper.get(ids[i]);
+            final Position pos = positionComponentMapper.get(ids[i]);
+            if (changed || view.visible == null || view.visible.width != solid.width || view.visible.height != solid.height) {
+                view.visible = new MapMask(solid.height, solid.width, solid.getTileWidth(), solid.getTileHeight());
+                view.explored = view.visible.copy();
+                view.dirty = true;
+            }
+
+            final int tx = tileX(pos.x);
+            final int ty = tileY(pos.y);
+            if (view.dirty || tx != view.tileX || ty != view.tileY) {
+                view.visible.fill(0, 0, solid.width, solid.height, false);
+                fov.compute(tx, ty, view.radius, view.visible, view.explored);
+                view.tileX = tx;
+                view.tileY = ty;
+                view.dirty = false;
+                recomputed++;
+            }
+        }
+
+        if (changed || viewersChanged || recomputed > 0) {
+            viewersChanged = false;
+            seen.fill(0, 0, seen.width, seen.height, false);
+            for (int i = 0, s = actives.size(); i < s; i++) {
+                seen.or(fieldOfViewComponentMapper.get(ids[i]).visible);
+            }
+            explored.or(seen);
+        }
+    }
+
+    /**
+     * Compute again the views that reach a tile, after it stopped or started
+     * blocking the view.
+     */
+    public void invalidate(int tx, int ty) {
+        final IntBag actives = subscription.getEntities();
+        final int[] ids = actives.getData();
+        for (int i = 0, s = actives.size(); i < s; i++) {
+            final FieldOfView view = fieldOfViewComponentMapper.get(ids[i]);
+            if (Math.abs(tx - view.tileX) <= view.radius && Math.abs(ty - view.tileY) <= view.radius) {
+                view.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Same tile convention as {@link FlowFieldSystem#tileX(float)}.
+     */
+    private int tileX(float x) {
+        return MathUtils.floor(x / solid.getTileWidth() + 0.5f);
+    }
+
+    private int tileY(float y) {
+        return MathUtils.floor(y / solid.getTileHeight() + 0.5f);
+    }
+
+    public boolean hasMap() {
+        return solid != null;
+    }
+
+    /**
+     * @return tiles seen by any viewer, null without a map.
+     */
+    public MapMask getSeen() {
+        return seen;
+    }
+
+    /**
+     * @return tiles seen by any viewer since the map was loaded, null without a map.
+     */
+    public MapMask getExplored() {
+        return explored;
+    }
+
+    /**
+     * @return whether any viewer sees a point, in pixels. Always true without a
+     * map, where there is nothing to hide behind.
+     */
+    public boolean isSeen(float x, float y) {
+        return solid == null || seen.atGrid(tileX(x), tileY(y), false);
+    }
+
+    /**
+     * @return whether a viewer sees a point, in pixels.
+     */
+    public boolean canSee(int viewer, float x, float y) {
+        if (solid == null || !fieldOfViewComponentMapper.has(viewer)) {
+            return false;
+        }
+        final FieldOfView view = fieldOfViewComponentMapper.get(viewer);
+        return view.visible != null && view.visible.atGrid(tileX(x), tileY(y), false);
+    }
+
+    public int getRecomputed() {
+        return recomputed;
+    }
+}
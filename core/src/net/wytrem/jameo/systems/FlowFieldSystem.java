@@ -0,0 +1,128 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntMap;
+
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.FlowField;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * Keeps a {@link FlowField} toward every player, for monsters to chase them.
+ *
+ * Each field is rebuilt at most {@link #budget} tiles per tick after its player
+ * changes tile, so the cost of a tick depends on the number of players, not on
+ * the number of monsters reading the fields.
+ */
+@Reads({InputControlled.class, Position.class, TiledMapSystem.class})
+@Writes(FlowFieldSystem.class)
+public class FlowFieldSystem extends BaseEntitySystem {
+
+    /**
+     * Half side of the field around a player, in tiles.
+     */
+    public static final int RADIUS = 48;
+
+    public static final int DEFAULT_BUDGET = 4096;
+
+    /**
+     * Tiles visited per field and per tick.
+     */
+    public int budget = DEFAULT_BUDGET;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    TiledMapSystem tiledMapSystem;
+
+    private final IntMap<FlowField> fields = new IntMap<>();
+    private MapMask solid;
+
+    public FlowFieldSystem() {
+        super(Aspect.all(InputControlled.class, Position.class));
+    }
+
+    @Override
+    protected void inserted(int entityId) {
+        final FlowField field = new FlowField(RADIUS);
+        field.setBlocked(solid);
+        fields.put(entityId, field);
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        fields.remove(entityId);
+    }
+
+    @Override
+    protected void processSystem() {
+        final MapMask current = tiledMapSystem.map == null ? null : tiledMapSystem.getMask("solid");
+        final boolean changed = current != solid;
+        solid = current;
+        if (solid == null) {
+            return;
+        }
+
+        final IntBag actives = subscription.getEntities();
+        final int[] ids = actives.getData();
+        for (int i = 0, s = actives.size(); i < s; i++) {
+            final FlowField field = fields.get(ids[i]);
+            if (changed) {
+                field.setBlocked(solid);
+            }
+            final Position pos = positionComponentMapper.get(ids[i]);
+            field.target(tileX(pos.x), tileY(pos.y));
+            field.step(budget);
+        }
+    }
+
+    /**
+     * Wall bodies are centered on their tile coordinates times the tile size, so
+     * a tile spans half a tile on each side of that point.
+     */
+    public int tileX(float x) {
+        return MathUtils.floor(x / solid.getTileWidth() + 0.5f);
+    }
+
+    public int tileY(float y) {
+        return MathUtils.floor(y / solid.getTileHeight() + 0.5f);
+    }
+
+    public boolean hasMap() {
+        return solid != null;
+    }
+
+    /**
+     * @return the field toward a player, null if it is not one.
+     */
+    public FlowField getField(int player) {
+        return fields.get(player);
+    }
+
+    /**
+     * @return the player with the shortest way from a tile, -1 if none can be reached.
+     */
+    public int closest(int x, int y) {
+        int best = -1;
+        int bestDistance = FlowField.UNREACHABLE;
+        final IntBag actives = subscription.getEntities();
+        final int[] ids = actives.getData();
+        for (int i = 0, s = actives.size(); i < s; i++) {
+            final int distance = fields.get(ids[i]).distance(x, y);
+            if (distance < bestDistance) {
+                best = ids[i];
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,75 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.Wire;
+import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Dormant;
+import net.wytrem.jameo.components.FlowFollower;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.FlowField;
+
+/**
+ * Steers {@link FlowFollower} entities down the fields of {@link FlowFieldSystem}.
+ *
+ * A follower reads the field at its tile only. On the tile of the player it
+ * heads straight for them; out of reach of every field it stops.
+ */
+@MainThread
+@Reads({FlowFollower.class, Position.class, Box2dEntity.class, FlowFieldSystem.class})
+@Writes(Box2dSystem.class)
+public class FlowFollowSystem extends IteratingSystem {
+
+    @Wire
+    ComponentMapper<FlowFollower> flowFollowerComponentMapper;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
+
+    @Wire
+    FlowFieldSystem flowFieldSystem;
+
+    private final Vector2 desiredVel = new Vector2();
+
+    public FlowFollowSystem() {
+        super(Aspect.all(FlowFollower.class, Position.class, Box2dEntity.class).exclude(Dormant.class));
+    }
+
+    @Override
+    protected boolean checkProcessing() {
+        return flowFieldSystem.hasMap();
+    }
+
+    @Override
+    protected void process(int entityId) {
+        final FlowFollower follower = flowFollowerComponentMapper.get(entityId);
+        final Position pos = positionComponentMapper.get(entityId);
+        final int tx = flowFieldSystem.tileX(pos.x);
+        final int ty = flowFieldSystem.tileY(pos.y);
+
+        final int player = follower.target >= 0 ? follower.target : flowFieldSystem.closest(tx, ty);
+        final FlowField field = player >= 0 ? flowFieldSystem.getField(player) : null;
+
+        desiredVel.setZero();
+        if (field != null && !field.direction(tx, ty, desiredVel) && field.distance(tx, ty) == 0) {
+            final Position target = positionComponentMapper.get(player);
+            desiredVel.set(target.x - pos.x, target.y - pos.y).nor();
+        }
+
+        final Body body = box2dEntityComponentMapper.get(entityId).body;
+        desiredVel.scl(follower.speed);
+        desiredVel.sub(body.getLinearVelocity());
+        desiredVel.scl(body.getMass());
+        body.applyLinearImpulse(desiredVel, body.getWorldCenter(), true);
+    }
+}
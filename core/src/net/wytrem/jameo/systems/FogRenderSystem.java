@@ -0,0 +1,95 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.BaseSystem;
+import com.artemis.annotations.Wire;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * Fog of war over the tiles in view: black where no viewer ever looked, dimmed
+ * where they looked but do not anymore. Tiles of a row in the same state are
+ * covered by one rectangle.
+ */
+@MainThread
+@Reads({FieldOfViewSystem.class, CameraSystem.class})
+public class FogRenderSystem extends BaseSystem {
+    private static final int SEEN = 0, EXPLORED = 1, UNKNOWN = 2;
+    private static final float[] ALPHA = {0f, 0.6f, 1f};
+
+    @Wire
+    FieldOfViewSystem fieldOfViewSystem;
+
+    @Wire
+    CameraSystem cameraSystem;
+
+    ShapeRenderer shapes;
+
+    @Override
+    protected void initialize() {
+        shapes = new ShapeRenderer();
+    }
+
+    @Override
+    protected boolean checkProcessing() {
+        return fieldOfViewSystem.hasMap();
+    }
+
+    @Override
+    protected void processSystem() {
+        final MapMask seen = fieldOfViewSystem.getSeen();
+        final MapMask explored = fieldOfViewSystem.getExplored();
+        final int tileWidth = seen.getTileWidth();
+        final int tileHeight = seen.getTileHeight();
+
+        // Tiles are centered on their coordinates times the tile size.
+        final OrthographicCamera camera = cameraSystem.camera;
+        final float halfWidth = camera.viewportWidth * camera.zoom * 0.5f;
+        final float halfHeight = camera.viewportHeight * camera.zoom * 0.5f;
+        final int x0 = Math.max((int) Math.floor((camera.position.x - halfWidth) / tileWidth), 0);
+        final int y0 = Math.max((int) Math.floor((camera.position.y - halfHeight) / tileHeight), 0);
+        final int x1 = Math.min((int) Math.ceil((camera.position.x + halfWidth) / tileWidth), seen.width - 1);
+        final int y1 = Math.min((int) Math.ceil((camera.position.y + halfHeight) / tileHeight), seen.height - 1);
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        shapes.setProjectionMatrix(camera.combined);
+        shapes.begin(ShapeRenderer.ShapeType.Filled);
+
+        for (int ty = y0; ty <= y1; ty++) {
+            int runStart = x0;
+            int runState = state(seen, explored, x0, ty);
+            for (int tx = x0 + 1; tx <= x1 + 1; tx++) {
+                final int state = tx <= x1 ? state(seen, explored, tx, ty) : -1;
+                if (state != runState) {
+                    if (runState != SEEN) {
+                        shapes.setColor(0f, 0f, 0f, ALPHA[runState]);
+                        shapes.rect((runStart - 0.5f) * tileWidth, (ty - 0.5f) * tileHeight, (tx - runStart) * tileWidth, tileHeight);
+                    }
+                    runStart = tx;
+                    runState = state;
+                }
+            }
+        }
+
+        shapes.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    private static int state(MapMask seen, MapMask explored, int tx, int ty) {
+        if (seen.atGrid(tx, ty, false)) {
+            return SEEN;
+        }
+        return explored.atGrid(tx, ty, false) ? EXPLORED : UNKNOWN;
+    }
+
+    @Override
+    protected void dispose() {
+        shapes.dispose();
+    }
+}
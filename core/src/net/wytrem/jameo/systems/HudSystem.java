@@ -9,7 +9,12 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
 import net.wytrem.jameo.components.InputControlled;
 import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.ProfilingInvocationStrategy;
 
+@MainThread
+@Reads({Position.class, CameraSystem.class})
 public class HudSystem extends IteratingSystem {
     public HudSystem() {
         super(Aspect.all(InputControlled.class, Position.class));
@@ -24,6 +29,25 @@ public class HudSystem extends IteratingSystem {
     @Wire
     CameraSystem cameraSystem;
 
+    @Wire(failOnNull = false)
+    MapRenderSystem mapRenderSystem;
+
+    /**
+     * Frames between two refreshes of the profiler overlay.
+     */
+    private static final int OVERLAY_REFRESH = 30;
+
+    private ProfilingInvocationStrategy profiler;
+    private final StringBuilder overlay = new StringBuilder();
+    private int overlayAge = OVERLAY_REFRESH;
+
+    /**
+     * Show the timings of a profiler while it is profiling.
+     */
+    public void setProfiler(ProfilingInvocationStrategy profiler) {
+        this.profiler = profiler;
+    }
+
     @Override
     protected void initialize() {
         batch = new SpriteBatch();
@@ -45,6 +69,35 @@ public class HudSystem extends IteratingSystem {
 
     @Override
     protected void end() {
+        if (profiler != null && profiler.isProfiling()) {
+            if (++overlayAge >= OVERLAY_REFRESH) {
+                overlayAge = 0;
+                refreshOverlay();
+            }
+            font.draw(batch, overlay, 20, cameraSystem.guiCamera.viewportHeight - 20);
+        }
         batch.end();
     }
+
+    private void refreshOverlay() {
+        overlay.setLength(0);
+        overlay.append("system: entities p50 / p99 / max (us)\n");
+        for (int i = 0; i < profiler.getSystemCount(); i++) {
+            overlay.append(profiler.getName(i)).append(": ");
+            if (profiler.getEntityCount(i) >= 0) {
+                overlay.append(profiler.getEntityCount(i)).append(' ');
+            }
+            overlay.append(profiler.percentile(i, 0.5) / 1000).append(" / ")
+                    .append(profiler.percentile(i, 0.99) / 1000).append(" / ")
+                    .append(profiler.max(i) / 1000).append('\n');
+        }
+        overlay.append("tick: ").append(profiler.tickPercentile(0.5) / 1000).append(" / ")
+                .append(profiler.tickPercentile(0.99) / 1000).append(" / ")
+                .append(profiler.tickPercentile(1) / 1000);
+        if (mapRenderSystem != null) {
+            overlay.append("\nmap: ").append(mapRenderSystem.getVisibleChunks()).append(" chunks, ")
+                    .append(mapRenderSystem.getDrawCalls()).append(" draws, ")
+                    .append(mapRenderSystem.getVertices()).append(" vertices");
+        }
+    }
 }
@@ -9,17 +9,52 @@ import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.utils.IntArray;
 
 import net.wytrem.jameo.components.Box2dEntity;
 import net.wytrem.jameo.components.Facing;
 import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
 import net.wytrem.jameo.utils.CardDir;
+import net.wytrem.jameo.utils.InputCommandBuffer;
+import net.wytrem.jameo.utils.InputRecorder;
+import net.wytrem.jameo.utils.InputReplay;
+
+/**
+ * Turns the keyboard into one command per tick, then moves the controlled
+ * entities according to that command.
+ *
+ * Commands are kept in an {@link InputCommandBuffer}. They can be written to an
+ * {@link InputRecorder}, or taken from an {@link InputReplay} instead of the
+ * keyboard to play a session back.
+ */
+@MainThread
+@Reads({InputControlled.class, Box2dEntity.class})
+@Writes({Facing.class, Box2dSystem.class})
+public class InputSystem extends IteratingSystem implements InputProcessor {
 
+    public static final int BUFFER_SIZE = 256;
 
-public class InputSystem extends IteratingSystem implements InputProcessor {
+    /**
+     * Movement buttons currently held on the keyboard.
+     */
+    private int held;
+
+    private final InputCommandBuffer commands = new InputCommandBuffer(BUFFER_SIZE);
+    private int tick;
+    private int buttons;
+    private CardDir facing;
+
+    /**
+     * Ticks before this one are re-simulated after a rollback: their commands are already known.
+     */
+    private int resimulateUntil;
+
+    private InputRecorder recorder;
+    private InputReplay replay;
 
-    IntArray keys;
+    private final Vector2 desiredVel = new Vector2();
 
     @Wire
     ComponentMapper<Facing> FacingComponentMapper;
@@ -33,12 +68,81 @@ public class InputSystem extends IteratingSystem implements InputProcessor {
 
     @Override
     protected void initialize() {
-        keys = new IntArray();
         Gdx.input.setInputProcessor(this);
     }
 
+    /**
+     * Write every following command to a recorder, until {@link #stopRecording()}.
+     */
+    public void record(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    /**
+     * Take commands from a replay instead of the keyboard. The replay must be
+     * advanced before each tick.
+     */
+    public void replay(InputReplay replay) {
+        this.replay = replay;
+    }
+
+    public InputCommandBuffer getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return the tick of the next command.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Go back to an earlier tick, for a rollback: up to the current tick, the
+     * commands in the buffer are applied again, including those put late.
+     */
+    public void rewind(int tick) {
+        resimulateUntil = Math.max(resimulateUntil, this.tick);
+        this.tick = tick;
+    }
+
+    @Override
+    protected void begin() {
+        if (tick >= resimulateUntil || !commands.has(tick)) {
+            poll();
+        }
+
+        buttons = commands.buttons(tick);
+        facing = InputCommandBuffer.direction(commands.facing(tick));
+    }
+
+    /**
+     * Put the command of this tick, from the replay or the keyboard.
+     */
+    private void poll() {
+        if (replay != null) {
+            tick = replay.getTick();
+            commands.put(tick, replay.getDelta(), replay.getButtons(), replay.getFacing());
+        }
+        else {
+            final int facing = InputCommandBuffer.facingOf(held);
+            commands.put(tick, world.delta, held, facing);
+            if (recorder != null) {
+                recorder.record(tick, world.delta, held, facing);
+            }
+        }
+    }
+
     @Override
     protected void end() {
+        tick++;
     }
 
     @Override
@@ -48,30 +152,28 @@ public class InputSystem extends IteratingSystem implements InputProcessor {
         Box2dEntity collidingEntity = box2dEntityComponentMapper.get(entityId);
         Body body = collidingEntity.body;
         Vector2 vel = body.getLinearVelocity();
-        Vector2 desiredVel = new Vector2();
-        
-        Facing Facing = FacingComponentMapper.get(entityId);
+        desiredVel.setZero();
 
-        if (keys.contains(Input.Keys.S)) {
+        if ((buttons & InputCommandBuffer.UP) != 0) {
             desiredVel.y += 1.0f;
-            Facing.value = CardDir.NORTH;
         }
 
-        if (keys.contains(Input.Keys.T)) {
+        if ((buttons & InputCommandBuffer.DOWN) != 0) {
             desiredVel.y -= 1.0f;
-            Facing.value = CardDir.SOUTH;
         }
 
-        if (keys.contains(Input.Keys.R)) {
+        if ((buttons & InputCommandBuffer.RIGHT) != 0) {
             desiredVel.x += 1.0f;
-            Facing.value = CardDir.EAST;
         }
 
-        if (keys.contains(Input.Keys.C)) {
-            desiredVel.x -= 1.0f; 
-            Facing.value = CardDir.WEST;
+        if ((buttons & InputCommandBuffer.LEFT) != 0) {
+            desiredVel.x -= 1.0f;
         }
-        
+
+        if (facing != null) {
+            FacingComponentMapper.get(entityId).value = facing;
+        }
+
         desiredVel.nor().scl(factor);
         desiredVel.sub(vel);
         desiredVel.scl(body.getMass());
@@ -79,18 +181,38 @@ public class InputSystem extends IteratingSystem implements InputProcessor {
         body.applyLinearImpulse(desiredVel, body.getWorldCenter(), true);
     }
 
+    private static int button(int keycode) {
+        switch (keycode) {
+            case Input.Keys.S:
+                return InputCommandBuffer.UP;
+            case Input.Keys.T:
+                return InputCommandBuffer.DOWN;
+            case Input.Keys.R:
+                return InputCommandBuffer.RIGHT;
+            case Input.Keys.C:
+                return InputCommandBuffer.LEFT;
+            default:
+                return 0;
+        }
+    }
+
     @Override
     public boolean keyDown(int keycode) {
-        keys.add(keycode);
+        held |= button(keycode);
         return false;
     }
 
     @Override
     public boolean keyUp(int keycode) {
-        keys.removeValue(keycode);
+        held &= ~button(keycode);
         return false;
     }
 
+    @Override
+    protected void dispose() {
+        stopRecording();
+    }
+
     @Override
     public boolean keyTyped(char character) {
         return false;
@@ -2,28 +2,207 @@ package net.wytrem.jameo.systems;
 
 import com.artemis.BaseSystem;
 import com.artemis.annotations.Wire;
-import com.badlogic.gdx.maps.tiled.TiledMapRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.TileChunkGeometry;
+
+/**
+ * Draws the tile layers of the current map from geometry cached per chunk.
+ *
+ * Tiles are turned into vertices once, uploaded to one static mesh per chunk,
+ * and drawn again as is every frame: one draw call per texture run of each
+ * visible chunk. A chunk is only rebuilt after one of its cells changed, which
+ * must go through {@link TiledMapSystem#setCell} or be reported with
+ * {@link #invalidate(int, int)}.
+ */
+@MainThread
+@Reads({TiledMapSystem.class, CameraSystem.class})
 public class MapRenderSystem extends BaseSystem {
+    /**
+     * Chunk side, in tiles.
+     */
+    public static final int CHUNK_SIZE = 16;
 
     @Wire
     TiledMapSystem tiledMapSystem;
 
-    TiledMapRenderer renderer;
-
     @Wire
     CameraSystem cameraSystem;
 
+    private TileChunkGeometry geometry;
+    private Mesh[] meshes;
+    private int[] capacities;
+    private ShaderProgram shader;
+    private short[] indices;
+
+    /**
+     * Statistics of the last frame.
+     */
+    private int visibleChunks, drawCalls, vertices;
+
     public void setup() {
-        renderer = new OrthogonalTiledMapRenderer(tiledMapSystem.map, 1.0f);
+        disposeMeshes();
+        geometry = new TileChunkGeometry(tiledMapSystem.layers, tiledMapSystem.getWidth(), tiledMapSystem.getHeight(), CHUNK_SIZE);
+        meshes = new Mesh[geometry.getChunkCount()];
+        capacities = new int[geometry.getChunkCount()];
+    }
+
+    /**
+     * Rebuild the chunk of a cell before it is drawn again.
+     */
+    public void invalidate(int tx, int ty) {
+        if (geometry != null) {
+            geometry.invalidate(tx, ty);
+        }
+    }
+
+    /**
+     * Rebuild every chunk, after layers were shown, hidden or faded.
+     */
+    public void invalidateAll() {
+        if (geometry != null) {
+            geometry.invalidateAll();
+        }
+    }
+
+    public TileChunkGeometry getGeometry() {
+        return geometry;
+    }
+
+    public int getVisibleChunks() {
+        return visibleChunks;
+    }
+
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    public int getVertices() {
+        return vertices;
     }
 
     @Override
     protected void processSystem() {
-        if (renderer != null) {
-            renderer.setView(cameraSystem.camera);
-            renderer.render();
+        visibleChunks = 0;
+        drawCalls = 0;
+        vertices = 0;
+        if (geometry == null) {
+            return;
+        }
+        if (shader == null) {
+            shader = SpriteBatch.createDefaultShader();
+        }
+
+        // Chunks overlapping the view, with a tile of margin for tile offsets.
+        final OrthographicCamera camera = cameraSystem.camera;
+        final float halfWidth = camera.viewportWidth * camera.zoom * 0.5f;
+        final float halfHeight = camera.viewportHeight * camera.zoom * 0.5f;
+        final float chunkWidth = CHUNK_SIZE * tiledMapSystem.getTileWidth();
+        final float chunkHeight = CHUNK_SIZE * tiledMapSystem.getTileHeight();
+        final int cx0 = Math.max((int) Math.floor((camera.position.x - halfWidth - tiledMapSystem.getTileWidth()) / chunkWidth), 0);
+        final int cy0 = Math.max((int) Math.floor((camera.position.y - halfHeight - tiledMapSystem.getTileHeight()) / chunkHeight), 0);
+        final int cx1 = Math.min((int) Math.floor((camera.position.x + halfWidth) / chunkWidth), geometry.getChunksX() - 1);
+        final int cy1 = Math.min((int) Math.floor((camera.position.y + halfHeight) / chunkHeight), geometry.getChunksY() - 1);
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        shader.begin();
+        shader.setUniformMatrix("u_projTrans", camera.combined);
+        shader.setUniformi("u_texture", 0);
+
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                final int chunk = cy * geometry.getChunksX() + cx;
+                if (geometry.isDirty(chunk)) {
+                    upload(chunk);
+                }
+                if (geometry.getSprites(chunk) == 0) {
+                    continue;
+                }
+
+                visibleChunks++;
+                vertices += geometry.getSprites(chunk) * 4;
+                int offset = 0;
+                for (int run = 0; run < geometry.getRunCount(chunk); run++) {
+                    final int sprites = geometry.getRunSprites(chunk, run);
+                    geometry.getRunTexture(chunk, run).bind();
+                    meshes[chunk].render(shader, GL20.GL_TRIANGLES, offset * 6, sprites * 6);
+                    offset += sprites;
+                    drawCalls++;
+                }
+            }
+        }
+
+        shader.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * Rebuild the vertices of a chunk and upload them, growing its mesh if needed.
+     */
+    private void upload(int chunk) {
+        geometry.build(chunk);
+        final int sprites = geometry.getSprites(chunk);
+        if (sprites == 0) {
+            return;
+        }
+
+        if (meshes[chunk] == null || capacities[chunk] < sprites) {
+            if (meshes[chunk] != null) {
+                meshes[chunk].dispose();
+            }
+            meshes[chunk] = new Mesh(true, sprites * 4, sprites * 6,
+                    new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                    new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                    new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+            meshes[chunk].setIndices(indices(sprites), 0, sprites * 6);
+            capacities[chunk] = sprites;
+        }
+        meshes[chunk].setVertices(geometry.getVertices(chunk), 0, sprites * TileChunkGeometry.SPRITE_SIZE);
+    }
+
+    /**
+     * Two triangles per sprite, shared by every mesh.
+     */
+    private short[] indices(int sprites) {
+        if (indices == null || indices.length < sprites * 6) {
+            indices = new short[sprites * 6];
+            for (int i = 0, j = 0; i < indices.length; i += 6, j += 4) {
+                indices[i] = (short) j;
+                indices[i + 1] = (short) (j + 1);
+                indices[i + 2] = (short) (j + 2);
+                indices[i + 3] = (short) (j + 2);
+                indices[i + 4] = (short) (j + 3);
+                indices[i + 5] = (short) j;
+            }
+        }
+        return indices;
+    }
+
+    private void disposeMeshes() {
+        if (meshes != null) {
+            for (Mesh mesh : meshes) {
+                if (mesh != null) {
+                    mesh.dispose();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void dispose() {
+        disposeMeshes();
+        if (shader != null) {
+            shader.dispose();
         }
     }
 }
@@ -0,0 +1,19 @@
+package net.wytrem.jameo.systems;
+
+import net.wytrem.jameo.components.Position;
+
+/**
+ * Implemented by systems that index entities by position.
+ *
+ * Systems registered in the world are subscribed automatically by
+ * {@link PosSyncSystem}.
+ */
+public interface MoveListener {
+
+    /**
+     * Called whenever {@link PosSyncSystem} changes a position, and for the
+     * positions put back by a rollback or a snapshot restore. Entities the
+     * listener does not hold may be passed too.
+     */
+    void moved(int entityId, Position position);
+}
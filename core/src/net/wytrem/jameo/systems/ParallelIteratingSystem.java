@@ -0,0 +1,101 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.utils.IntBag;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import net.wytrem.jameo.scheduling.MainThread;
+
+/**
+ * Drop-in replacement for {@link com.artemis.systems.IteratingSystem} that
+ * processes its entities concurrently.
+ *
+ * The entity list is split into contiguous ranges processed on a
+ * {@link ForkJoinPool}. Entity ids are sorted, so a range also walks a
+ * contiguous part of every component bag. Below {@link #threshold} entities,
+ * or for {@link MainThread} systems, entities are processed serially on the
+ * calling thread.
+ * <p>
+ * {@link #process(int)} may run on several threads at once: it must only touch
+ * the entity it is given, and nothing that is not thread safe (Box2D, batches,
+ * creating or deleting entities). Systems that do should be {@link MainThread}.
+ */
+public abstract class ParallelIteratingSystem extends BaseEntitySystem {
+
+    public static final int DEFAULT_THRESHOLD = 2048;
+
+    /**
+     * Smallest range handed to a worker, so that tasks are not smaller than
+     * their scheduling cost.
+     */
+    public static final int MIN_RANGE = 256;
+
+    /**
+     * Entity count below which entities are processed serially.
+     */
+    public int threshold = DEFAULT_THRESHOLD;
+
+    private final ForkJoinPool pool;
+    private final boolean serial;
+
+    public ParallelIteratingSystem(Aspect.Builder aspect) {
+        this(aspect, ForkJoinPool.commonPool());
+    }
+
+    public ParallelIteratingSystem(Aspect.Builder aspect, ForkJoinPool pool) {
+        super(aspect);
+        this.pool = pool;
+        this.serial = getClass().isAnnotationPresent(MainThread.class);
+    }
+
+    /**
+     * Process a single entity. May be called concurrently for different entities.
+     */
+    protected abstract void process(int entityId);
+
+    @Override
+    protected final void processSystem() {
+        final IntBag actives = subscription.getEntities();
+        final int[] ids = actives.getData();
+        final int size = actives.size();
+
+        if (serial || size < threshold) {
+            for (int i = 0; i < size; i++) {
+                process(ids[i]);
+            }
+            return;
+        }
+
+        // A few ranges per worker lets work stealing even out uneven entities.
+        final int range = Math.max(MIN_RANGE, size / (pool.getParallelism() * 4));
+        pool.invoke(new Range(ids, 0, size, range));
+    }
+
+    private class Range extends RecursiveAction {
+        private final int[] ids;
+        private final int from, to, range;
+
+        Range(int[] ids, int from, int to, int range) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= range) {
+                for (int i = from; i < to; i++) {
+                    process(ids[i]);
+                }
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+            invokeAll(new Range(ids, from, mid, range), new Range(ids, mid, to, range));
+        }
+    }
+}
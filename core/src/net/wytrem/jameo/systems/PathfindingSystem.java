@@ -0,0 +1,176 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.BaseSystem;
+import com.artemis.annotations.Wire;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.GridPathfinder;
+import net.wytrem.jameo.utils.MapMask;
+import net.wytrem.jameo.utils.RegionGraph;
+
+/**
+ * Asynchronous paths over the {@code solid} mask of the current map.
+ *
+ * Agents fill a {@link Request} and poll it: searches run on background
+ * threads, and results are published here at the start of a tick, so the state
+ * of a request only changes between systems. Queries are hierarchical: a
+ * corridor of regions from the {@link RegionGraph}, cached per (start region,
+ * goal region), is refined by a {@link GridPathfinder} restricted to it.
+ * <p>
+ * Threads are only started by the first request.
+ */
+@Reads(TiledMapSystem.class)
+public class PathfindingSystem extends BaseSystem {
+
+    /**
+     * Cluster side of the region graph, in tiles.
+     */
+    public static final int CLUSTER_SIZE = 16;
+
+    @Wire
+    TiledMapSystem tiledMapSystem;
+
+    private final int threads;
+    private ExecutorService executor;
+
+    private MapMask solid;
+    private RegionGraph graph;
+
+    private final ThreadLocal<GridPathfinder> finders = new ThreadLocal<>();
+    private final ConcurrentLinkedQueue<Request> completed = new ConcurrentLinkedQueue<>();
+
+    public PathfindingSystem() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public PathfindingSystem(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    protected void processSystem() {
+        final MapMask current = tiledMapSystem.map == null ? null : tiledMapSystem.getMask("solid");
+        if (current != solid) {
+            // Requests still running keep the graph they were made with, and
+            // fill its cache again if they must.
+            if (graph != null) {
+                graph.clearCache();
+            }
+            solid = current;
+            graph = current == null ? null : new RegionGraph(current, CLUSTER_SIZE);
+        }
+
+        Request request;
+        while ((request = completed.poll()) != null) {
+            request.state = request.found ? Request.FOUND : Request.NOT_FOUND;
+        }
+    }
+
+    /**
+     * @return the region graph of the current map, null before a map is loaded.
+     */
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Start a search, in tile coordinates. The request must not be pending.
+     */
+    public void request(Request request, int startX, int startY, int goalX, int goalY) {
+        if (request.state == Request.PENDING) {
+            throw new IllegalStateException("Path request already pending");
+        }
+
+        request.startX = startX;
+        request.startY = startY;
+        request.goalX = goalX;
+        request.goalY = goalY;
+        request.state = Request.PENDING;
+
+        final MapMask mask = solid;
+        final RegionGraph regions = graph;
+        if (mask == null) {
+            request.found = false;
+            request.path.clear();
+            completed.add(request);
+            return;
+        }
+
+        if (executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "pathfinding-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        executor.execute(() -> solve(request, mask, regions));
+    }
+
+    /**
+     * Runs on a pathfinding thread.
+     */
+    private void solve(Request request, MapMask mask, RegionGraph regions) {
+        GridPathfinder finder = finders.get();
+        if (finder == null || finder.getBlocked() != mask) {
+            finder = new GridPathfinder(mask);
+            finders.set(finder);
+        }
+
+        request.found = false;
+        request.path.clear();
+        if (inside(mask, request.startX, request.startY) && inside(mask, request.goalX, request.goalY)) {
+            final int from = regions.regionAt(request.startX, request.startY);
+            final int to = regions.regionAt(request.goalX, request.goalY);
+            if (from >= 0 && to >= 0) {
+                final int[] corridor = regions.corridor(from, to);
+                request.found = corridor != null
+                        && finder.find(request.startX, request.startY, request.goalX, request.goalY, regions, corridor, request.path);
+            }
+        }
+
+        completed.add(request);
+    }
+
+    private static boolean inside(MapMask mask, int x, int y) {
+        return x >= 0 && y >= 0 && x < mask.width && y < mask.height;
+    }
+
+    @Override
+    protected void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A path query, reusable once it is done.
+     */
+    public static class Request {
+        public static final int IDLE = 0, PENDING = 1, FOUND = 2, NOT_FOUND = 3;
+
+        int state = IDLE;
+        int startX, startY, goalX, goalY;
+        boolean found;
+
+        /**
+         * The (x, y) tiles of the path, start and goal included. Only valid once
+         * {@link #getState()} is {@link #FOUND}.
+         */
+        public final IntArray path = new IntArray();
+
+        public int getState() {
+            return state;
+        }
+
+        public boolean isDone() {
+            return state == FOUND || state == NOT_FOUND;
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package net.wytrem.jameo.systems;
 
 import com.artemis.Aspect;
+import com.artemis.BaseSystem;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.Wire;
 import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Dormant;
 import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
 
+/**
+ * Copies the positions of bodies to their entities, telling the
+ * {@link MoveListener}s about the ones that changed.
+ */
+@MainThread
+@Reads({Box2dEntity.class, Box2dSystem.class})
+@Writes(Position.class)
 public class PosSyncSystem extends IteratingSystem {
 
     @Wire
@@ -16,16 +30,48 @@ public class PosSyncSystem extends IteratingSystem {
     @Wire
     ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
 
+    private final Array<MoveListener> listeners = new Array<>();
+
     public PosSyncSystem() {
-        super(Aspect.all(Position.class, Box2dEntity.class));
+        super(Aspect.all(Position.class, Box2dEntity.class).exclude(Dormant.class));
+    }
+
+    @Override
+    protected void initialize() {
+        for (BaseSystem system : world.getSystems()) {
+            if (system instanceof MoveListener) {
+                listeners.add((MoveListener) system);
+            }
+        }
+    }
+
+    public void addMoveListener(MoveListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeMoveListener(MoveListener listener) {
+        listeners.removeValue(listener, true);
     }
 
     @Override
     protected void process(int entityId) {
         Position pos = positionComponentMapper.get(entityId);
-        Box2dEntity collidingEntity = box2dEntityComponentMapper.get(entityId);
+        Vector2 position = box2dEntityComponentMapper.get(entityId).body.getPosition();
 
-        pos.x = (float) collidingEntity.body.getPosition().x;
-        pos.y = (float) collidingEntity.body.getPosition().y;
+        if (pos.x != position.x || pos.y != position.y) {
+            pos.x = position.x;
+            pos.y = position.y;
+            moved(entityId);
+        }
+    }
+
+    /**
+     * Tell the listeners about a position changed elsewhere than from its body.
+     */
+    public void moved(int entityId) {
+        Position pos = positionComponentMapper.get(entityId);
+        for (int i = 0; i < listeners.size; i++) {
+            listeners.get(i).moved(entityId, pos);
+        }
     }
 }
@@ -0,0 +1,316 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.Motion;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.CardDir;
+import net.wytrem.jameo.utils.RollbackBuffer;
+
+/**
+ * Keeps the state of the last ticks in a {@link RollbackBuffer}, to rewind the
+ * world and simulate it again, for instance with inputs that came late.
+ *
+ * At the end of every tick, positions, motions, facings and the transforms
+ * and velocities of bodies are copied in the ring. {@link #rollback(int)}
+ * puts them back as they were before a tick, then processes the world again
+ * up to the current tick with the same deltas, the {@link InputSystem} taking
+ * its commands from its buffer. Call it between ticks.
+ * <p>
+ * Only the state of existing entities is rewound: entities created or deleted
+ * meanwhile stay so. Ids are reused, so each entity is captured with a
+ * generation, bumped whenever an id enters the system, and states of an
+ * earlier entity with the same id are skipped. Box2D contacts are not
+ * captured either, so bodies touching each other may end up slightly elsewhere
+ * than the first time.
+ * <p>
+ * Only the systems registered before this one are processed again, but those
+ * passed to {@link #skip(Class)}, the {@link SnapshotSystem} by default: the
+ * systems after it, replication or rendering, only report the outcome of a
+ * tick, and would report the same tick twice.
+ */
+@MainThread
+@Reads({Position.class, Motion.class, Facing.class, Box2dEntity.class, Box2dSystem.class})
+public class RollbackSystem extends BaseEntitySystem {
+
+    public static final int DEFAULT_CAPACITY = 64;
+    private static final int INITIAL_ENTITIES = 256;
+
+    @Wire(failOnNull = false)
+    InputSystem inputSystem;
+
+    @Wire(failOnNull = false)
+    PosSyncSystem posSyncSystem;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<Motion> motionComponentMapper;
+
+    @Wire
+    ComponentMapper<Facing> facingComponentMapper;
+
+    @Wire
+    ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
+
+    private static final CardDir[] DIRECTIONS = CardDir.values();
+
+    private final RollbackBuffer buffer;
+    private int tick;
+    private int[] generations = new int[INITIAL_ENTITIES];
+
+    private final Array<Class<? extends BaseSystem>> skipped = new Array<>();
+
+    private int resimulated;
+    private long rollbackNanos;
+
+    public RollbackSystem() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity ticks kept, a power of two.
+     */
+    public RollbackSystem(int capacity) {
+        super(Aspect.all(Position.class));
+        buffer = new RollbackBuffer(capacity, INITIAL_ENTITIES);
+        // Its tick and autosaves follow the ticks that actually happened.
+        skip(SnapshotSystem.class);
+    }
+
+    /**
+     * Leave systems of a type out of the ticks simulated again.
+     */
+    public RollbackSystem skip(Class<? extends BaseSystem> type) {
+        skipped.add(type);
+        return this;
+    }
+
+    @Override
+    protected void inserted(int entityId) {
+        if (entityId >= generations.length) {
+            generations = Arrays.copyOf(generations, Math.max(entityId + 1, generations.length * 2));
+        }
+        generations[entityId]++;
+    }
+
+    @Override
+    protected void processSystem() {
+        if (inputSystem != null) {
+            // Ticks are those of the inputs, which a replay may move: states
+            // from before a jump are not followed by the ones kept after it.
+            final int processed = inputSystem.getTick() - 1;
+            if (processed != tick) {
+                buffer.clear();
+                tick = processed;
+            }
+        }
+        capture(tick, world.delta);
+        tick++;
+    }
+
+    private void capture(int tick, float delta) {
+        buffer.begin(tick, delta);
+
+        final IntBag entities = subscription.getEntities();
+        final int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            final int id = ids[i];
+            final Body body = box2dEntityComponentMapper.has(id) ? box2dEntityComponentMapper.get(id).body : null;
+
+            int flags = 0;
+            flags |= motionComponentMapper.has(id) ? RollbackBuffer.MOTION : 0;
+            flags |= facingComponentMapper.has(id) ? RollbackBuffer.FACING : 0;
+            flags |= body != null ? RollbackBuffer.BODY : 0;
+            flags |= body != null && body.isAwake() ? RollbackBuffer.AWAKE : 0;
+            final int row = buffer.add(tick, id, generations[id], flags);
+
+            final Position pos = positionComponentMapper.get(id);
+            buffer.setFloat(row, RollbackBuffer.X, pos.x);
+            buffer.setFloat(row, RollbackBuffer.Y, pos.y);
+            if ((flags & RollbackBuffer.MOTION) != 0) {
+                final Motion motion = motionComponentMapper.get(id);
+                buffer.setFloat(row, RollbackBuffer.MOTION_X, motion.x);
+                buffer.setFloat(row, RollbackBuffer.MOTION_Y, motion.y);
+            }
+            if ((flags & RollbackBuffer.FACING) != 0) {
+                buffer.setFacing(row, facingComponentMapper.get(id).value.ordinal());
+            }
+            if (body != null) {
+                final Vector2 position = body.getPosition();
+                final Vector2 velocity = body.getLinearVelocity();
+                buffer.setFloat(row, RollbackBuffer.BODY_X, position.x);
+                buffer.setFloat(row, RollbackBuffer.BODY_Y, position.y);
+                buffer.setFloat(row, RollbackBuffer.BODY_ANGLE, body.getAngle());
+                buffer.setFloat(row, RollbackBuffer.BODY_VX, velocity.x);
+                buffer.setFloat(row, RollbackBuffer.BODY_VY, velocity.y);
+                buffer.setFloat(row, RollbackBuffer.BODY_VANGLE, body.getAngularVelocity());
+            }
+        }
+    }
+
+    /**
+     * @return whether the world can be put back as it was before this tick.
+     */
+    public boolean canRestore(int tick) {
+        return tick <= this.tick && buffer.has(tick - 1);
+    }
+
+    /**
+     * Put the world back as it was before a tick, which is the next one processed.
+     */
+    public void restore(int tick) {
+        if (!canRestore(tick)) {
+            throw new IllegalArgumentException("Tick " + tick + " is out of the rollback window, at tick " + this.tick);
+        }
+
+        final int captured = tick - 1;
+        for (int i = 0, s = buffer.size(captured); i < s; i++) {
+            final int row = buffer.row(captured, i);
+            final int id = buffer.getId(row);
+            if (!positionComponentMapper.has(id) || id >= generations.length || generations[id] != buffer.getGeneration(row)) {
+                continue;
+            }
+            final int flags = buffer.getFlags(row);
+
+            final Position pos = positionComponentMapper.get(id);
+            pos.x = buffer.getFloat(row, RollbackBuffer.X);
+            pos.y = buffer.getFloat(row, RollbackBuffer.Y);
+            if (posSyncSystem != null) {
+                posSyncSystem.moved(id);
+            }
+            if ((flags & RollbackBuffer.MOTION) != 0 && motionComponentMapper.has(id)) {
+                final Motion motion = motionComponentMapper.get(id);
+                motion.x = buffer.getFloat(row, RollbackBuffer.MOTION_X);
+                motion.y = buffer.getFloat(row, RollbackBuffer.MOTION_Y);
+            }
+            if ((flags & RollbackBuffer.FACING) != 0 && facingComponentMapper.has(id)) {
+                facingComponentMapper.get(id).value = DIRECTIONS[buffer.getFacing(row)];
+            }
+            if ((flags & RollbackBuffer.BODY) != 0 && box2dEntityComponentMapper.has(id)) {
+                final Body body = box2dEntityComponentMapper.get(id).body;
+                if (body != null) {
+                    body.setTransform(buffer.getFloat(row, RollbackBuffer.BODY_X), buffer.getFloat(row, RollbackBuffer.BODY_Y),
+                            buffer.getFloat(row, RollbackBuffer.BODY_ANGLE));
+                    body.setLinearVelocity(buffer.getFloat(row, RollbackBuffer.BODY_VX), buffer.getFloat(row, RollbackBuffer.BODY_VY));
+                    body.setAngularVelocity(buffer.getFloat(row, RollbackBuffer.BODY_VANGLE));
+                    body.setAwake((flags & RollbackBuffer.AWAKE) != 0);
+                }
+            }
+        }
+
+        this.tick = tick;
+        if (inputSystem != null) {
+            inputSystem.rewind(tick);
+        }
+    }
+
+    /**
+     * Process the world again for a number of ticks, each with the delta it had.
+     * Only the simulation systems run, the others are disabled meanwhile.
+     */
+    public void resimulate(int ticks) {
+        final World world = getWorld();
+        final float delta = world.delta;
+        final Bag<BaseSystem> systems = world.getSystems();
+        final boolean[] enabled = new boolean[systems.size()];
+        boolean after = false;
+        for (int i = 0; i < enabled.length; i++) {
+            final BaseSystem system = systems.get(i);
+            enabled[i] = system.isEnabled();
+            if (after || isSkipped(system)) {
+                system.setEnabled(false);
+            }
+            after |= system == this;
+        }
+        try {
+            for (int i = 0; i < ticks; i++) {
+                if (buffer.has(tick)) {
+                    world.delta = buffer.delta(tick);
+                }
+                world.process();
+            }
+        }
+        finally {
+            for (int i = 0; i < enabled.length; i++) {
+                systems.get(i).setEnabled(enabled[i]);
+            }
+            world.delta = delta;
+        }
+    }
+
+    private boolean isSkipped(BaseSystem system) {
+        for (Class<? extends BaseSystem> type : skipped) {
+            if (type.isInstance(system)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewind the world to before a tick and simulate it again up to the current tick.
+     */
+    public void rollback(int tick) {
+        final long start = TimeUtils.nanoTime();
+        final int current = this.tick;
+        restore(tick);
+        resimulate(current - tick);
+        resimulated = current - tick;
+        rollbackNanos = TimeUtils.nanoTime() - start;
+    }
+
+    /**
+     * Forget every state kept, when the entities they refer to are replaced.
+     */
+    public void clear() {
+        buffer.clear();
+        if (inputSystem != null) {
+            tick = inputSystem.getTick();
+        }
+    }
+
+    /**
+     * @return the next tick processed, the one of the {@link InputSystem} if
+     * there is one.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    public RollbackBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return ticks simulated again by the last rollback.
+     */
+    public int getResimulated() {
+        return resimulated;
+    }
+
+    /**
+     * @return nanoseconds the last rollback took.
+     */
+    public long getRollbackNanos() {
+        return rollbackNanos;
+    }
+}
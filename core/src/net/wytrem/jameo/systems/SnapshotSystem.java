@@ -0,0 +1,422 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.annotations.Wire;
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Camera;
+import net.wytrem.jameo.components.Dormant;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.FieldOfView;
+import net.wytrem.jameo.components.FlowFollower;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Motion;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.CardDir;
+import net.wytrem.jameo.utils.WorldSnapshot;
+
+/**
+ * Saves the world to {@link WorldSnapshot} files, and restores it from them.
+ *
+ * Saving copies the components of every positioned entity at the end of a
+ * tick, then a background thread writes the copy while the world goes on: the
+ * tick only pays for the copy. Two copies are kept for reuse, so a save
+ * requested while another one is being written does not allocate either. With
+ * {@link #autosave(FileHandle, int)}, the world is saved every few ticks for
+ * crash recovery.
+ * <p>
+ * Restoring replaces every entity with those of the snapshot, loads its map
+ * without spawning the map entities, and puts bodies back as they were.
+ */
+@MainThread
+@Reads({Position.class, Size.class, Motion.class, Facing.class, SpriteComponent.class, Box2dEntity.class,
+        InputControlled.class, Camera.class, FlowFollower.class, FieldOfView.class, Dormant.class, TiledMapSystem.class})
+public class SnapshotSystem extends BaseEntitySystem {
+
+    @Wire
+    TiledMapSystem tiledMapSystem;
+
+    @Wire(failOnNull = false)
+    AssetSystem assetSystem;
+
+    @Wire(failOnNull = false)
+    RollbackSystem rollbackSystem;
+
+    @Wire(failOnNull = false)
+    PosSyncSystem posSyncSystem;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<Size> sizeComponentMapper;
+
+    @Wire
+    ComponentMapper<Motion> motionComponentMapper;
+
+    @Wire
+    ComponentMapper<Facing> facingComponentMapper;
+
+    @Wire
+    ComponentMapper<SpriteComponent> spriteComponentComponentMapper;
+
+    @Wire
+    ComponentMapper<Box2dEntity> box2dEntityComponentMapper;
+
+    @Wire
+    ComponentMapper<InputControlled> inputControlledComponentMapper;
+
+    @Wire
+    ComponentMapper<Camera> cameraComponentMapper;
+
+    @Wire
+    ComponentMapper<FlowFollower> flowFollowerComponentMapper;
+
+    @Wire
+    ComponentMapper<FieldOfView> fieldOfViewComponentMapper;
+
+    @Wire
+    ComponentMapper<Dormant> dormantComponentMapper;
+
+    private static final CardDir[] DIRECTIONS = CardDir.values();
+
+    private final ConcurrentLinkedQueue<WorldSnapshot> free = new ConcurrentLinkedQueue<>();
+    private ExecutorService writer;
+
+    private int tick;
+    private FileHandle saveFile;
+    private FileHandle autosaveFile;
+    private int autosaveInterval;
+
+    private long captureNanos;
+    private volatile long writeNanos;
+
+    public SnapshotSystem() {
+        super(Aspect.all(Position.class));
+        free.add(new WorldSnapshot());
+        free.add(new WorldSnapshot());
+    }
+
+    /**
+     * Save the world as it is at the end of this tick.
+     */
+    public void save(FileHandle file) {
+        saveFile = file;
+    }
+
+    /**
+     * Save the world every {@code interval} ticks, 0 to stop.
+     */
+    public void autosave(FileHandle file, int interval) {
+        autosaveFile = file;
+        autosaveInterval = interval;
+    }
+
+    @Override
+    protected void processSystem() {
+        tick++;
+        if (saveFile == null && autosaveInterval > 0 && tick % autosaveInterval == 0) {
+            saveFile = autosaveFile;
+        }
+        if (saveFile == null) {
+            return;
+        }
+
+        final WorldSnapshot snapshot = free.poll();
+        if (snapshot == null) {
+            Gdx.app.error("SnapshotSystem", "Still writing the previous snapshots, skipping " + saveFile);
+            saveFile = null;
+            return;
+        }
+
+        final long start = TimeUtils.nanoTime();
+        capture(snapshot);
+        captureNanos = TimeUtils.nanoTime() - start;
+
+        final FileHandle file = saveFile;
+        saveFile = null;
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        writer.execute(() -> write(snapshot, file));
+    }
+
+    private void write(WorldSnapshot snapshot, FileHandle file) {
+        final long start = TimeUtils.nanoTime();
+        try {
+            snapshot.write(file);
+            writeNanos = TimeUtils.nanoTime() - start;
+        }
+        catch (RuntimeException e) {
+            Gdx.app.error("SnapshotSystem", "Could not save " + file, e);
+        }
+        finally {
+            free.add(snapshot);
+        }
+    }
+
+    /**
+     * Copy the state of every positioned entity.
+     */
+    public void capture(WorldSnapshot snapshot) {
+        snapshot.clear(tiledMapSystem.getMapFile(), tick);
+
+        final IntBag entities = subscription.getEntities();
+        final int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            final int id = ids[i];
+            final Body body = box2dEntityComponentMapper.has(id) ? box2dEntityComponentMapper.get(id).body : null;
+            final SpriteComponent sprite = spriteComponentComponentMapper.has(id) ? spriteComponentComponentMapper.get(id) : null;
+
+            int has = WorldSnapshot.POSITION;
+            has |= sizeComponentMapper.has(id) ? WorldSnapshot.SIZE : 0;
+            has |= motionComponentMapper.has(id) ? WorldSnapshot.MOTION : 0;
+            has |= facingComponentMapper.has(id) ? WorldSnapshot.FACING : 0;
+            has |= sprite != null ? WorldSnapshot.SPRITE : 0;
+            has |= body != null ? WorldSnapshot.BODY : 0;
+            has |= inputControlledComponentMapper.has(id) ? WorldSnapshot.INPUT_CONTROLLED : 0;
+            has |= cameraComponentMapper.has(id) ? WorldSnapshot.CAMERA : 0;
+            has |= flowFollowerComponentMapper.has(id) ? WorldSnapshot.FLOW_FOLLOWER : 0;
+            has |= fieldOfViewComponentMapper.has(id) ? WorldSnapshot.FIELD_OF_VIEW : 0;
+            has |= dormantComponentMapper.has(id) ? WorldSnapshot.DORMANT : 0;
+            final int slot = snapshot.add(id, has);
+
+            final Position pos = positionComponentMapper.get(id);
+            snapshot.setFloat(slot, WorldSnapshot.X, pos.x);
+            snapshot.setFloat(slot, WorldSnapshot.Y, pos.y);
+            if ((has & WorldSnapshot.SIZE) != 0) {
+                final Size size = sizeComponentMapper.get(id);
+                snapshot.setFloat(slot, WorldSnapshot.WIDTH, size.width);
+                snapshot.setFloat(slot, WorldSnapshot.HEIGHT, size.height);
+            }
+            if ((has & WorldSnapshot.MOTION) != 0) {
+                final Motion motion = motionComponentMapper.get(id);
+                snapshot.setFloat(slot, WorldSnapshot.MOTION_X, motion.x);
+                snapshot.setFloat(slot, WorldSnapshot.MOTION_Y, motion.y);
+            }
+            if ((has & WorldSnapshot.FACING) != 0) {
+                snapshot.setInt(slot, WorldSnapshot.FACING_DIR, facingComponentMapper.get(id).value.ordinal());
+            }
+            if (sprite != null) {
+                snapshot.setSprite(slot, sprite.variants == null ? null : sprite.variants.name);
+            }
+            if (body != null) {
+                final Vector2 position = body.getPosition();
+                final Vector2 velocity = body.getLinearVelocity();
+                snapshot.setFloat(slot, WorldSnapshot.BODY_X, position.x);
+                snapshot.setFloat(slot, WorldSnapshot.BODY_Y, position.y);
+                snapshot.setFloat(slot, WorldSnapshot.BODY_ANGLE, body.getAngle());
+                snapshot.setFloat(slot, WorldSnapshot.BODY_VX, velocity.x);
+                snapshot.setFloat(slot, WorldSnapshot.BODY_VY, velocity.y);
+                snapshot.setInt(slot, WorldSnapshot.BODY_FLAGS,
+                        (body.isAwake() ? WorldSnapshot.AWAKE : 0) | (body.isActive() ? WorldSnapshot.ACTIVE : 0));
+            }
+            if ((has & WorldSnapshot.FLOW_FOLLOWER) != 0) {
+                final FlowFollower follower = flowFollowerComponentMapper.get(id);
+                snapshot.setFloat(slot, WorldSnapshot.FLOW_SPEED, follower.speed);
+                snapshot.setInt(slot, WorldSnapshot.FLOW_TARGET, follower.target);
+            }
+            if ((has & WorldSnapshot.FIELD_OF_VIEW) != 0) {
+                snapshot.setInt(slot, WorldSnapshot.FOV_RADIUS, fieldOfViewComponentMapper.get(id).radius);
+            }
+        }
+    }
+
+    /**
+     * Replace the world with a snapshot file. Call between ticks.
+     */
+    public void load(FileHandle file) {
+        restore(WorldSnapshot.read(file));
+    }
+
+    /**
+     * Replace the world with a snapshot. Call between ticks.
+     */
+    public void restore(WorldSnapshot snapshot) {
+        final World world = getWorld();
+        final IntBag entities = world.getAspectSubscriptionManager().get(Aspect.all()).getEntities();
+        final int[] existing = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            world.delete(existing[i]);
+        }
+
+        if (snapshot.getMap() != null && !snapshot.getMap().equals(tiledMapSystem.getMapFile())) {
+            tiledMapSystem.restore(snapshot.getMap());
+        }
+
+        // Entities get new ids: keep the old ones to rewire references.
+        final IntIntMap created = new IntIntMap(snapshot.size());
+        final int[] slots = new int[snapshot.size()];
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            final int id = world.create();
+            created.put(snapshot.getId(slot), id);
+            slots[slot] = id;
+            create(snapshot, slot, id);
+        }
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            if (snapshot.has(slot, WorldSnapshot.FLOW_FOLLOWER)) {
+                final FlowFollower follower = flowFollowerComponentMapper.get(slots[slot]);
+                follower.target = follower.target < 0 ? -1 : created.get(follower.target, -1);
+            }
+        }
+
+        // Bodies are created by the box2d system when it sees the new entities.
+        flush();
+
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            if (snapshot.has(slot, WorldSnapshot.BODY) && box2dEntityComponentMapper.has(slots[slot])) {
+                restoreBody(snapshot, slot, slots[slot]);
+            }
+        }
+        tick = snapshot.getTick();
+        if (rollbackSystem != null) {
+            // Its states refer to the deleted entities.
+            rollbackSystem.clear();
+        }
+        Gdx.app.log("SnapshotSystem", "Restored " + snapshot.size() + " entities of tick " + tick);
+    }
+
+    /**
+     * Apply the pending entity changes, notifying systems, without processing
+     * any: the world is processed once with every system disabled.
+     */
+    private void flush() {
+        final World world = getWorld();
+        final Bag<BaseSystem> systems = world.getSystems();
+        final boolean[] enabled = new boolean[systems.size()];
+        for (int i = 0; i < enabled.length; i++) {
+            enabled[i] = systems.get(i).isEnabled();
+            systems.get(i).setEnabled(false);
+        }
+        try {
+            world.process();
+        }
+        finally {
+            for (int i = 0; i < enabled.length; i++) {
+                systems.get(i).setEnabled(enabled[i]);
+            }
+        }
+    }
+
+    private void create(WorldSnapshot snapshot, int slot, int id) {
+        final Position pos = positionComponentMapper.create(id);
+        pos.x = snapshot.getFloat(slot, WorldSnapshot.X);
+        pos.y = snapshot.getFloat(slot, WorldSnapshot.Y);
+
+        if (snapshot.has(slot, WorldSnapshot.SIZE)) {
+            sizeComponentMapper.create(id).set(snapshot.getFloat(slot, WorldSnapshot.WIDTH), snapshot.getFloat(slot, WorldSnapshot.HEIGHT));
+        }
+        if (snapshot.has(slot, WorldSnapshot.MOTION)) {
+            final Motion motion = motionComponentMapper.create(id);
+            motion.x = snapshot.getFloat(slot, WorldSnapshot.MOTION_X);
+            motion.y = snapshot.getFloat(slot, WorldSnapshot.MOTION_Y);
+        }
+        CardDir facing = CardDir.EAST;
+        if (snapshot.has(slot, WorldSnapshot.FACING)) {
+            facing = DIRECTIONS[snapshot.getInt(slot, WorldSnapshot.FACING_DIR)];
+            facingComponentMapper.create(id).value = facing;
+        }
+        if (snapshot.has(slot, WorldSnapshot.SPRITE)) {
+            final SpriteComponent sprite = spriteComponentComponentMapper.create(id);
+            if (snapshot.getSprite(slot) != null && assetSystem != null) {
+                sprite.variants = assetSystem.sprite(snapshot.getSprite(slot));
+                sprite.sprite = sprite.variants.get(facing);
+            }
+        }
+        if (snapshot.has(slot, WorldSnapshot.BODY)) {
+            box2dEntityComponentMapper.create(id);
+            // Bodies are created around the position plus half the size: put it where the body was.
+            if (snapshot.has(slot, WorldSnapshot.SIZE)) {
+                pos.x = snapshot.getFloat(slot, WorldSnapshot.BODY_X) - snapshot.getFloat(slot, WorldSnapshot.WIDTH) / 2;
+                pos.y = snapshot.getFloat(slot, WorldSnapshot.BODY_Y) - snapshot.getFloat(slot, WorldSnapshot.HEIGHT) / 2;
+            }
+        }
+        if (snapshot.has(slot, WorldSnapshot.INPUT_CONTROLLED)) {
+            inputControlledComponentMapper.create(id);
+        }
+        if (snapshot.has(slot, WorldSnapshot.CAMERA)) {
+            cameraComponentMapper.create(id);
+        }
+        if (snapshot.has(slot, WorldSnapshot.FLOW_FOLLOWER)) {
+            final FlowFollower follower = flowFollowerComponentMapper.create(id);
+            follower.speed = snapshot.getFloat(slot, WorldSnapshot.FLOW_SPEED);
+            follower.target = snapshot.getInt(slot, WorldSnapshot.FLOW_TARGET);
+        }
+        if (snapshot.has(slot, WorldSnapshot.FIELD_OF_VIEW)) {
+            fieldOfViewComponentMapper.create(id).radius = snapshot.getInt(slot, WorldSnapshot.FOV_RADIUS);
+        }
+        if (snapshot.has(slot, WorldSnapshot.DORMANT)) {
+            dormantComponentMapper.create(id);
+        }
+    }
+
+    private void restoreBody(WorldSnapshot snapshot, int slot, int id) {
+        final Body body = box2dEntityComponentMapper.get(id).body;
+        if (body == null) {
+            return;
+        }
+        final int flags = snapshot.getInt(slot, WorldSnapshot.BODY_FLAGS);
+        body.setTransform(snapshot.getFloat(slot, WorldSnapshot.BODY_X), snapshot.getFloat(slot, WorldSnapshot.BODY_Y),
+                snapshot.getFloat(slot, WorldSnapshot.BODY_ANGLE));
+        body.setLinearVelocity(snapshot.getFloat(slot, WorldSnapshot.BODY_VX), snapshot.getFloat(slot, WorldSnapshot.BODY_VY));
+        body.setActive((flags & WorldSnapshot.ACTIVE) != 0);
+        body.setAwake((flags & WorldSnapshot.AWAKE) != 0);
+
+        final Position pos = positionComponentMapper.get(id);
+        pos.x = snapshot.getFloat(slot, WorldSnapshot.X);
+        pos.y = snapshot.getFloat(slot, WorldSnapshot.Y);
+        if (posSyncSystem != null) {
+            posSyncSystem.moved(id);
+        }
+    }
+
+    /**
+     * @return nanoseconds the last save took from the tick.
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * @return nanoseconds the last save took to write, off the tick.
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    @Override
+    protected void dispose() {
+        if (writer != null) {
+            // Let a save in progress complete.
+            writer.shutdown();
+        }
+    }
+}
@@ -3,14 +3,17 @@ package net.wytrem.jameo.systems;
 import com.artemis.Aspect;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.Wire;
-import com.artemis.systems.IteratingSystem;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
+import net.wytrem.jameo.components.Dormant;
 import net.wytrem.jameo.components.Facing;
 import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.scheduling.Writes;
 import net.wytrem.jameo.utils.CardDir;
 
-public class SpriteOrientationSystem extends IteratingSystem {
+@Reads(Facing.class)
+@Writes(SpriteComponent.class)
+public class SpriteOrientationSystem extends ParallelIteratingSystem {
 
     @Wire
     ComponentMapper<Facing> facingComponentComponentMapper;
@@ -19,23 +22,20 @@ public class SpriteOrientationSystem extends IteratingSystem {
     ComponentMapper<SpriteComponent> spriteComponentComponentMapper;
 
     public SpriteOrientationSystem() {
-        super(Aspect.all(Facing.class, SpriteComponent.class));
+        super(Aspect.all(Facing.class, SpriteComponent.class).exclude(Dormant.class));
     }
 
     @Override
     protected void process(int entityId) {
-        CardDir facing = facingComponentComponentMapper.get(entityId).value;
-        TextureRegion region = spriteComponentComponentMapper.get(entityId).sprite;
-
-        if (facing.equals(CardDir.EAST)) {
-            if (region.isFlipX()) {
-                region.flip(true, false);
-            }
+        SpriteComponent spriteComponent = spriteComponentComponentMapper.get(entityId);
+        if (spriteComponent.variants == null) {
+            return;
         }
-        else if (facing.equals(CardDir.WEST)) {
-            if (!region.isFlipX()) {
-                region.flip(true, false);
-            }
+
+        // Facing north or south keeps the last horizontal orientation.
+        CardDir facing = facingComponentComponentMapper.get(entityId).value;
+        if (facing == CardDir.EAST || facing == CardDir.WEST || spriteComponent.sprite == null) {
+            spriteComponent.sprite = spriteComponent.variants.get(facing);
         }
     }
 }
@@ -1,14 +1,46 @@
 package net.wytrem.jameo.systems;
 
 import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.Wire;
-import com.artemis.systems.IteratingSystem;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import net.wytrem.jameo.components.Dormant;
 import net.wytrem.jameo.components.Position;
 import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Reads;
+import net.wytrem.jameo.utils.SpatialGrid;
+
+/**
+ * Draws the sprites inside the camera view.
+ *
+ * Sprites are indexed in a {@link SpatialGrid} when they enter the system, and
+ * moved in it as the {@link PosSyncSystem} reports them moving, so that a frame
+ * costs the sprites in view and the ones that moved, not all of them.
+ * Visible sprites are drawn back to front by bands of {@link #DEPTH_BAND}
+ * pixels, grouped by texture within a band so that the batch flushes once per
+ * texture and band rather than at every texture change, then by decreasing y.
+ * The insertion sort is linear since the grid returns them almost in order.
+ */
+@MainThread
+@Reads({Position.class, SpriteComponent.class, CameraSystem.class})
+public class SpriteRenderSystem extends BaseEntitySystem implements MoveListener {
 
-public class SpriteRenderSystem extends IteratingSystem {
+    /**
+     * Grid cell size, in pixels.
+     */
+    private static final float CELL_SIZE = 128f;
+
+    /**
+     * Height of the depth bands, in pixels. Sprites of a band may overlap out of y order.
+     */
+    public static final float DEPTH_BAND = 16f;
 
     SpriteBatch batch;
 
@@ -21,8 +53,15 @@ public class SpriteRenderSystem extends IteratingSystem {
     @Wire
     CameraSystem cameraSystem;
 
+    private final SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+
+    private final IntArray visible = new IntArray();
+    private final IntArray bands = new IntArray();
+    private final FloatArray depths = new FloatArray();
+    private final IntArray textures = new IntArray();
+
     public SpriteRenderSystem() {
-        super(Aspect.all(Position.class, SpriteComponent.class));
+        super(Aspect.all(Position.class, SpriteComponent.class).exclude(Dormant.class));
     }
 
     @Override
@@ -31,20 +70,126 @@ public class SpriteRenderSystem extends IteratingSystem {
     }
 
     @Override
-    protected void begin() {
-        batch.setProjectionMatrix(cameraSystem.camera.combined);
-        batch.begin();
+    protected void inserted(int entityId) {
+        Position position = positionComponentMapper.get(entityId);
+        grid.update(entityId, position.x, position.y);
     }
 
     @Override
-    protected void process(int entityId) {
-        SpriteComponent spriteComponent = spriteComponentComponentMapper.get(entityId);
-        Position position = positionComponentMapper.get(entityId);
-        batch.draw(spriteComponent.sprite, position.x, position.y);
+    public void moved(int entityId, Position position) {
+        // Sleeping or sprite-less entities are left out until they are inserted.
+        if (grid.contains(entityId)) {
+            grid.update(entityId, position.x, position.y);
+        }
+    }
+
+    @Override
+    protected void removed(int entityId) {
+        grid.remove(entityId);
     }
 
     @Override
-    protected void end() {
+    protected void processSystem() {
+        OrthographicCamera camera = cameraSystem.camera;
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+        float left = camera.position.x - halfWidth;
+        float right = camera.position.x + halfWidth;
+        float bottom = camera.position.y - halfHeight;
+        float top = camera.position.y + halfHeight;
+
+        // Sprites are indexed by their bottom left corner: widen the query by a cell so
+        // that sprites overlapping the view from the left or bottom are found too.
+        visible.clear();
+        grid.query(left - CELL_SIZE, bottom - CELL_SIZE, right, top, visible);
+
+        cull(left, right, bottom, top);
+        sort();
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        int[] ids = visible.items;
+        for (int i = 0; i < visible.size; i++) {
+            SpriteComponent spriteComponent = spriteComponentComponentMapper.get(ids[i]);
+            Position position = positionComponentMapper.get(ids[i]);
+            batch.draw(spriteComponent.sprite, position.x, position.y);
+        }
         batch.end();
     }
+
+    /**
+     * Keep only the sprites that overlap the view, and gather their sort keys.
+     */
+    private void cull(float left, float right, float bottom, float top) {
+        bands.clear();
+        depths.clear();
+        textures.clear();
+
+        int[] ids = visible.items;
+        int kept = 0;
+        for (int i = 0; i < visible.size; i++) {
+            TextureRegion sprite = spriteComponentComponentMapper.get(ids[i]).sprite;
+            Position position = positionComponentMapper.get(ids[i]);
+            if (sprite == null
+                    || position.x > right || position.x + sprite.getRegionWidth() < left
+                    || position.y > top || position.y + sprite.getRegionHeight() < bottom) {
+                continue;
+            }
+
+            ids[kept++] = ids[i];
+            bands.add((int) Math.floor(position.y / DEPTH_BAND));
+            depths.add(position.y);
+            textures.add(sprite.getTexture().getTextureObjectHandle());
+        }
+        visible.size = kept;
+    }
+
+    /**
+     * Insertion sort by decreasing band, then texture, then decreasing y.
+     * Linear on nearly sorted input.
+     */
+    private void sort() {
+        int[] ids = visible.items;
+        int[] band = bands.items;
+        float[] y = depths.items;
+        int[] tex = textures.items;
+
+        for (int i = 1; i < visible.size; i++) {
+            int id = ids[i];
+            int b = band[i];
+            float depth = y[i];
+            int texture = tex[i];
+
+            int j = i - 1;
+            while (j >= 0 && before(b, texture, depth, band[j], tex[j], y[j])) {
+                ids[j + 1] = ids[j];
+                band[j + 1] = band[j];
+                y[j + 1] = y[j];
+                tex[j + 1] = tex[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            band[j + 1] = b;
+            y[j + 1] = depth;
+            tex[j + 1] = texture;
+        }
+    }
+
+    /**
+     * @return whether the first sprite is drawn before the second one.
+     */
+    private static boolean before(int band, int texture, float y, int otherBand, int otherTexture, float otherY) {
+        if (band != otherBand) {
+            return band > otherBand;
+        }
+        if (texture != otherTexture) {
+            return texture < otherTexture;
+        }
+        return y > otherY;
+    }
+
+    @Override
+    protected void dispose() {
+        batch.dispose();
+    }
 }
@@ -1,20 +1,34 @@
 package net.wytrem.jameo.systems;
 
 import com.artemis.BaseSystem;
+import com.artemis.World;
 import com.artemis.annotations.Wire;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
 
+import net.wytrem.jameo.jfr.MapLoadEvent;
+import net.wytrem.jameo.jfr.MapSetupEvent;
+import net.wytrem.jameo.scheduling.MainThread;
+import net.wytrem.jameo.scheduling.Writes;
+import net.wytrem.jameo.utils.BakedMap;
+import net.wytrem.jameo.utils.ColliderBaker;
 import net.wytrem.jameo.utils.MapMask;
+import net.wytrem.jameo.utils.SharedMap;
 
+@MainThread
+@Writes({World.class, Box2dSystem.class, TiledMapSystem.class})
 public class TiledMapSystem extends BaseSystem {
     @Wire
     AbstractEntityFactorySystem entityFactorySystem;
 
-    @Wire
+    @Wire(failOnNull = false)
     MapRenderSystem mapRenderSystem;
     
     @Wire
@@ -28,35 +42,218 @@ public class TiledMapSystem extends BaseSystem {
 
     private String mapFilename;
     private boolean needsSetup = false;
+    private boolean ownsMap = true;
+
+    /**
+     * Cleared to set up the walls of a map but not its entities, which are restored otherwise.
+     */
+    private boolean spawnEntities = true;
 
     public Array<TiledMapTileLayer> layers;
 
+    /**
+     * Collider statistics of the last {@link #setup()}: tiles flagged solid and
+     * the static bodies actually created for them.
+     */
+    public int solidTiles;
+    public int wallBodies;
+
+    /**
+     * Entities spawned by the last {@link #setup()}.
+     */
+    public int spawned;
+
+    private final IntArray walls = new IntArray();
+
+    /**
+     * Masks of every tile property of the current map, built once on load.
+     */
+    private ObjectMap<String, MapMask> masks = new ObjectMap<>();
+    private MapMask emptyMask;
+
+    /**
+     * Set when the current map is shared with other worlds, which it must not be modified for.
+     */
+    private SharedMap shared;
+
     @Override
     protected void initialize() {
     }
 
+    /**
+     * Load a TMX map, or a map baked by {@link BakedMap} if the file has its extension.
+     */
     public void load(String file) {
-        if (map != null) {
+        if (file.endsWith(BakedMap.EXTENSION)) {
+            loadBaked(file);
+            return;
+        }
+        if (map != null && ownsMap) {
             map.dispose();
         }
+        MapLoadEvent event = new MapLoadEvent();
+        event.begin();
         needsSetup = true;
         mapFilename = file;
-        map = new TmxMapLoader().load(mapFilename);
+        setMap(new TmxMapLoader().load(mapFilename), true);
+        masks = MapMask.generateAll(height, width, tileWidth, tileHeight, layers);
+        commit(event, file);
+    }
+
+    /**
+     * Load a map shared with other worlds. Its masks, walls and spawns are reused
+     * as is, and its cells are never modified.
+     */
+    public void load(SharedMap map) {
+        if (this.map != null && ownsMap) {
+            this.map.dispose();
+        }
+        MapLoadEvent event = new MapLoadEvent();
+        event.begin();
+        needsSetup = true;
+        mapFilename = map.getFile();
+        setMap(map.getMap(), false);
+        masks = map.getMasks();
+        shared = map;
+        commit(event, mapFilename);
+    }
+
+    /**
+     * Load a map baked by {@link BakedMap}: tiles, masks, walls and spawns are
+     * read as is instead of being derived.
+     */
+    public void loadBaked(String file) {
+        load(BakedMap.read(file, Gdx.files.internal(file)));
+        // Nothing else holds this one: dispose it with the next map.
+        ownsMap = true;
+    }
+
+    /**
+     * Load a map for a world restored from a {@link net.wytrem.jameo.utils.WorldSnapshot}:
+     * walls are created and entity tiles cleared right away, but no entity is
+     * spawned.
+     */
+    public void restore(String file) {
+        load(file);
+        spawnEntities = false;
+        setupPending();
+    }
+
+    /**
+     * @return the file of the current map, null if it was not loaded from one.
+     */
+    public String getMapFile() {
+        return mapFilename;
+    }
+
+    /**
+     * Load a map built elsewhere. The map stays owned by the caller.
+     */
+    public void load(TiledMap map) {
+        if (this.map != null && ownsMap) {
+            this.map.dispose();
+        }
+        MapLoadEvent event = new MapLoadEvent();
+        event.begin();
+        needsSetup = true;
+        mapFilename = null;
+        setMap(map, false);
+        masks = MapMask.generateAll(height, width, tileWidth, tileHeight, layers);
+        commit(event, null);
+    }
+
+    private void commit(MapLoadEvent event, String file) {
+        event.file = file;
+        event.width = width;
+        event.height = height;
+        event.tiles = width * height * layers.size;
+        event.commit();
+    }
+
+    /**
+     * Switch to an already loaded map. Masks, walls and entities are left to the caller.
+     *
+     * @param ownsMap whether this system disposes the map when another one is loaded.
+     */
+    void setMap(TiledMap map, boolean ownsMap) {
+        this.map = map;
+        this.ownsMap = ownsMap;
         layers = map.getLayers().getByType(TiledMapTileLayer.class);
         width = map.getProperties().get("width", Integer.class);
         height = map.getProperties().get("height", Integer.class);
         tileWidth = map.getProperties().get("tilewidth", Integer.class);
         tileHeight = map.getProperties().get("tileheight", Integer.class);
+        masks = new ObjectMap<>();
+        emptyMask = null;
+        shared = null;
     }
 
+    void setMasks(ObjectMap<String, MapMask> masks) {
+        this.masks = masks;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * Change a cell of a layer, so that the map is drawn again around it.
+     */
+    public void setCell(TiledMapTileLayer layer, int tx, int ty, TiledMapTileLayer.Cell cell) {
+        layer.setCell(tx, ty, cell);
+        if (mapRenderSystem != null) {
+            mapRenderSystem.invalidate(tx, ty);
+        }
+    }
+
+    /**
+     * @return the mask of a tile property. Masks are shared for the lifetime of the
+     * map: {@link MapMask#copy()} it before modifying it.
+     */
     public MapMask getMask(String property) {
-        return new MapMask(height, width, tileWidth, tileHeight, layers, property);
+        MapMask mask = masks.get(property);
+        if (mask == null) {
+            // Not added to the masks, which may be shared with other worlds.
+            if (emptyMask == null) {
+                emptyMask = new MapMask(height, width, tileWidth, tileHeight);
+            }
+            mask = emptyMask;
+        }
+        return mask;
     }
 
     /**
      * Spawn map entities.
      */
     protected void setup() {
+        MapSetupEvent event = new MapSetupEvent();
+        event.begin();
+
+        if (shared != null) {
+            setupShared();
+            event.entities = spawned;
+            event.solidTiles = solidTiles;
+            event.wallBodies = wallBodies;
+            event.commit();
+            return;
+        }
+
+        // Solid tiles are merged into rectangles before entity tiles get cleared.
+        bakeWalls(getMask("solid"));
+
+        entityFactorySystem.beginBatch(mapFilename);
         for (TiledMapTileLayer layer : layers) {
             for (int ty = 0; ty < height; ty++) {
                 for (int tx = 0; tx < width; tx++) {
@@ -64,29 +261,91 @@ public class TiledMapSystem extends BaseSystem {
                     if (cell != null) {
                         final MapProperties properties = cell.getTile().getProperties();
                         if (properties.containsKey("entity")) {
-                            entityFactorySystem.createEntity((String) properties.get("entity"), tx * tileWidth, ty * tileHeight, properties);
-                            layer.setCell(tx, ty, null);
-                        }
-                        if (properties.containsKey("solid")) {
-                            createWall(tx * tileWidth, ty * tileHeight, tileWidth, tileHeight);
+                            if (spawnEntities) {
+                                entityFactorySystem.queue(tx * tileWidth, ty * tileHeight, properties);
+                            }
+                            setCell(layer, tx, ty, null);
                         }
                     }
                 }
             }
         }
+
+        event.entities = spawned = entityFactorySystem.endBatch();
+        event.solidTiles = solidTiles;
+        event.wallBodies = wallBodies;
+        event.commit();
     }
 
+    /**
+     * Setup from the walls and spawns precomputed by the shared map.
+     */
+    private void setupShared() {
+        final IntArray sharedWalls = shared.getWalls();
+        for (int i = 0; i < sharedWalls.size; i += 4) {
+            createWall(sharedWalls.get(i), sharedWalls.get(i + 1), sharedWalls.get(i + 2), sharedWalls.get(i + 3));
+        }
+        solidTiles = shared.getSolidTiles();
+        wallBodies = sharedWalls.size / 4;
+
+        entityFactorySystem.beginBatch(mapFilename);
+        for (int i = 0; spawnEntities && i < shared.getSpawnCount(); i++) {
+            entityFactorySystem.queue(shared.getSpawnX(i) * tileWidth, shared.getSpawnY(i) * tileHeight, shared.getSpawnProperties(i));
+        }
+        spawned = entityFactorySystem.endBatch();
+    }
+
+    /**
+     * Create one static body per merged rectangle of the mask.
+     */
+    protected void bakeWalls(MapMask solid) {
+        walls.clear();
+        wallBodies = ColliderBaker.bake(solid, walls);
+        solidTiles = 0;
+
+        for (int i = 0; i < walls.size; i += 4) {
+            final int tx = walls.get(i);
+            final int ty = walls.get(i + 1);
+            final int tw = walls.get(i + 2);
+            final int th = walls.get(i + 3);
+            solidTiles += tw * th;
+
+            createWall(tx, ty, tw, th);
+        }
 
-    protected void createWall(float x, float y, float width, float height) {
-        system.createWall(x, y, width, height);
+        Gdx.app.log("TiledMapSystem", "Baked " + solidTiles + " solid tiles into " + wallBodies + " walls (" + (solidTiles - wallBodies) + " bodies saved)");
+    }
+
+
+    /**
+     * Create the wall of a rectangle of tiles.
+     */
+    protected Body createWall(int tx, int ty, int tw, int th) {
+        // Same placement as the former per tile walls: centered on the tile origin,
+        // so a 1x1 rectangle lands exactly where its tile wall used to be.
+        return system.createWall((tx + (tw - 1) * 0.5f) * tileWidth, (ty + (th - 1) * 0.5f) * tileHeight, tw * tileWidth, th * tileHeight);
+    }
+
+    void destroyWall(Body wall) {
+        system.destroyWall(wall);
     }
 
     @Override
     protected void processSystem() {
+        setupPending();
+    }
+
+    /**
+     * Set up the map loaded since the last tick, if any.
+     */
+    private void setupPending() {
         if (needsSetup) {
             needsSetup = false;
-            mapRenderSystem.setup();
+            if (mapRenderSystem != null) {
+                mapRenderSystem.setup();
+            }
             setup();
+            spawnEntities = true;
         }
     }
 }
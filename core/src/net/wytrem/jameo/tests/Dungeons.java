@@ -8,33 +8,48 @@ import com.artemis.WorldConfiguration;
 import com.artemis.WorldConfigurationBuilder;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
 
 import net.wytrem.jameo.components.Box2dEntity;
 import net.wytrem.jameo.components.Camera;
 import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.FieldOfView;
 import net.wytrem.jameo.components.InputControlled;
 import net.wytrem.jameo.components.Motion;
 import net.wytrem.jameo.components.Position;
 import net.wytrem.jameo.components.Size;
 import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.systems.ActivitySystem;
+import net.wytrem.jameo.systems.AssetSystem;
 import net.wytrem.jameo.systems.Box2dSystem;
 import net.wytrem.jameo.systems.CameraFollowEntitySystem;
 import net.wytrem.jameo.systems.CameraSystem;
+import net.wytrem.jameo.systems.ChunkStreamingSystem;
 import net.wytrem.jameo.systems.ClearScreenSystem;
+import net.wytrem.jameo.systems.FieldOfViewSystem;
+import net.wytrem.jameo.systems.FlowFieldSystem;
+import net.wytrem.jameo.systems.FlowFollowSystem;
+import net.wytrem.jameo.systems.FogRenderSystem;
 import net.wytrem.jameo.systems.HudSystem;
 import net.wytrem.jameo.systems.InputSystem;
 import net.wytrem.jameo.systems.MapRenderSystem;
+import net.wytrem.jameo.systems.PathfindingSystem;
 import net.wytrem.jameo.systems.PosSyncSystem;
+import net.wytrem.jameo.systems.SnapshotSystem;
 import net.wytrem.jameo.systems.SpriteOrientationSystem;
 import net.wytrem.jameo.systems.SpriteRenderSystem;
 import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.utils.BakedMap;
+import net.wytrem.jameo.utils.InputRecorder;
+import net.wytrem.jameo.utils.ProfilingInvocationStrategy;
+import net.wytrem.jameo.utils.WorldSnapshot;
 
 public class Dungeons extends ApplicationAdapter {
 
     World world;
-
+    ProfilingInvocationStrategy profiler;
 
     @Override
     public void create() {
@@ -42,8 +57,34 @@ public class Dungeons extends ApplicationAdapter {
 
         WorldConfiguration configuration = configurationBuilder.build();
 
+        // Before the simulation systems, which take their sprites from it.
+        configuration.setSystem(AssetSystem.class);
+        setSimulationSystems(configuration);
+
+        configuration.setSystem(ClearScreenSystem.class);
+        configuration.setSystem(MapRenderSystem.class);
+        configuration.setSystem(SpriteRenderSystem.class);
+        configuration.setSystem(FogRenderSystem.class);
+        configuration.setSystem(HudSystem.class);
+
+        profiler = new ProfilingInvocationStrategy();
+        configuration.setInvocationStrategy(profiler);
+        world = new World(configuration);
+        world.getSystem(HudSystem.class).setProfiler(profiler);
+
+        createPlayer(world);
+    }
+
+    /**
+     * Register the systems that make up the simulation, shared by the client and
+     * the headless server. Rendering systems are left to the caller, and so is
+     * the {@link AssetSystem}: without it, entities get no sprite.
+     */
+    public static void setSimulationSystems(WorldConfiguration configuration) {
         configuration.setSystem(FactorySystem.class);
         configuration.setSystem(TiledMapSystem.class);
+        configuration.setSystem(ChunkStreamingSystem.class);
+        configuration.setSystem(PathfindingSystem.class);
 
         configuration.setSystem(InputSystem.class);
         configuration.setSystem(new CameraSystem(2f));
@@ -51,28 +92,33 @@ public class Dungeons extends ApplicationAdapter {
 
         configuration.setSystem(Box2dSystem.class);
         configuration.setSystem(PosSyncSystem.class);
+        configuration.setSystem(ActivitySystem.class);
+        configuration.setSystem(FlowFieldSystem.class);
+        configuration.setSystem(FlowFollowSystem.class);
+        configuration.setSystem(FieldOfViewSystem.class);
 
-        configuration.setSystem(ClearScreenSystem.class);
-        configuration.setSystem(MapRenderSystem.class);
         configuration.setSystem(SpriteOrientationSystem.class);
-        configuration.setSystem(SpriteRenderSystem.class);
-        configuration.setSystem(HudSystem.class);
-        world = new World(configuration);
+        configuration.setSystem(SnapshotSystem.class);
+    }
 
+    public static Entity createPlayer(World world) {
         Archetype playerArchetype = new ArchetypeBuilder().add(SpriteComponent.class)
                 .add(Position.class).add(Size.class).add(Motion.class).add(Camera.class).add(InputControlled.class)
-                .add(Facing.class).add(Box2dEntity.class).build(world);
+                .add(Facing.class).add(Box2dEntity.class).add(FieldOfView.class).build(world);
 
         Entity player = world.createEntity(playerArchetype);
 
-        Texture texture = new Texture(Gdx.files.internal("dungeon_tileset.png"));
-        SpriteComponent spriteComponent = player.getComponent(SpriteComponent.class);
-        spriteComponent.sprite = new TextureRegion(texture, 9 * 16, 14 * 16, 16, 16);
-        
+        AssetSystem assetSystem = world.getSystem(AssetSystem.class);
+        if (assetSystem != null) {
+            SpriteComponent spriteComponent = player.getComponent(SpriteComponent.class);
+            spriteComponent.variants = assetSystem.sprite("dungeon_tileset.png", 9 * 16, 14 * 16, 16, 16);
+            spriteComponent.sprite = spriteComponent.variants.right();
+        }
+
         player.getComponent(Size.class).set(16, 16);
+        return player;
     }
 
-
     @Override
     public void resize(int width, int height) {
         world.getSystem(CameraSystem.class).resized();
@@ -82,11 +128,39 @@ public class Dungeons extends ApplicationAdapter {
 
     @Override
     public void render() {
+        // F3 toggles the profiler overlay, F4 dumps the current profile.
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            profiler.setProfiling(!profiler.isProfiling());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4) && profiler.isProfiling()) {
+            FileHandle file = Gdx.files.local("profile-" + TimeUtils.millis() + ".csv");
+            profiler.dumpCsv(file);
+            Gdx.app.log("Dungeons", "Profile written to " + file.path());
+        }
+        // F5 quick saves the world, F9 loads it back.
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5)) {
+            world.getSystem(SnapshotSystem.class).save(Gdx.files.local("quicksave" + WorldSnapshot.EXTENSION));
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F9) && loaded) {
+            FileHandle file = Gdx.files.local("quicksave" + WorldSnapshot.EXTENSION);
+            if (file.exists()) {
+                world.getSystem(SnapshotSystem.class).load(file);
+            }
+        }
+
         world.delta = Gdx.graphics.getDeltaTime();
         world.process();
         if (!loaded) {
             loaded = true;
-            world.getSystem(TiledMapSystem.class).load("base.tmx");
+            // The baked map, when built by the server's bakeMaps task, loads much faster.
+            String level = BakedMap.resolve("base.tmx");
+            world.getSystem(TiledMapSystem.class).load(level);
+
+            // Record the session, to be played back by the server's replay mode.
+            String recording = System.getProperty("dungeons.record");
+            if (recording != null) {
+                world.getSystem(InputSystem.class).record(new InputRecorder(Gdx.files.absolute(recording).write(false), level));
+            }
         }
     }
 
@@ -1,12 +1,61 @@
 package net.wytrem.jameo.tests;
 
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
 import com.artemis.Entity;
+import com.artemis.annotations.Wire;
 import com.badlogic.gdx.maps.MapProperties;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.FlowFollower;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.components.SpriteComponent;
 import net.wytrem.jameo.systems.AbstractEntityFactorySystem;
+import net.wytrem.jameo.systems.AssetSystem;
+import net.wytrem.jameo.utils.SpriteVariants;
 
 public class FactorySystem extends AbstractEntityFactorySystem {
+
+    @Wire(failOnNull = false)
+    AssetSystem assetSystem;
+
+    @Wire
+    ComponentMapper<Position> positionComponentMapper;
+
+    @Wire
+    ComponentMapper<SpriteComponent> spriteComponentComponentMapper;
+
+    private SpriteVariants monsterSprite;
+
+    @Override
+    protected void initialize() {
+        register("monster", new ArchetypeBuilder().add(Position.class).add(Size.class).add(Facing.class)
+                .add(Box2dEntity.class).add(FlowFollower.class).add(SpriteComponent.class), this::setupMonster);
+    }
+
+    private void setupMonster(int entityId, int cx, int cy, MapProperties properties) {
+        Position position = positionComponentMapper.get(entityId);
+        position.x = cx;
+        position.y = cy;
+
+        if (assetSystem != null) {
+            if (monsterSprite == null || assetSystem.get(monsterSprite.name) != monsterSprite) {
+                monsterSprite = assetSystem.sprite("dungeon_tileset.png", 2 * 16, 10 * 16, 16, 16);
+            }
+            else {
+                assetSystem.acquire(monsterSprite);
+            }
+            SpriteComponent spriteComponent = spriteComponentComponentMapper.get(entityId);
+            spriteComponent.variants = monsterSprite;
+            spriteComponent.sprite = monsterSprite.right();
+        }
+    }
+
     @Override
     public Entity createEntity(String entity, int cx, int cy, MapProperties properties) {
-        return world.createEntity();
+        Entity instance = super.createEntity(entity, cx, cy, properties);
+        return instance != null ? instance : world.createEntity();
     }
 }
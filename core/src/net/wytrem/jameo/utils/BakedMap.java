@@ -0,0 +1,430 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Binary form of a {@link SharedMap}, compiled offline from a TMX file so that
+ * loading parses no XML and derives nothing.
+ *
+ * The file holds the tiles used by the map, the tile layers as int arrays, the
+ * property masks as their words, the merged walls and the spawn list. Entity
+ * tiles are only kept as spawns, not in the layers. Tile animations and object
+ * layers are not kept.
+ * <p>
+ * Files are read through a memory-mapped {@link FileChannel}: several worlds or
+ * processes loading the same map share its pages in the OS cache, and arrays
+ * are copied out of it in bulk.
+ */
+public final class BakedMap {
+    public static final String EXTENSION = ".jmap";
+
+    private static final int MAGIC = 0x4A4D4150;
+    private static final int VERSION = 1;
+
+    // Cells are stored as a tile index (0 for none) and these flags.
+    private static final int FLIP_HORIZONTALLY = 1 << 31;
+    private static final int FLIP_VERTICALLY = 1 << 30;
+    private static final int ROTATION_SHIFT = 28;
+    private static final int TILE_MASK = (1 << ROTATION_SHIFT) - 1;
+
+    private static final byte STRING = 0, BOOLEAN = 1, INTEGER = 2, FLOAT = 3;
+
+    private BakedMap() {
+    }
+
+    /**
+     * @return the baked file next to a TMX file if there is one at least as
+     * recent, else the TMX file.
+     */
+    public static String resolve(String tmxFile) {
+        final String baked = tmxFile.substring(0, tmxFile.lastIndexOf('.')) + EXTENSION;
+        final FileHandle bakedHandle = Gdx.files.internal(baked);
+        if (!bakedHandle.exists()) {
+            return tmxFile;
+        }
+        // Packaged files have no dates, both are 0: the baked one is used.
+        final FileHandle tmxHandle = Gdx.files.internal(tmxFile);
+        if (tmxHandle.exists() && bakedHandle.lastModified() < tmxHandle.lastModified()) {
+            Gdx.app.log("BakedMap", baked + " is older than " + tmxFile + ", loading the TMX file");
+            return tmxFile;
+        }
+        return baked;
+    }
+
+    public static void write(SharedMap map, FileHandle out) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(map, bytes);
+        }
+        catch (IOException e) {
+            throw new GdxRuntimeException("Could not bake " + map.getFile(), e);
+        }
+        out.writeBytes(bytes.toByteArray(), false);
+    }
+
+    public static void write(SharedMap map, OutputStream stream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(stream);
+        final Array<TiledMapTileLayer> layers = map.getMap().getLayers().getByType(TiledMapTileLayer.class);
+        final int width = map.getWidth();
+        final int height = map.getHeight();
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(map.getTileWidth());
+        out.writeInt(map.getTileHeight());
+
+        // Number the tiles in use from 1, and the images they are cut from.
+        final IdentityMap<TiledMapTile, Integer> tileIndices = new IdentityMap<>();
+        final Array<TiledMapTile> tiles = new Array<>();
+        final ObjectIntMap<String> imageIndices = new ObjectIntMap<>();
+        final Array<String> images = new Array<>();
+        final String directory = Gdx.files.internal(map.getFile()).parent().path().replace('\\', '/');
+        for (TiledMapTileLayer layer : layers) {
+            for (int ty = 0; ty < height; ty++) {
+                for (int tx = 0; tx < width; tx++) {
+                    final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell == null || cell.getTile() == null || tileIndices.containsKey(cell.getTile())) {
+                        continue;
+                    }
+                    tiles.add(cell.getTile());
+                    tileIndices.put(cell.getTile(), tiles.size);
+
+                    final String image = imageOf(cell.getTile().getTextureRegion(), directory);
+                    if (image != null && !imageIndices.containsKey(image)) {
+                        imageIndices.put(image, images.size);
+                        images.add(image);
+                    }
+                }
+            }
+        }
+
+        out.writeInt(images.size);
+        for (String image : images) {
+            writeString(out, image);
+        }
+
+        out.writeInt(tiles.size);
+        for (TiledMapTile tile : tiles) {
+            final TextureRegion region = tile.getTextureRegion();
+            final String image = imageOf(region, directory);
+            out.writeInt(tile.getId());
+            out.writeInt(image == null ? -1 : imageIndices.get(image, -1));
+            out.writeInt(region == null ? 0 : region.getRegionX());
+            out.writeInt(region == null ? 0 : region.getRegionY());
+            out.writeInt(region == null ? 0 : region.getRegionWidth());
+            out.writeInt(region == null ? 0 : region.getRegionHeight());
+            writeProperties(out, tile.getProperties());
+        }
+
+        out.writeInt(layers.size);
+        for (TiledMapTileLayer layer : layers) {
+            writeString(out, layer.getName() == null ? "" : layer.getName());
+            out.writeBoolean(layer.isVisible());
+            out.writeFloat(layer.getOpacity());
+            pad(out, 4);
+            for (int ty = 0; ty < height; ty++) {
+                for (int tx = 0; tx < width; tx++) {
+                    final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell == null || cell.getTile() == null || cell.getTile().getProperties().containsKey("entity")) {
+                        out.writeInt(0);
+                        continue;
+                    }
+                    int value = tileIndices.get(cell.getTile());
+                    value |= cell.getRotation() << ROTATION_SHIFT;
+                    if (cell.getFlipHorizontally()) {
+                        value |= FLIP_HORIZONTALLY;
+                    }
+                    if (cell.getFlipVertically()) {
+                        value |= FLIP_VERTICALLY;
+                    }
+                    out.writeInt(value);
+                }
+            }
+        }
+
+        out.writeInt(map.getMasks().size);
+        for (ObjectMap.Entry<String, MapMask> entry : map.getMasks()) {
+            writeString(out, entry.key);
+            out.writeInt(entry.value.getWordCount());
+            pad(out, 8);
+            final ByteBuffer words = ByteBuffer.allocate(entry.value.getWordCount() * 8);
+            entry.value.getWords(words.asLongBuffer());
+            out.write(words.array());
+        }
+
+        out.writeInt(map.getSolidTiles());
+        final IntArray walls = map.getWalls();
+        out.writeInt(walls.size);
+        for (int i = 0; i < walls.size; i++) {
+            out.writeInt(walls.get(i));
+        }
+
+        out.writeInt(map.getSpawnCount());
+        for (int i = 0; i < map.getSpawnCount(); i++) {
+            out.writeInt(map.getSpawnX(i));
+            out.writeInt(map.getSpawnY(i));
+            out.writeInt(spawnTile(map, layers, i, tileIndices));
+        }
+        out.flush();
+    }
+
+    private static int spawnTile(SharedMap map, Array<TiledMapTileLayer> layers, int spawn, IdentityMap<TiledMapTile, Integer> tileIndices) {
+        final MapProperties properties = map.getSpawnProperties(spawn);
+        for (TiledMapTileLayer layer : layers) {
+            final TiledMapTileLayer.Cell cell = layer.getCell(map.getSpawnX(spawn), map.getSpawnY(spawn));
+            if (cell != null && cell.getTile() != null && cell.getTile().getProperties() == properties) {
+                return tileIndices.get(cell.getTile());
+            }
+        }
+        throw new GdxRuntimeException("Spawn " + spawn + " of " + map.getFile() + " has no tile");
+    }
+
+    /**
+     * @return the image of a region relative to the map directory, null if it has none.
+     */
+    private static String imageOf(TextureRegion region, String directory) {
+        if (region == null || region.getTexture() == null) {
+            return null;
+        }
+        final TextureData data = region.getTexture().getTextureData();
+        if (!(data instanceof FileTextureData)) {
+            return null;
+        }
+        final String path = ((FileTextureData) data).getFileHandle().path().replace('\\', '/');
+        return !directory.isEmpty() && path.startsWith(directory + "/") ? path.substring(directory.length() + 1) : path;
+    }
+
+    /**
+     * Read a baked map from a file, with its images next to it.
+     *
+     * @param name what {@link SharedMap#getFile()} returns.
+     */
+    public static SharedMap read(String name, FileHandle file) {
+        final ByteBuffer buffer;
+        if (file.file().exists()) {
+            try (FileChannel channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            catch (IOException e) {
+                throw new GdxRuntimeException("Could not map " + file, e);
+            }
+        }
+        else {
+            // Packaged in a jar: not mappable.
+            buffer = ByteBuffer.wrap(file.readBytes());
+        }
+        return read(name, file.parent(), buffer);
+    }
+
+    public static SharedMap read(String name, FileHandle directory, ByteBuffer in) {
+        if (in.getInt() != MAGIC) {
+            throw new GdxRuntimeException(name + " is not a baked map");
+        }
+        final int version = in.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported baked map version " + version + " in " + name);
+        }
+
+        final int width = in.getInt();
+        final int height = in.getInt();
+        final int tileWidth = in.getInt();
+        final int tileHeight = in.getInt();
+
+        final TiledMap map = new TiledMap();
+        final MapProperties properties = map.getProperties();
+        properties.put("width", width);
+        properties.put("height", height);
+        properties.put("tilewidth", tileWidth);
+        properties.put("tileheight", tileHeight);
+
+        final Texture[] textures = new Texture[in.getInt()];
+        for (int i = 0; i < textures.length; i++) {
+            textures[i] = new Texture(directory.child(readString(in)));
+        }
+        map.setOwnedResources(new Array<>(textures));
+
+        final TiledMapTileSet tileSet = new TiledMapTileSet();
+        tileSet.setName(name);
+        map.getTileSets().addTileSet(tileSet);
+        final TiledMapTile[] tiles = new TiledMapTile[in.getInt() + 1];
+        for (int i = 1; i < tiles.length; i++) {
+            final int id = in.getInt();
+            final int image = in.getInt();
+            final int x = in.getInt(), y = in.getInt(), w = in.getInt(), h = in.getInt();
+            final StaticTiledMapTile tile = new StaticTiledMapTile(image < 0 ? new TextureRegion() : new TextureRegion(textures[image], x, y, w, h));
+            tile.setId(id);
+            readProperties(in, tile.getProperties());
+            tileSet.putTile(id, tile);
+            tiles[i] = tile;
+        }
+
+        // Identical cells are shared: replace cells rather than modifying them.
+        final IntMap<TiledMapTileLayer.Cell> cells = new IntMap<>();
+        final int[] values = new int[width * height];
+        final int layerCount = in.getInt();
+        for (int l = 0; l < layerCount; l++) {
+            final TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+            layer.setName(readString(in));
+            layer.setVisible(in.get() != 0);
+            layer.setOpacity(in.getFloat());
+            align(in, 4);
+            in.asIntBuffer().get(values);
+            in.position(in.position() + values.length * 4);
+
+            for (int i = 0; i < values.length; i++) {
+                final int value = values[i];
+                if (value == 0) {
+                    continue;
+                }
+                TiledMapTileLayer.Cell cell = cells.get(value);
+                if (cell == null) {
+                    cell = new TiledMapTileLayer.Cell();
+                    cell.setTile(tiles[value & TILE_MASK]);
+                    cell.setRotation((value >>> ROTATION_SHIFT) & 3);
+                    cell.setFlipHorizontally((value & FLIP_HORIZONTALLY) != 0);
+                    cell.setFlipVertically((value & FLIP_VERTICALLY) != 0);
+                    cells.put(value, cell);
+                }
+                layer.setCell(i % width, i / width, cell);
+            }
+            map.getLayers().add(layer);
+        }
+
+        final ObjectMap<String, MapMask> masks = new ObjectMap<>();
+        final int maskCount = in.getInt();
+        for (int m = 0; m < maskCount; m++) {
+            final String key = readString(in);
+            final int words = in.getInt();
+            align(in, 8);
+            final MapMask mask = new MapMask(height, width, tileWidth, tileHeight);
+            if (mask.getWordCount() != words) {
+                throw new GdxRuntimeException("Mask " + key + " of " + name + " does not match the map size");
+            }
+            mask.setWords(in.asLongBuffer());
+            in.position(in.position() + words * 8);
+            masks.put(key, mask);
+        }
+
+        final int solidTiles = in.getInt();
+        final IntArray walls = new IntArray(in.getInt());
+        walls.size = walls.items.length;
+        in.asIntBuffer().get(walls.items, 0, walls.size);
+        in.position(in.position() + walls.size * 4);
+
+        final int spawnCount = in.getInt();
+        final IntArray spawnTiles = new IntArray(spawnCount * 2);
+        final Array<MapProperties> spawnProperties = new Array<>(spawnCount);
+        for (int i = 0; i < spawnCount; i++) {
+            spawnTiles.add(in.getInt(), in.getInt());
+            spawnProperties.add(tiles[in.getInt()].getProperties());
+        }
+
+        return new SharedMap(name, map, masks, walls, solidTiles, spawnTiles, spawnProperties);
+    }
+
+    private static void pad(DataOutputStream out, int alignment) throws IOException {
+        while (out.size() % alignment != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    private static void align(ByteBuffer in, int alignment) {
+        while (in.position() % alignment != 0) {
+            in.get();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeProperties(DataOutputStream out, MapProperties properties) throws IOException {
+        int count = 0;
+        for (Iterator<String> keys = properties.getKeys(); keys.hasNext(); keys.next()) {
+            count++;
+        }
+        out.writeInt(count);
+
+        for (Iterator<String> keys = properties.getKeys(); keys.hasNext(); ) {
+            final String key = keys.next();
+            final Object value = properties.get(key);
+            writeString(out, key);
+            if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            }
+            else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) value);
+            }
+            else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            }
+            else {
+                out.writeByte(STRING);
+                writeString(out, String.valueOf(value));
+            }
+        }
+    }
+
+    private static void readProperties(ByteBuffer in, MapProperties properties) {
+        final int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            final String key = readString(in);
+            final byte type = in.get();
+            switch (type) {
+                case BOOLEAN:
+                    properties.put(key, in.get() != 0);
+                    break;
+                case INTEGER:
+                    properties.put(key, in.getInt());
+                    break;
+                case FLOAT:
+                    properties.put(key, in.getFloat());
+                    break;
+                default:
+                    properties.put(key, readString(in));
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package net.wytrem.jameo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays version of {@link FloatExtrapolator}, for many entities.
+ *
+ * The state of every entity lives in a few contiguous primitive arrays, indexed
+ * by a dense index; positions and velocities take {@code size} consecutive
+ * floats per entity. {@link #readPositions(double, float[])} then updates all
+ * entities in one pass over those arrays.
+ * <p>
+ * Entities are referred to by a stable handle returned by {@link #add()}.
+ * Removal moves the last entity into the freed slot, so dense indices change,
+ * handles do not.
+ * <p>
+ * The math is the one of {@link FloatExtrapolator}, operation for operation, so
+ * both give the same results.
+ */
+public class BatchExtrapolator {
+    private final int size;
+    private int count;
+
+    private float[] snapPos, snapVel, aimPos, lastPacketPos;
+    private double[] snapTime, aimTime, lastPacketTime, latency, updateTime;
+    private double[] readTime;
+
+    private int[] handleToIndex;
+    private int[] indexToHandle;
+    private int[] freeHandles;
+    private int freeCount;
+    private int nextHandle;
+
+    private final float[] tmpVel;
+    private final float[] tmpZero;
+
+    public BatchExtrapolator(int size) {
+        this(size, 64);
+    }
+
+    public BatchExtrapolator(int size, int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.size = size;
+        tmpVel = new float[size];
+        tmpZero = new float[size];
+        allocate(capacity);
+        handleToIndex = new int[capacity];
+        freeHandles = new int[capacity];
+    }
+
+    /**
+     * Add an entity, with all state at zero like a new {@link FloatExtrapolator}.
+     *
+     * @return the handle of the entity.
+     */
+    public int add() {
+        if (count == indexToHandle.length) {
+            allocate(count * 2);
+        }
+
+        final int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        }
+        else {
+            handle = nextHandle++;
+            if (handle == handleToIndex.length) {
+                handleToIndex = Arrays.copyOf(handleToIndex, handle * 2);
+                freeHandles = Arrays.copyOf(freeHandles, handle * 2);
+            }
+        }
+
+        final int index = count++;
+        handleToIndex[handle] = index;
+        indexToHandle[index] = handle;
+
+        Arrays.fill(snapPos, index * size, (index + 1) * size, 0f);
+        Arrays.fill(snapVel, index * size, (index + 1) * size, 0f);
+        Arrays.fill(aimPos, index * size, (index + 1) * size, 0f);
+        Arrays.fill(lastPacketPos, index * size, (index + 1) * size, 0f);
+        snapTime[index] = 0;
+        aimTime[index] = 0;
+        lastPacketTime[index] = 0;
+        latency[index] = 0;
+        updateTime[index] = 0;
+        return handle;
+    }
+
+    /**
+     * Remove an entity in O(1): the last entity takes its dense index.
+     */
+    public void remove(int handle) {
+        final int index = handleToIndex[handle];
+        final int last = --count;
+
+        if (index != last) {
+            System.arraycopy(snapPos, last * size, snapPos, index * size, size);
+            System.arraycopy(snapVel, last * size, snapVel, index * size, size);
+            System.arraycopy(aimPos, last * size, aimPos, index * size, size);
+            System.arraycopy(lastPacketPos, last * size, lastPacketPos, index * size, size);
+            snapTime[index] = snapTime[last];
+            aimTime[index] = aimTime[last];
+            lastPacketTime[index] = lastPacketTime[last];
+            latency[index] = latency[last];
+            updateTime[index] = updateTime[last];
+
+            final int moved = indexToHandle[last];
+            indexToHandle[index] = moved;
+            handleToIndex[moved] = index;
+        }
+
+        handleToIndex[handle] = -1;
+        freeHandles[freeCount++] = handle;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int indexOf(int handle) {
+        return handleToIndex[handle];
+    }
+
+    public int handleAt(int index) {
+        return indexToHandle[index];
+    }
+
+    /**
+     * @see FloatExtrapolator#addSample(double, double, float[])
+     */
+    public boolean addSample(int handle, double packetTime, double curTime, float[] pos) {
+        final int index = handleToIndex[handle];
+        final int base = index * size;
+        final float[] vel = tmpVel;
+        if (Math.abs(packetTime - lastPacketTime[index]) > 1e-4) {
+            double dt = 1.0 / (packetTime - lastPacketTime[index]);
+            for (int i = 0; i < size; ++i) {
+                vel[i] = (float) ((pos[i] - lastPacketPos[base + i]) * dt);
+            }
+        } else {
+            Arrays.fill(vel, 0f);
+        }
+
+        return addSample(handle, packetTime, curTime, pos, vel);
+    }
+
+    /**
+     * @see FloatExtrapolator#addSample(double, double, float[], float[])
+     */
+    public boolean addSample(int handle, double packetTime, double curTime, float[] pos, float[] vel) {
+        final int index = handleToIndex[handle];
+        final int base = index * size;
+        if (!estimates(index, packetTime, curTime)) {
+            return false;
+        }
+
+        System.arraycopy(pos, 0, lastPacketPos, base, size);
+        lastPacketTime[index] = packetTime;
+        readPosition(index, curTime, snapPos, base, null);
+        aimTime[index] = curTime + updateTime[index];
+        double dt = aimTime[index] - packetTime;
+        snapTime[index] = curTime;
+        for (int i = 0; i < size; ++i) {
+            aimPos[base + i] = (float) (pos[i] + vel[i] * dt);
+        }
+
+        if (Math.abs(aimTime[index] - snapTime[index]) < 1e-4) {
+            System.arraycopy(vel, 0, snapVel, base, size);
+        } else {
+            dt = 1.0 / (aimTime[index] - snapTime[index]);
+            for (int i = 0; i < size; ++i) {
+                snapVel[base + i] = (float) ((aimPos[base + i] - snapPos[base + i]) * dt);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @see FloatExtrapolator#reset(double, double, float[])
+     */
+    public void reset(int handle, double packetTime, double curTime, float[] pos) {
+        reset(handle, packetTime, curTime, pos, tmpZero);
+    }
+
+    /**
+     * @see FloatExtrapolator#reset(double, double, float[], float[])
+     */
+    public void reset(int handle, double packetTime, double curTime, float[] pos, float[] vel) {
+        assert (packetTime <= curTime);
+
+        final int index = handleToIndex[handle];
+        final int base = index * size;
+        lastPacketTime[index] = packetTime;
+        System.arraycopy(pos, 0, lastPacketPos, base, size);
+        snapTime[index] = curTime;
+        System.arraycopy(pos, 0, snapPos, base, size);
+        updateTime[index] = curTime - packetTime;
+        latency[index] = updateTime[index];
+        aimTime[index] = curTime + updateTime[index];
+        System.arraycopy(vel, 0, snapVel, base, size);
+
+        for (int i = 0; i < size; ++i) {
+            aimPos[base + i] = (float) (snapPos[base + i] + snapVel[base + i] * updateTime[index]);
+        }
+    }
+
+    /**
+     * @see FloatExtrapolator#readPosition(double, float[], float[])
+     */
+    public boolean readPosition(int handle, double forTime, float[] outPos, float[] outVel) {
+        return readPosition(handleToIndex[handle], forTime, outPos, 0, outVel);
+    }
+
+    /**
+     * Extrapolate every entity at once.
+     *
+     * @param outPos receives the positions, {@code size} floats per entity, by dense
+     *               index. Must hold at least {@code count() * size} floats.
+     */
+    public void readPositions(double forTime, float[] outPos) {
+        final int n = count;
+        final double[] times = readTime;
+
+        // Clamp the time per entity, as readPosition does.
+        for (int e = 0; e < n; e++) {
+            double t = forTime;
+            if (t < snapTime[e]) {
+                t = snapTime[e];
+            }
+            final double maxRange = aimTime[e] + updateTime[e];
+            if (t > maxRange) {
+                t = maxRange;
+            }
+            times[e] = t - snapTime[e];
+        }
+
+        final float[] pos = snapPos;
+        final float[] vel = snapVel;
+        for (int e = 0, j = 0; e < n; e++) {
+            final double dt = times[e];
+            for (int i = 0; i < size; i++, j++) {
+                outPos[j] = (float) (pos[j] + vel[j] * dt);
+            }
+        }
+    }
+
+    public double estimateLatency(int handle) {
+        return latency[handleToIndex[handle]];
+    }
+
+    public double estimateUpdateTime(int handle) {
+        return updateTime[handleToIndex[handle]];
+    }
+
+    private boolean readPosition(int index, double forTime, float[] outPos, int outOffset, float[] outVel) {
+        boolean isOk = true;
+        final int base = index * size;
+
+        if (forTime < snapTime[index]) {
+            forTime = snapTime[index];
+            isOk = false;
+        }
+
+        double maxRange = aimTime[index] + updateTime[index];
+        if (forTime > maxRange) {
+            forTime = maxRange;
+            isOk = false;
+        }
+
+        for (int i = 0; i < size; ++i) {
+            if (outVel != null) {
+                outVel[i] = snapVel[base + i];
+            }
+
+            outPos[outOffset + i] = (float) (snapPos[base + i] + snapVel[base + i] * (forTime - snapTime[index]));
+        }
+
+        if (!isOk && outVel != null) {
+            Arrays.fill(outVel, 0f);
+        }
+
+        return isOk;
+    }
+
+    private boolean estimates(int index, double packet, double cur) {
+        if (packet <= lastPacketTime[index]) {
+            return false;
+        }
+
+        double lat = cur - packet;
+        if (lat < 0) {
+            lat = 0;
+        }
+        if (lat > latency[index]) {
+            latency[index] = (latency[index] + lat) * 0.5;
+        } else {
+            latency[index] = (latency[index] * 7 + lat) * 0.125;
+        }
+
+        double tick = packet - lastPacketTime[index];
+        if (tick > updateTime[index]) {
+            updateTime[index] = (updateTime[index] + tick) * 0.5;
+        } else {
+            updateTime[index] = (updateTime[index] * 7 + tick) * 0.125;
+        }
+
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        final int floats = capacity * size;
+        snapPos = snapPos == null ? new float[floats] : Arrays.copyOf(snapPos, floats);
+        snapVel = snapVel == null ? new float[floats] : Arrays.copyOf(snapVel, floats);
+        aimPos = aimPos == null ? new float[floats] : Arrays.copyOf(aimPos, floats);
+        lastPacketPos = lastPacketPos == null ? new float[floats] : Arrays.copyOf(lastPacketPos, floats);
+        snapTime = snapTime == null ? new double[capacity] : Arrays.copyOf(snapTime, capacity);
+        aimTime = aimTime == null ? new double[capacity] : Arrays.copyOf(aimTime, capacity);
+        lastPacketTime = lastPacketTime == null ? new double[capacity] : Arrays.copyOf(lastPacketTime, capacity);
+        latency = latency == null ? new double[capacity] : Arrays.copyOf(latency, capacity);
+        updateTime = updateTime == null ? new double[capacity] : Arrays.copyOf(updateTime, capacity);
+        readTime = new double[capacity];
+        indexToHandle = indexToHandle == null ? new int[capacity] : Arrays.copyOf(indexToHandle, capacity);
+    }
+}
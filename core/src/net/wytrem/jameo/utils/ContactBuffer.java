@@ -0,0 +1,75 @@
+package net.wytrem.jameo.utils;
+
+/**
+ * Preallocated buffer of contact events, stored as parallel primitive arrays.
+ *
+ * Each record is (entityA, entityB, type). Entities are artemis entity ids, or
+ * -1 for bodies that are not entities (map walls). Capacity only ever grows, so
+ * once warmed up, recording contacts does not allocate.
+ */
+public class ContactBuffer {
+    public static final byte BEGIN = 0;
+    public static final byte END = 1;
+
+    private int[] entityA;
+    private int[] entityB;
+    private byte[] type;
+    private int size;
+
+    public ContactBuffer() {
+        this(256);
+    }
+
+    public ContactBuffer(int capacity) {
+        entityA = new int[capacity];
+        entityB = new int[capacity];
+        type = new byte[capacity];
+    }
+
+    public void add(int a, int b, byte type) {
+        if (size == entityA.length) {
+            grow();
+        }
+        entityA[size] = a;
+        entityB[size] = b;
+        this.type[size] = type;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int entityA(int index) {
+        return entityA[index];
+    }
+
+    public int entityB(int index) {
+        return entityB[index];
+    }
+
+    public byte type(int index) {
+        return type[index];
+    }
+
+    public boolean isBegin(int index) {
+        return type[index] == BEGIN;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = entityA.length * 2;
+        int[] newA = new int[capacity];
+        int[] newB = new int[capacity];
+        byte[] newType = new byte[capacity];
+        System.arraycopy(entityA, 0, newA, 0, size);
+        System.arraycopy(entityB, 0, newB, 0, size);
+        System.arraycopy(type, 0, newType, 0, size);
+        entityA = newA;
+        entityB = newB;
+        type = newType;
+    }
+}
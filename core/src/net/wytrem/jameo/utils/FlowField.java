@@ -0,0 +1,219 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * Distances to a target tile over the clear tiles of a {@link MapMask}, within
+ * a square window around the target.
+ *
+ * Any number of agents can read their way to the target from it: the direction
+ * from a tile is a look at its eight neighbours. The field is double buffered:
+ * agents read the last complete field while the next one is built a bounded
+ * number of tiles at a time with {@link #step(int)}, so rebuilding after the
+ * target moves costs the same each tick no matter how far along it is.
+ */
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final float DIAGONAL = 0.70710677f;
+
+    public final int radius;
+    private final int size;
+
+    private MapMask blocked;
+    private int wantedX, wantedY;
+
+    // The complete field agents read.
+    private int[] distances;
+    private boolean ready;
+    private int originX, originY;
+    private int targetX, targetY;
+
+    // The field being built, breadth first.
+    private int[] building;
+    private boolean inProgress;
+    private int buildOriginX, buildOriginY;
+    private int buildTargetX, buildTargetY;
+    private final int[] queue;
+    private int head, tail;
+
+    /**
+     * @param radius half side of the window, in tiles.
+     */
+    public FlowField(int radius) {
+        this.radius = radius;
+        this.size = radius * 2 + 1;
+        distances = new int[size * size];
+        building = new int[size * size];
+        queue = new int[size * size];
+    }
+
+    /**
+     * Change the tiles that cannot be walked on. The field is unusable until
+     * built again.
+     */
+    public void setBlocked(MapMask blocked) {
+        this.blocked = blocked;
+        ready = false;
+        inProgress = false;
+    }
+
+    public MapMask getBlocked() {
+        return blocked;
+    }
+
+    /**
+     * Set the tile to build the next field toward. A build in progress is
+     * finished first, so a target that keeps moving does not starve it.
+     */
+    public void target(int x, int y) {
+        wantedX = x;
+        wantedY = y;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isBuilding() {
+        return inProgress;
+    }
+
+    public int getTargetX() {
+        return targetX;
+    }
+
+    public int getTargetY() {
+        return targetY;
+    }
+
+    /**
+     * Advance the build by at most {@code budget} tiles, starting a new one if
+     * the target moved since the current field.
+     *
+     * @return tiles visited.
+     */
+    public int step(int budget) {
+        if (blocked == null) {
+            return 0;
+        }
+        if (!inProgress) {
+            if (ready && wantedX == targetX && wantedY == targetY) {
+                return 0;
+            }
+            begin();
+        }
+
+        int visited = 0;
+        while (head < tail && visited < budget) {
+            final int index = queue[head++];
+            visited++;
+
+            final int x = index % size;
+            final int y = index / size;
+            final int next = building[index] + 1;
+            for (int d = 0; d < 4; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+                    continue;
+                }
+                final int neighbour = ny * size + nx;
+                if (building[neighbour] != UNREACHABLE) {
+                    continue;
+                }
+                if (blocked.atGrid(buildOriginX + nx, buildOriginY + ny, true)) {
+                    continue;
+                }
+                building[neighbour] = next;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        if (head == tail) {
+            final int[] swap = distances;
+            distances = building;
+            building = swap;
+            originX = buildOriginX;
+            originY = buildOriginY;
+            targetX = buildTargetX;
+            targetY = buildTargetY;
+            ready = true;
+            inProgress = false;
+        }
+        return visited;
+    }
+
+    private void begin() {
+        buildTargetX = wantedX;
+        buildTargetY = wantedY;
+        buildOriginX = wantedX - radius;
+        buildOriginY = wantedY - radius;
+        Arrays.fill(building, UNREACHABLE);
+        head = 0;
+        tail = 0;
+        if (!blocked.atGrid(wantedX, wantedY, true)) {
+            final int center = radius * size + radius;
+            building[center] = 0;
+            queue[tail++] = center;
+        }
+        inProgress = true;
+    }
+
+    /**
+     * @return steps from a tile to the target of the current field, or
+     * {@link #UNREACHABLE} when outside of it.
+     */
+    public int distance(int x, int y) {
+        if (!ready) {
+            return UNREACHABLE;
+        }
+        final int lx = x - originX;
+        final int ly = y - originY;
+        if (lx < 0 || ly < 0 || lx >= size || ly >= size) {
+            return UNREACHABLE;
+        }
+        return distances[ly * size + lx];
+    }
+
+    /**
+     * The way down the field from a tile, diagonals included when they do not
+     * cut a corner.
+     *
+     * @param out receives a unit vector.
+     * @return false on the target tile, or when it cannot be reached from there.
+     */
+    public boolean direction(int x, int y, Vector2 out) {
+        final int here = distance(x, y);
+        if (here == UNREACHABLE || here == 0) {
+            return false;
+        }
+
+        int best = -1;
+        int bestDistance = here;
+        for (int d = 0; d < 8; d++) {
+            final int dx = DX[d];
+            final int dy = DY[d];
+            final int there = distance(x + dx, y + dy);
+            if (there == UNREACHABLE || there >= bestDistance) {
+                continue;
+            }
+            if (d >= 4 && (distance(x + dx, y) == UNREACHABLE || distance(x, y + dy) == UNREACHABLE)) {
+                continue;
+            }
+            best = d;
+            bestDistance = there;
+        }
+
+        if (best < 0) {
+            return false;
+        }
+        final float scale = best >= 4 ? DIAGONAL : 1f;
+        out.set(DX[best] * scale, DY[best] * scale);
+        return true;
+    }
+}
@@ -0,0 +1,206 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * A* over the clear tiles of a {@link MapMask}, eight directions, without
+ * cutting corners.
+ *
+ * Search state lives in flat int arrays indexed by {@code y * width + x}; a
+ * search stamp marks which entries belong to the current search, so nothing is
+ * cleared or allocated between searches. An instance is not thread safe: use
+ * one per thread.
+ */
+public class GridPathfinder {
+    static final int STRAIGHT = 10;
+    static final int DIAGONAL = 14;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final MapMask blocked;
+    private final int width;
+
+    private final int[] cost;
+    private final int[] parent;
+    private final int[] opened;
+    private final int[] closed;
+    private int stamp;
+
+    private final NodeHeap open = new NodeHeap();
+    private int expanded;
+
+    /**
+     * Corridor restriction: a tile is allowed when its region is marked with the
+     * current stamp.
+     */
+    private RegionGraph graph;
+    private int[] regionMarks;
+
+    /**
+     * @param blocked tiles that cannot be walked on, typically the {@code solid} mask.
+     */
+    public GridPathfinder(MapMask blocked) {
+        this.blocked = blocked;
+        this.width = blocked.width;
+        cost = new int[width * blocked.height];
+        parent = new int[width * blocked.height];
+        opened = new int[width * blocked.height];
+        closed = new int[width * blocked.height];
+    }
+
+    public MapMask getBlocked() {
+        return blocked;
+    }
+
+    public boolean isWalkable(int x, int y) {
+        return !blocked.atGrid(x, y, true);
+    }
+
+    /**
+     * @return tiles expanded by the last search.
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Find a path over the whole map.
+     *
+     * @param out cleared, then receives the (x, y) tiles of the path, start and goal included.
+     * @return whether a path was found.
+     */
+    public boolean find(int startX, int startY, int goalX, int goalY, IntArray out) {
+        graph = null;
+        return search(startX, startY, goalX, goalY, out);
+    }
+
+    /**
+     * Find a path that stays within a corridor of regions, as given by
+     * {@link RegionGraph#corridor(int, int)}.
+     */
+    public boolean find(int startX, int startY, int goalX, int goalY, RegionGraph graph, int[] corridor, IntArray out) {
+        if (regionMarks == null || regionMarks.length < graph.getRegionCount()) {
+            regionMarks = new int[graph.getRegionCount()];
+        }
+        nextStamp();
+        for (int region : corridor) {
+            regionMarks[region] = stamp;
+        }
+        this.graph = graph;
+        final boolean found = search(startX, startY, goalX, goalY, out);
+        this.graph = null;
+        return found;
+    }
+
+    private boolean search(int startX, int startY, int goalX, int goalY, IntArray out) {
+        out.clear();
+        expanded = 0;
+        if (!allowed(startX, startY) || !allowed(goalX, goalY)) {
+            return false;
+        }
+
+        // Corridor searches already took a stamp to mark their regions.
+        if (graph == null) {
+            nextStamp();
+        }
+
+        final int start = startY * width + startX;
+        final int goal = goalY * width + goalX;
+        open.clear();
+        cost[start] = 0;
+        parent[start] = -1;
+        opened[start] = stamp;
+        open.push(start, heuristic(startX, startY, goalX, goalY));
+
+        while (!open.isEmpty()) {
+            final int node = open.pop();
+            if (closed[node] == stamp) {
+                continue;
+            }
+            closed[node] = stamp;
+            expanded++;
+
+            if (node == goal) {
+                rebuild(goal, out);
+                return true;
+            }
+
+            final int x = node % width;
+            final int y = node / width;
+            for (int d = 0; d < 8; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (!allowed(nx, ny)) {
+                    continue;
+                }
+                if (d >= 4 && (!allowed(nx, y) || !allowed(x, ny))) {
+                    // No corner cutting: both orthogonal tiles must be free.
+                    continue;
+                }
+
+                final int next = ny * width + nx;
+                if (closed[next] == stamp) {
+                    continue;
+                }
+
+                final int nextCost = cost[node] + (d >= 4 ? DIAGONAL : STRAIGHT);
+                if (opened[next] != stamp || nextCost < cost[next]) {
+                    opened[next] = stamp;
+                    cost[next] = nextCost;
+                    parent[next] = node;
+                    open.push(next, nextCost + heuristic(nx, ny, goalX, goalY));
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean allowed(int x, int y) {
+        if (blocked.atGrid(x, y, true)) {
+            return false;
+        }
+        return graph == null || regionMarks[graph.regionAt(x, y)] == stamp;
+    }
+
+    private void rebuild(int goal, IntArray out) {
+        for (int node = goal; node != -1; node = parent[node]) {
+            out.add(node % width, node / width);
+        }
+
+        // Reverse the (x, y) pairs to go from start to goal.
+        final int[] items = out.items;
+        for (int i = 0, j = out.size - 2; i < j; i += 2, j -= 2) {
+            int t = items[i];
+            items[i] = items[j];
+            items[j] = t;
+            t = items[i + 1];
+            items[i + 1] = items[j + 1];
+            items[j + 1] = t;
+        }
+    }
+
+    private void nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(opened, 0);
+            Arrays.fill(closed, 0);
+            if (regionMarks != null) {
+                Arrays.fill(regionMarks, 0);
+            }
+            stamp = 0;
+        }
+        stamp++;
+    }
+
+    /**
+     * Octile distance, exact on an empty grid.
+     */
+    static int heuristic(int x, int y, int goalX, int goalY) {
+        final int dx = Math.abs(x - goalX);
+        final int dy = Math.abs(y - goalY);
+        return STRAIGHT * (dx + dy) + (DIAGONAL - 2 * STRAIGHT) * Math.min(dx, dy);
+    }
+}
@@ -0,0 +1,101 @@
+package net.wytrem.jameo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Ring of per tick input commands, preallocated.
+ *
+ * A command is the tick it applies to, the frame delta, a bitmask of held
+ * movement buttons and the resulting facing. Commands older than the capacity
+ * are overwritten.
+ */
+public class InputCommandBuffer {
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int RIGHT = 1 << 2;
+    public static final int LEFT = 1 << 3;
+
+    /**
+     * Facing of a command without any movement button: the entity keeps its own.
+     */
+    public static final int NO_FACING = -1;
+
+    private static final CardDir[] DIRECTIONS = CardDir.values();
+
+    private final int mask;
+    private final int[] ticks;
+    private final float[] deltas;
+    private final byte[] buttons;
+    private final byte[] facings;
+
+    public InputCommandBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        ticks = new int[capacity];
+        deltas = new float[capacity];
+        buttons = new byte[capacity];
+        facings = new byte[capacity];
+        clear();
+    }
+
+    public void put(int tick, float delta, int buttons, int facing) {
+        final int slot = tick & mask;
+        ticks[slot] = tick;
+        deltas[slot] = delta;
+        this.buttons[slot] = (byte) buttons;
+        facings[slot] = (byte) facing;
+    }
+
+    /**
+     * @return whether the command of this tick is still in the ring.
+     */
+    public boolean has(int tick) {
+        return tick >= 0 && ticks[tick & mask] == tick;
+    }
+
+    public float delta(int tick) {
+        return deltas[tick & mask];
+    }
+
+    public int buttons(int tick) {
+        return buttons[tick & mask];
+    }
+
+    public int facing(int tick) {
+        return facings[tick & mask];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public void clear() {
+        Arrays.fill(ticks, -1);
+    }
+
+    /**
+     * Facing for a set of held buttons. Horizontal buttons win over vertical ones,
+     * like the order keys used to be checked in.
+     */
+    public static int facingOf(int buttons) {
+        if ((buttons & LEFT) != 0) {
+            return CardDir.WEST.ordinal();
+        }
+        if ((buttons & RIGHT) != 0) {
+            return CardDir.EAST.ordinal();
+        }
+        if ((buttons & DOWN) != 0) {
+            return CardDir.SOUTH.ordinal();
+        }
+        if ((buttons & UP) != 0) {
+            return CardDir.NORTH.ordinal();
+        }
+        return NO_FACING;
+    }
+
+    public static CardDir direction(int facing) {
+        return facing == NO_FACING ? null : DIRECTIONS[facing];
+    }
+}
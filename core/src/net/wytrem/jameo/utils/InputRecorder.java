@@ -0,0 +1,51 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes input commands to a stream, to be played back by {@link InputReplay}.
+ *
+ * The format is a header (magic, version, map file) followed by fixed size
+ * records: tick (int), delta (float), buttons (byte), facing (byte).
+ */
+public class InputRecorder {
+    static final int MAGIC = 0x4A494E50;
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+
+    public InputRecorder(OutputStream stream, String map) {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(map);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot write input recording header", e);
+        }
+    }
+
+    public void record(int tick, float delta, int buttons, int facing) {
+        try {
+            out.writeInt(tick);
+            out.writeFloat(delta);
+            out.writeByte(buttons);
+            out.writeByte(facing);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot write input recording", e);
+        }
+    }
+
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot close input recording", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads back the commands written by an {@link InputRecorder}, one record at a time.
+ *
+ * Whoever drives the world calls {@link #next()} before each tick and uses
+ * {@link #getDelta()} as the world delta; the input system then applies the
+ * current record instead of the keyboard.
+ */
+public class InputReplay {
+    private final DataInputStream in;
+    private final String map;
+
+    private int tick = -1;
+    private float delta;
+    private int buttons;
+    private int facing = InputCommandBuffer.NO_FACING;
+
+    public InputReplay(InputStream stream) {
+        in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new GdxRuntimeException("Not an input recording");
+            }
+            final int version = in.readShort();
+            if (version != InputRecorder.VERSION) {
+                throw new GdxRuntimeException("Unsupported input recording version " + version);
+            }
+            map = in.readUTF();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot read input recording header", e);
+        }
+    }
+
+    /**
+     * Move to the next record.
+     *
+     * @return false at the end of the recording.
+     */
+    public boolean next() {
+        try {
+            tick = in.readInt();
+            delta = in.readFloat();
+            buttons = in.readByte();
+            facing = in.readByte();
+            return true;
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot read input recording", e);
+        }
+    }
+
+    /**
+     * @return the map file the session was recorded on.
+     */
+    public String getMap() {
+        return map;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public float getDelta() {
+        return delta;
+    }
+
+    public int getButtons() {
+        return buttons;
+    }
+
+    public int getFacing() {
+        return facing;
+    }
+
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot close input recording", e);
+        }
+    }
+}
@@ -1,32 +1,97 @@
 package net.wytrem.jameo.utils;
 
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.nio.LongBuffer;
+import java.util.Iterator;
 
 /**
  * Creates a mask based on tiles with a certain propertyKey.
  *
  * Useful for creating a mask for collidable parts of the map.
  *
+ * Tiles are stored as bits, row by row, in {@code long} words. Bits past
+ * {@link #width} in the last word of a row are always zero, which lets the
+ * bulk operations work on whole words.
+ *
  * @author Daan van Yperen
  */
 public class MapMask {
 
-    public final boolean[][] v;
     public final int height;
     public final int width;
     private final int tileWidth;
     private final int tileHeight;
+    private final int rowWords;
+    private final long[] words;
 
-    public MapMask(int height, int width, int tileWidth, int tileHeight, Array<TiledMapTileLayer> layers, String propertyKey) {
+    public MapMask(int height, int width, int tileWidth, int tileHeight) {
         this.height = height;
         this.width = width;
         this.tileWidth = tileWidth;
         this.tileHeight = tileHeight;
-        v = new boolean[height][width];
+        this.rowWords = (width + 63) >>> 6;
+        this.words = new long[rowWords * height];
+    }
+
+    public MapMask(int height, int width, int tileWidth, int tileHeight, Array<TiledMapTileLayer> layers, String propertyKey) {
+        this(height, width, tileWidth, tileHeight);
         generate(layers, propertyKey);
     }
 
+    /**
+     * Build the masks of every property key found on the tiles of the layers,
+     * in a single pass over the cells.
+     *
+     * @return masks by property key.
+     */
+    public static ObjectMap<String, MapMask> generateAll(int height, int width, int tileWidth, int tileHeight, Array<TiledMapTileLayer> layers) {
+        final ObjectMap<String, MapMask> masks = new ObjectMap<>();
+        final ObjectMap<TiledMapTile, MapMask[]> byTile = new ObjectMap<>();
+
+        for (TiledMapTileLayer layer : layers) {
+            for (int ty = 0; ty < height; ty++) {
+                for (int tx = 0; tx < width; tx++) {
+                    final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell == null || cell.getTile() == null) {
+                        continue;
+                    }
+
+                    MapMask[] tileMasks = byTile.get(cell.getTile());
+                    if (tileMasks == null) {
+                        tileMasks = masksOf(cell.getTile(), masks, height, width, tileWidth, tileHeight);
+                        byTile.put(cell.getTile(), tileMasks);
+                    }
+
+                    for (MapMask mask : tileMasks) {
+                        mask.set(tx, ty);
+                    }
+                }
+            }
+        }
+
+        return masks;
+    }
+
+    private static MapMask[] masksOf(TiledMapTile tile, ObjectMap<String, MapMask> masks, int height, int width, int tileWidth, int tileHeight) {
+        final Array<MapMask> result = new Array<>(MapMask.class);
+        final Iterator<String> keys = tile.getProperties().getKeys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            MapMask mask = masks.get(key);
+            if (mask == null) {
+                mask = new MapMask(height, width, tileWidth, tileHeight);
+                masks.put(key, mask);
+            }
+            result.add(mask);
+        }
+        return result.toArray();
+    }
+
     /**
      * @param x grid coordinates
      * @param y grid coordinates.
@@ -35,7 +100,7 @@ public class MapMask {
     public boolean atGrid( final int x, final int y, boolean outOfBoundsResult )
     {
         if ( x >= width || x < 0 || y < 0 || y >= height  ) return outOfBoundsResult;
-        return v[y][x];
+        return (words[y * rowWords + (x >>> 6)] & (1L << x)) != 0;
     }
 
     /**
@@ -54,13 +119,330 @@ public class MapMask {
         return atGrid((int)x / tileWidth, (int)y / tileHeight, outOfBoundsResult);
     }
 
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    public void set(int x, int y) {
+        words[y * rowWords + (x >>> 6)] |= 1L << x;
+    }
+
+    public void clear(int x, int y) {
+        words[y * rowWords + (x >>> 6)] &= ~(1L << x);
+    }
+
+    public void set(int x, int y, boolean value) {
+        if (value) {
+            set(x, y);
+        }
+        else {
+            clear(x, y);
+        }
+    }
+
+    /**
+     * Set or clear every tile of a rectangle, clipped to the mask.
+     */
+    public void fill(int x, int y, int w, int h, boolean value) {
+        final int x0 = Math.max(x, 0), x1 = Math.min(x + w, width);
+        final int y0 = Math.max(y, 0), y1 = Math.min(y + h, height);
+        if (x0 >= x1) {
+            return;
+        }
+
+        final int w0 = x0 >>> 6, w1 = (x1 - 1) >>> 6;
+        for (int ty = y0; ty < y1; ty++) {
+            final int base = ty * rowWords;
+            for (int wi = w0; wi <= w1; wi++) {
+                final long m = rangeMask(wi, x0, x1);
+                if (value) {
+                    words[base + wi] |= m;
+                }
+                else {
+                    words[base + wi] &= ~m;
+                }
+            }
+        }
+    }
+
+    /**
+     * Set every tile set in either mask. Masks must have the same dimensions.
+     */
+    public MapMask or(MapMask other) {
+        checkSameSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Keep only the tiles set in both masks. Masks must have the same dimensions.
+     */
+    public MapMask and(MapMask other) {
+        checkSameSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Clear every tile set in the other mask. Masks must have the same dimensions.
+     */
+    public MapMask andNot(MapMask other) {
+        checkSameSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+        return this;
+    }
+
+    public MapMask copy() {
+        final MapMask copy = new MapMask(height, width, tileWidth, tileHeight);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        return copy;
+    }
+
+    /**
+     * @return size of the bits in longs, for {@link #getWords} and {@link #setWords}.
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    /**
+     * Bulk copy of the bits, as laid out in memory, to a buffer.
+     */
+    public void getWords(LongBuffer out) {
+        out.put(words);
+    }
+
+    /**
+     * Replace the bits with {@link #getWordCount()} longs read from a buffer, as
+     * written by {@link #getWords}.
+     */
+    public void setWords(LongBuffer in) {
+        in.get(words);
+    }
+
+    /**
+     * @return a new mask of the given rectangle, clipped to this mask. Its tile
+     * (0, 0) is this mask's tile (x, y).
+     */
+    public MapMask crop(int x, int y, int w, int h) {
+        final int x0 = Math.max(x, 0), x1 = Math.min(x + w, width);
+        final int y0 = Math.max(y, 0), y1 = Math.min(y + h, height);
+        final MapMask crop = new MapMask(Math.max(y1 - y0, 0), Math.max(x1 - x0, 0), tileWidth, tileHeight);
+
+        for (int ty = 0; ty < crop.height; ty++) {
+            final int src = (y0 + ty) * rowWords;
+            final int dst = ty * crop.rowWords;
+            for (int wi = 0; wi < crop.rowWords; wi++) {
+                crop.words[dst + wi] = bits64(src, x0 + (wi << 6)) & rangeMask(wi, 0, crop.width);
+            }
+        }
+
+        return crop;
+    }
+
+    /**
+     * @return number of set tiles.
+     */
+    public int count() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of set tiles in the given rectangle, clipped to the mask.
+     */
+    public int count(int x, int y, int w, int h) {
+        final int x0 = Math.max(x, 0), x1 = Math.min(x + w, width);
+        final int y0 = Math.max(y, 0), y1 = Math.min(y + h, height);
+        if (x0 >= x1) {
+            return 0;
+        }
+
+        final int w0 = x0 >>> 6, w1 = (x1 - 1) >>> 6;
+        int count = 0;
+        for (int ty = y0; ty < y1; ty++) {
+            final int base = ty * rowWords;
+            for (int wi = w0; wi <= w1; wi++) {
+                count += Long.bitCount(words[base + wi] & rangeMask(wi, x0, x1));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return x of the first set tile of row y in [fromX, toX), or -1.
+     */
+    public int firstSetInRow(int y, int fromX, int toX) {
+        return scanRow(y, fromX, toX, 0L);
+    }
+
+    /**
+     * @return x of the first clear tile of row y in [fromX, toX), or -1.
+     */
+    public int firstClearInRow(int y, int fromX, int toX) {
+        return scanRow(y, fromX, toX, -1L);
+    }
+
+    /**
+     * @return y of the first set tile of column x in [fromY, toY), or -1.
+     * Scans upwards when fromY &gt; toY, in which case the range is (toY, fromY].
+     */
+    public int firstSetInColumn(int x, int fromY, int toY) {
+        if (x < 0 || x >= width) {
+            return -1;
+        }
+
+        final int wi = x >>> 6;
+        final long bit = 1L << x;
+        final int step = fromY <= toY ? 1 : -1;
+        for (int ty = fromY; ty != toY; ty += step) {
+            if (ty < 0 || ty >= height) {
+                return -1;
+            }
+            if ((words[ty * rowWords + wi] & bit) != 0) {
+                return ty;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Label the 4-connected regions of set tiles.
+     *
+     * @param labels receives, for every tile {@code y * width + x}, 0 when the
+     *               tile is clear, else its region number starting at 1. Must hold
+     *               at least {@code width * height} entries.
+     * @return number of regions.
+     */
+    public int label(int[] labels) {
+        final int size = width * height;
+        for (int i = 0; i < size; i++) {
+            labels[i] = 0;
+        }
+
+        final IntArray stack = new IntArray();
+        int regions = 0;
+
+        for (int ty = 0; ty < height; ty++) {
+            final int base = ty * rowWords;
+            for (int wi = 0; wi < rowWords; wi++) {
+                long word = words[base + wi];
+                while (word != 0) {
+                    final int tx = (wi << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    final int start = ty * width + tx;
+                    if (labels[start] != 0) {
+                        continue;
+                    }
+
+                    regions++;
+                    labels[start] = regions;
+                    stack.add(start);
+                    while (stack.size > 0) {
+                        final int index = stack.pop();
+                        final int cx = index % width;
+                        final int cy = index / width;
+                        flood(cx - 1, cy, regions, labels, stack);
+                        flood(cx + 1, cy, regions, labels, stack);
+                        flood(cx, cy - 1, regions, labels, stack);
+                        flood(cx, cy + 1, regions, labels, stack);
+                    }
+                }
+            }
+        }
+
+        return regions;
+    }
+
+    private void flood(int x, int y, int region, int[] labels, IntArray stack) {
+        if (atGrid(x, y, false)) {
+            final int index = y * width + x;
+            if (labels[index] == 0) {
+                labels[index] = region;
+                stack.add(index);
+            }
+        }
+    }
+
+    private int scanRow(int y, int fromX, int toX, long invert) {
+        fromX = Math.max(fromX, 0);
+        toX = Math.min(toX, width);
+        if (y < 0 || y >= height || fromX >= toX) {
+            return -1;
+        }
+
+        final int base = y * rowWords;
+        int wi = fromX >>> 6;
+        long word = (words[base + wi] ^ invert) & (-1L << fromX);
+        final int last = (toX - 1) >>> 6;
+        while (true) {
+            if (word != 0) {
+                final int x = (wi << 6) + Long.numberOfTrailingZeros(word);
+                return x < toX ? x : -1;
+            }
+            if (++wi > last) {
+                return -1;
+            }
+            word = words[base + wi] ^ invert;
+        }
+    }
+
+    /**
+     * @return the 64 bits of the row starting at bit {@code from}, zero padded.
+     */
+    private long bits64(int rowBase, int from) {
+        final int wi = from >>> 6;
+        final int off = from & 63;
+        if (wi >= rowWords) {
+            return 0L;
+        }
+        long bits = words[rowBase + wi] >>> off;
+        if (off != 0 && wi + 1 < rowWords) {
+            bits |= words[rowBase + wi + 1] << (64 - off);
+        }
+        return bits;
+    }
+
+    /**
+     * @return the bits of word {@code wi} that fall within [x0, x1).
+     */
+    private static long rangeMask(int wi, int x0, int x1) {
+        final int lo = Math.max(x0 - (wi << 6), 0);
+        final int hi = Math.min(x1 - (wi << 6), 64);
+        if (lo >= hi) {
+            return 0L;
+        }
+        final long upper = hi == 64 ? -1L : (1L << hi) - 1;
+        return upper & (-1L << lo);
+    }
+
+    private void checkSameSize(MapMask other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Mask size mismatch: " + width + "x" + height + " vs " + other.width + "x" + other.height);
+        }
+    }
+
     private void generate(Array<TiledMapTileLayer> layers, String propertyKey) {
         for (TiledMapTileLayer layer : layers) {
             for (int ty = 0; ty < height; ty++) {
                 for (int tx = 0; tx < width; tx++) {
                     final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
                     if ( cell != null && cell.getTile() != null && cell.getTile().getProperties().containsKey(propertyKey)) {
-                        v[ty][tx] = true;
+                        set(tx, ty);
                     }
                 }
             }
@@ -0,0 +1,70 @@
+package net.wytrem.jameo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int nodes keyed by int priorities, for graph searches.
+ *
+ * There is no decrease-key: a node whose priority improves is pushed again, and
+ * searches skip the stale entries when they pop them.
+ */
+final class NodeHeap {
+    private int[] nodes = new int[256];
+    private int[] keys = new int[256];
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(int node, int key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+
+    /**
+     * @return the node with the lowest key, removed from the heap.
+     */
+    int pop() {
+        final int top = nodes[0];
+        final int node = nodes[--size];
+        final int key = keys[size];
+
+        int i = 0;
+        final int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        return top;
+    }
+}
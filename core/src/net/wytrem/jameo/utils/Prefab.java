@@ -0,0 +1,37 @@
+package net.wytrem.jameo.utils;
+
+import com.artemis.Archetype;
+import com.artemis.World;
+import com.badlogic.gdx.maps.MapProperties;
+
+/**
+ * A kind of entity spawned by name: its archetype, built once, and how to set
+ * its components up from a spawn.
+ */
+public class Prefab {
+
+    /**
+     * Fills in the components of a freshly created entity.
+     */
+    public interface Defaults {
+        void apply(int entityId, int cx, int cy, MapProperties properties);
+    }
+
+    public final String name;
+    public final Archetype archetype;
+    private final Defaults defaults;
+
+    public Prefab(String name, Archetype archetype, Defaults defaults) {
+        this.name = name;
+        this.archetype = archetype;
+        this.defaults = defaults;
+    }
+
+    public int create(World world, int cx, int cy, MapProperties properties) {
+        final int entityId = world.create(archetype);
+        if (defaults != null) {
+            defaults.apply(entityId, cx, cy, properties);
+        }
+        return entityId;
+    }
+}
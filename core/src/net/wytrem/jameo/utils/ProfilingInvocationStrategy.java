@@ -0,0 +1,184 @@
+package net.wytrem.jameo.utils;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
+import com.artemis.SystemInvocationStrategy;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import net.wytrem.jameo.jfr.TickEvent;
+import net.wytrem.jameo.jfr.TickRecorder;
+
+/**
+ * Runs the systems in order, like the default artemis strategy, and optionally
+ * times each of them.
+ *
+ * The last {@link #WINDOW} ticks of every system are kept, from which p50, p99
+ * and max are computed on demand, along with the entity count of every entity
+ * system. When profiling is off, the only cost is one branch per tick.
+ * <p>
+ * Every tick is also reported as a {@link TickEvent} to Java Flight Recorder.
+ */
+public class ProfilingInvocationStrategy extends SystemInvocationStrategy {
+
+    /**
+     * Ticks kept per system.
+     */
+    public static final int WINDOW = 512;
+
+    private boolean profiling;
+
+    private String[] names;
+    private long[][] samples;
+    private long[] ticks;
+    private int[] entities;
+    private int tick;
+    private final long[] sorted = new long[WINDOW];
+
+    private TickRecorder recorder;
+
+    @Override
+    protected void initialize() {
+        recorder = new TickRecorder(world);
+
+        final int count = systems.size();
+        names = new String[count];
+        samples = new long[count][WINDOW];
+        ticks = new long[WINDOW];
+        entities = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = systems.get(i).getClass().getSimpleName();
+        }
+    }
+
+    @Override
+    protected void process() {
+        recorder.begin();
+
+        if (profiling) {
+            profile();
+        }
+        else {
+            final BaseSystem[] data = systems.getData();
+            for (int i = 0, count = systems.size(); i < count; i++) {
+                if (disabled.get(i)) {
+                    continue;
+                }
+                updateEntityStates();
+                data[i].process();
+            }
+            updateEntityStates();
+        }
+        recorder.end();
+    }
+
+    private void profile() {
+        final BaseSystem[] data = systems.getData();
+        final int count = systems.size();
+
+        final int slot = tick % WINDOW;
+        final long tickStart = TimeUtils.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (disabled.get(i)) {
+                samples[i][slot] = 0;
+                continue;
+            }
+            updateEntityStates();
+
+            final long start = TimeUtils.nanoTime();
+            data[i].process();
+            samples[i][slot] = TimeUtils.nanoTime() - start;
+
+            entities[i] = data[i] instanceof BaseEntitySystem ? ((BaseEntitySystem) data[i]).getSubscription().getEntities().size() : -1;
+        }
+        updateEntityStates();
+        ticks[slot] = TimeUtils.nanoTime() - tickStart;
+        tick++;
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Start or stop timing. Starting again discards the previous samples.
+     */
+    public void setProfiling(boolean profiling) {
+        if (profiling && !this.profiling) {
+            tick = 0;
+        }
+        this.profiling = profiling;
+    }
+
+    public int getSystemCount() {
+        return names.length;
+    }
+
+    public String getName(int system) {
+        return names[system];
+    }
+
+    /**
+     * @return entities in the subscription of the system on the last profiled tick,
+     * -1 if it is not an entity system.
+     */
+    public int getEntityCount(int system) {
+        return entities[system];
+    }
+
+    /**
+     * @param quantile between 0 and 1.
+     * @return duration of the system, in nanoseconds, at this quantile of the window.
+     */
+    public long percentile(int system, double quantile) {
+        return percentile(samples[system], quantile);
+    }
+
+    public long max(int system) {
+        return percentile(samples[system], 1);
+    }
+
+    /**
+     * @return duration of the whole tick at this quantile of the window.
+     */
+    public long tickPercentile(double quantile) {
+        return percentile(ticks, quantile);
+    }
+
+    private long percentile(long[] window, double quantile) {
+        final int n = Math.min(tick, WINDOW);
+        if (n == 0) {
+            return 0;
+        }
+        System.arraycopy(window, 0, sorted, 0, n);
+        Arrays.sort(sorted, 0, n);
+        return sorted[Math.max((int) Math.ceil(quantile * n) - 1, 0)];
+    }
+
+    /**
+     * Write one line per system: name, entities, p50, p99 and max in microseconds.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("system,entities,p50_us,p99_us,max_us\n");
+        for (int i = 0; i < names.length; i++) {
+            writer.write(String.format(Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f\n", names[i], entities[i],
+                    percentile(i, 0.5) / 1e3, percentile(i, 0.99) / 1e3, max(i) / 1e3));
+        }
+        writer.write(String.format(Locale.ROOT, "tick,,%.1f,%.1f,%.1f\n",
+                tickPercentile(0.5) / 1e3, tickPercentile(0.99) / 1e3, tickPercentile(1) / 1e3));
+    }
+
+    public void dumpCsv(FileHandle file) {
+        try (Writer writer = file.writer(false)) {
+            writeCsv(writer);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Cannot write profile to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+
+import java.util.Arrays;
+
+/**
+ * Abstract graph of a grid, for hierarchical path queries.
+ *
+ * The map is cut in square clusters; a region is a 4-connected group of clear
+ * tiles inside one cluster. Two regions are linked when they touch across a
+ * cluster border. A query first finds a corridor of regions on this small
+ * graph, then {@link GridPathfinder} refines it on the tiles of that corridor
+ * only.
+ * <p>
+ * Corridors are cached per (start region, goal region), so agents going the
+ * same way share the abstract search. The cache is bounded: it is split in
+ * sets of a few entries, and the least recently used entry of a set makes room
+ * for a new one. The graph itself is read only once built:
+ * it can be queried from several threads.
+ */
+public class RegionGraph {
+    public static final int DEFAULT_CACHED_CORRIDORS = 4096;
+
+    private static final int[] NONE = new int[0];
+    private static final int WAYS = 4;
+
+    public final int width;
+    public final int height;
+    public final int clusterSize;
+
+    private final int[] regionOf;
+    private final int regionCount;
+    private final int[] centerX, centerY;
+
+    // Links of region r are linkTarget[linkStart[r] .. linkStart[r + 1]).
+    private final int[] linkStart;
+    private final int[] linkTarget;
+    private final int[] linkCost;
+
+    // Set s is entries s * WAYS .. s * WAYS + WAYS, most recently used first,
+    // empty ones last with a null corridor.
+    private final int setMask;
+    private final long[] cachedKeys;
+    private final int[][] cachedCorridors;
+    private int cached;
+
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    /**
+     * @param blocked     tiles that cannot be walked on.
+     * @param clusterSize cluster side, in tiles.
+     */
+    public RegionGraph(MapMask blocked, int clusterSize) {
+        this(blocked, clusterSize, DEFAULT_CACHED_CORRIDORS);
+    }
+
+    /**
+     * @param blocked     tiles that cannot be walked on.
+     * @param clusterSize cluster side, in tiles.
+     * @param cacheSize   corridors kept at most, rounded up.
+     */
+    public RegionGraph(MapMask blocked, int clusterSize, int cacheSize) {
+        final int sets = MathUtils.nextPowerOfTwo(Math.max(1, (cacheSize + WAYS - 1) / WAYS));
+        setMask = sets - 1;
+        cachedKeys = new long[sets * WAYS];
+        cachedCorridors = new int[sets * WAYS][];
+
+        this.width = blocked.width;
+        this.height = blocked.height;
+        this.clusterSize = clusterSize;
+
+        final MapMask walkable = new MapMask(height, width, blocked.getTileWidth(), blocked.getTileHeight());
+        walkable.fill(0, 0, width, height, true);
+        walkable.andNot(blocked);
+
+        regionOf = new int[width * height];
+        Arrays.fill(regionOf, -1);
+
+        // Label every cluster on its own.
+        final IntArray sums = new IntArray();
+        final int[] labels = new int[clusterSize * clusterSize];
+        int regions = 0;
+        for (int cy = 0; cy < height; cy += clusterSize) {
+            for (int cx = 0; cx < width; cx += clusterSize) {
+                final MapMask cluster = walkable.crop(cx, cy, clusterSize, clusterSize);
+                final int count = cluster.label(labels);
+                for (int i = 0; i < count; i++) {
+                    sums.add(0, 0, 0);
+                }
+
+                for (int y = 0; y < cluster.height; y++) {
+                    for (int x = 0; x < cluster.width; x++) {
+                        final int label = labels[y * cluster.width + x];
+                        if (label != 0) {
+                            final int region = regions + label - 1;
+                            regionOf[(cy + y) * width + cx + x] = region;
+                            sums.incr(region * 3, cx + x);
+                            sums.incr(region * 3 + 1, cy + y);
+                            sums.incr(region * 3 + 2, 1);
+                        }
+                    }
+                }
+                regions += count;
+            }
+        }
+        regionCount = regions;
+
+        centerX = new int[regions];
+        centerY = new int[regions];
+        for (int r = 0; r < regions; r++) {
+            final int tiles = sums.get(r * 3 + 2);
+            centerX[r] = sums.get(r * 3) / tiles;
+            centerY[r] = sums.get(r * 3 + 1) / tiles;
+        }
+
+        // Collect the links across cluster borders, once per pair.
+        final LongArray pairs = new LongArray();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int a = regionOf[y * width + x];
+                if (a < 0) {
+                    continue;
+                }
+                if (x + 1 < width && (x + 1) % clusterSize == 0) {
+                    addPair(pairs, a, regionOf[y * width + x + 1]);
+                }
+                if (y + 1 < height && (y + 1) % clusterSize == 0) {
+                    addPair(pairs, a, regionOf[(y + 1) * width + x]);
+                }
+            }
+        }
+        pairs.sort();
+
+        final IntArray from = new IntArray();
+        final IntArray to = new IntArray();
+        for (int i = 0; i < pairs.size; i++) {
+            final long pair = pairs.get(i);
+            if (i > 0 && pairs.get(i - 1) == pair) {
+                continue;
+            }
+            final int a = (int) (pair >>> 32);
+            final int b = (int) pair;
+            from.add(a);
+            to.add(b);
+            from.add(b);
+            to.add(a);
+        }
+
+        linkStart = new int[regions + 1];
+        for (int i = 0; i < from.size; i++) {
+            linkStart[from.get(i) + 1]++;
+        }
+        for (int r = 0; r < regions; r++) {
+            linkStart[r + 1] += linkStart[r];
+        }
+        linkTarget = new int[from.size];
+        linkCost = new int[from.size];
+        final int[] fill = Arrays.copyOf(linkStart, regions);
+        for (int i = 0; i < from.size; i++) {
+            final int a = from.get(i);
+            final int b = to.get(i);
+            final int link = fill[a]++;
+            linkTarget[link] = b;
+            linkCost[link] = Math.max(GridPathfinder.heuristic(centerX[a], centerY[a], centerX[b], centerY[b]), 1);
+        }
+    }
+
+    private static void addPair(LongArray pairs, int a, int b) {
+        if (b < 0 || a == b) {
+            return;
+        }
+        pairs.add(((long) Math.min(a, b) << 32) | Math.max(a, b));
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * @return the region of a tile, -1 if it is blocked.
+     */
+    public int regionAt(int x, int y) {
+        return regionOf[y * width + x];
+    }
+
+    public synchronized int getCachedCorridors() {
+        return cached;
+    }
+
+    public synchronized void clearCache() {
+        Arrays.fill(cachedCorridors, null);
+        cached = 0;
+    }
+
+    /**
+     * @return the regions to go through from one region to another, both
+     * included, or null if the goal cannot be reached. Shared: do not modify.
+     */
+    public int[] corridor(int from, int to) {
+        final long key = ((long) from << 32) | to;
+        int[] corridor = cached(key);
+        if (corridor == null) {
+            corridor = searches.get().run(from, to);
+            cache(key, corridor);
+        }
+        return corridor == NONE ? null : corridor;
+    }
+
+    private synchronized int[] cached(long key) {
+        final int set = set(key);
+        for (int i = 0; i < WAYS; i++) {
+            final int[] corridor = cachedCorridors[set + i];
+            if (corridor == null) {
+                break;
+            }
+            if (cachedKeys[set + i] == key) {
+                touch(set, i, key, corridor);
+                return corridor;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void cache(long key, int[] corridor) {
+        final int set = set(key);
+        int i = 0;
+        while (i < WAYS - 1 && cachedCorridors[set + i] != null && cachedKeys[set + i] != key) {
+            i++;
+        }
+        if (cachedCorridors[set + i] == null) {
+            cached++;
+        }
+        // Overwrites the same key found by another thread, or the least recently used.
+        touch(set, i, key, corridor);
+    }
+
+    /**
+     * Put an entry first in its set, over entry i.
+     */
+    private void touch(int set, int i, long key, int[] corridor) {
+        System.arraycopy(cachedKeys, set, cachedKeys, set + 1, i);
+        System.arraycopy(cachedCorridors, set, cachedCorridors, set + 1, i);
+        cachedKeys[set] = key;
+        cachedCorridors[set] = corridor;
+    }
+
+    /**
+     * @return the first entry of the set of a key.
+     */
+    private int set(long key) {
+        return ((int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & setMask) * WAYS;
+    }
+
+    /**
+     * A* on the regions, with per thread scratch arrays.
+     */
+    private class Search {
+        final int[] cost = new int[regionCount];
+        final int[] parent = new int[regionCount];
+        final int[] opened = new int[regionCount];
+        final int[] closed = new int[regionCount];
+        final NodeHeap open = new NodeHeap();
+        int stamp;
+
+        int[] run(int from, int to) {
+            stamp++;
+            open.clear();
+            cost[from] = 0;
+            parent[from] = -1;
+            opened[from] = stamp;
+            open.push(from, 0);
+
+            while (!open.isEmpty()) {
+                final int region = open.pop();
+                if (closed[region] == stamp) {
+                    continue;
+                }
+                closed[region] = stamp;
+
+                if (region == to) {
+                    int length = 0;
+                    for (int r = to; r != -1; r = parent[r]) {
+                        length++;
+                    }
+                    final int[] corridor = new int[length];
+                    for (int r = to; r != -1; r = parent[r]) {
+                        corridor[--length] = r;
+                    }
+                    return corridor;
+                }
+
+                for (int link = linkStart[region]; link < linkStart[region + 1]; link++) {
+                    final int next = linkTarget[link];
+                    if (closed[next] == stamp) {
+                        continue;
+                    }
+                    final int nextCost = cost[region] + linkCost[link];
+                    if (opened[next] != stamp || nextCost < cost[next]) {
+                        opened[next] = stamp;
+                        cost[next] = nextCost;
+                        parent[next] = region;
+                        open.push(next, nextCost + GridPathfinder.heuristic(centerX[next], centerY[next], centerX[to], centerY[to]));
+                    }
+                }
+            }
+
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.wytrem.jameo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Ring of per tick entity states, preallocated.
+ *
+ * Each tick holds its delta and one row per entity: its id and generation,
+ * flags telling which components were captured, and their fields. Rows of all ticks share
+ * flat arrays, {@code entities} rows per tick, so capturing does not allocate
+ * unless a tick has more entities than any before. States older than the
+ * capacity are overwritten.
+ */
+public class RollbackBuffer {
+
+    // Components a row has, and body flags.
+    public static final int MOTION = 1;
+    public static final int FACING = 1 << 1;
+    public static final int BODY = 1 << 2;
+    public static final int AWAKE = 1 << 3;
+
+    // Float fields of a row.
+    public static final int X = 0, Y = 1;
+    public static final int MOTION_X = 2, MOTION_Y = 3;
+    public static final int BODY_X = 4, BODY_Y = 5, BODY_ANGLE = 6;
+    public static final int BODY_VX = 7, BODY_VY = 8, BODY_VANGLE = 9;
+    private static final int FLOATS = 10;
+
+    private final int mask;
+    private final int[] ticks;
+    private final float[] deltas;
+    private final int[] sizes;
+
+    private int entities;
+    private int[] ids;
+    private int[] generations;
+    private int[] flags;
+    private byte[] facings;
+    private float[] floats;
+
+    public RollbackBuffer(int capacity, int entities) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        ticks = new int[capacity];
+        deltas = new float[capacity];
+        sizes = new int[capacity];
+        this.entities = Math.max(1, entities);
+        ids = new int[capacity * this.entities];
+        generations = new int[capacity * this.entities];
+        flags = new int[capacity * this.entities];
+        facings = new byte[capacity * this.entities];
+        floats = new float[capacity * this.entities * FLOATS];
+        clear();
+    }
+
+    /**
+     * Start the state of a tick, replacing the oldest one. Rows are added next.
+     */
+    public void begin(int tick, float delta) {
+        final int slot = tick & mask;
+        ticks[slot] = tick;
+        deltas[slot] = delta;
+        sizes[slot] = 0;
+    }
+
+    /**
+     * Add an entity to a tick begun with {@link #begin(int, float)}.
+     *
+     * @param generation tells the entity from later ones reusing its id.
+     * @return its row, valid until the next add.
+     */
+    public int add(int tick, int id, int generation, int flags) {
+        final int slot = tick & mask;
+        if (sizes[slot] == entities) {
+            grow(entities * 2);
+        }
+        final int row = slot * entities + sizes[slot]++;
+        ids[row] = id;
+        generations[row] = generation;
+        this.flags[row] = flags;
+        return row;
+    }
+
+    /**
+     * Lay every tick out with more rows.
+     */
+    private void grow(int capacity) {
+        final int slots = mask + 1;
+        final int[] ids = new int[slots * capacity];
+        final int[] generations = new int[slots * capacity];
+        final int[] flags = new int[slots * capacity];
+        final byte[] facings = new byte[slots * capacity];
+        final float[] floats = new float[slots * capacity * FLOATS];
+        for (int slot = 0; slot < slots; slot++) {
+            System.arraycopy(this.ids, slot * entities, ids, slot * capacity, sizes[slot]);
+            System.arraycopy(this.generations, slot * entities, generations, slot * capacity, sizes[slot]);
+            System.arraycopy(this.flags, slot * entities, flags, slot * capacity, sizes[slot]);
+            System.arraycopy(this.facings, slot * entities, facings, slot * capacity, sizes[slot]);
+            System.arraycopy(this.floats, slot * entities * FLOATS, floats, slot * capacity * FLOATS, sizes[slot] * FLOATS);
+        }
+        this.ids = ids;
+        this.generations = generations;
+        this.flags = flags;
+        this.facings = facings;
+        this.floats = floats;
+        entities = capacity;
+    }
+
+    /**
+     * @return whether the state of this tick is still in the ring.
+     */
+    public boolean has(int tick) {
+        return tick >= 0 && ticks[tick & mask] == tick;
+    }
+
+    public float delta(int tick) {
+        return deltas[tick & mask];
+    }
+
+    /**
+     * @return entities captured at this tick.
+     */
+    public int size(int tick) {
+        return sizes[tick & mask];
+    }
+
+    /**
+     * @return the row of the i-th entity captured at this tick.
+     */
+    public int row(int tick, int i) {
+        return (tick & mask) * entities + i;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public int getGeneration(int row) {
+        return generations[row];
+    }
+
+    public int getFlags(int row) {
+        return flags[row];
+    }
+
+    public float getFloat(int row, int field) {
+        return floats[row * FLOATS + field];
+    }
+
+    public void setFloat(int row, int field, float value) {
+        floats[row * FLOATS + field] = value;
+    }
+
+    /**
+     * @return the ordinal of the {@link CardDir} faced.
+     */
+    public int getFacing(int row) {
+        return facings[row];
+    }
+
+    public void setFacing(int row, int facing) {
+        facings[row] = (byte) facing;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return rows per tick before the next growth.
+     */
+    public int entityCapacity() {
+        return entities;
+    }
+
+    public void clear() {
+        Arrays.fill(ticks, -1);
+    }
+}
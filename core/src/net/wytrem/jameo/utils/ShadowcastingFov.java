@@ -0,0 +1,131 @@
+package net.wytrem.jameo.utils;
+
+/**
+ * Field of view over a {@link MapMask} of opaque tiles, by recursive
+ * shadowcasting.
+ *
+ * Each of the eight octants around the viewer is scanned row by row, moving
+ * away from it; an opaque tile narrows the range of slopes still lit for the
+ * rows behind it, and splits it in two when it sits in the middle. Every tile
+ * is looked at once at most, and the tiles hidden behind walls not at all.
+ * Opaque tiles that are seen are lit, so walls show up at the edge of the view.
+ * <p>
+ * Results are written into masks, so that any number of viewers can be merged
+ * with {@link MapMask#or(MapMask)}.
+ */
+public class ShadowcastingFov {
+    // Octant transforms: (dx, dy) in the scanned octant to map offsets.
+    private static final int[] XX = {1, 0, 0, -1, -1, 0, 0, 1};
+    private static final int[] XY = {0, 1, -1, 0, 0, -1, 1, 0};
+    private static final int[] YX = {0, 1, 1, 0, 0, -1, -1, 0};
+    private static final int[] YY = {1, 0, 0, 1, -1, 0, 0, -1};
+
+    private final MapMask opaque;
+
+    private MapMask visible;
+    private MapMask explored;
+    private int originX, originY;
+    private int radius, radiusSquared;
+    private int lit;
+
+    /**
+     * @param opaque tiles that block the view, typically the {@code solid} mask.
+     */
+    public ShadowcastingFov(MapMask opaque) {
+        this.opaque = opaque;
+    }
+
+    public MapMask getOpaque() {
+        return opaque;
+    }
+
+    /**
+     * Light the tiles seen from a tile. Nothing is cleared: the caller clears
+     * {@code visible} where the previous view was.
+     *
+     * @param radius  how far the view goes, in tiles.
+     * @param visible receives the tiles seen.
+     * @param explored receives them too, may be null.
+     * @return tiles lit, some possibly twice on the octant borders.
+     */
+    public int compute(int x, int y, int radius, MapMask visible, MapMask explored) {
+        this.visible = visible;
+        this.explored = explored;
+        this.originX = x;
+        this.originY = y;
+        this.radius = radius;
+        this.radiusSquared = radius * radius + radius;
+        lit = 0;
+
+        light(x, y);
+        for (int octant = 0; octant < 8; octant++) {
+            cast(1, 1f, 0f, XX[octant], XY[octant], YX[octant], YY[octant]);
+        }
+
+        this.visible = null;
+        this.explored = null;
+        return lit;
+    }
+
+    /**
+     * Scan the rows of an octant from {@code row}, between two slopes.
+     */
+    private void cast(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end) {
+            return;
+        }
+
+        float nextStart = 0f;
+        for (int j = row; j <= radius; j++) {
+            boolean blocked = false;
+            final int dy = -j;
+            for (int dx = -j; dx <= 0; dx++) {
+                final float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                final float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+                if (start < rightSlope) {
+                    continue;
+                }
+                if (end > leftSlope) {
+                    break;
+                }
+
+                final int x = originX + dx * xx + dy * xy;
+                final int y = originY + dx * yx + dy * yy;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    light(x, y);
+                }
+
+                final boolean wall = opaque.atGrid(x, y, true);
+                if (blocked) {
+                    if (wall) {
+                        nextStart = rightSlope;
+                    }
+                    else {
+                        blocked = false;
+                        start = nextStart;
+                    }
+                }
+                else if (wall && j < radius) {
+                    // The rows behind are lit on each side of this wall.
+                    blocked = true;
+                    cast(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    nextStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                return;
+            }
+        }
+    }
+
+    private void light(int x, int y) {
+        if (x < 0 || y < 0 || x >= visible.width || y >= visible.height) {
+            return;
+        }
+        visible.set(x, y);
+        if (explored != null) {
+            explored.set(x, y);
+        }
+        lit++;
+    }
+}
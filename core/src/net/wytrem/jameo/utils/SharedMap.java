@@ -0,0 +1,166 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * A parsed map with everything derived from it, computed once and shared by any
+ * number of worlds: property masks, merged solid walls and the entity spawns.
+ *
+ * Nothing here is modified after construction, so worlds on different threads
+ * can read it concurrently. In particular, entity tiles are left in the layers:
+ * worlds spawn from {@link #getSpawnCount()} and friends instead of clearing them.
+ */
+public class SharedMap implements Disposable {
+    private final String file;
+    private final TiledMap map;
+    private final int width, height, tileWidth, tileHeight;
+
+    private final ObjectMap<String, MapMask> masks;
+    private final IntArray walls;
+    private final int solidTiles;
+
+    private final IntArray spawnTiles;
+    private final Array<MapProperties> spawnProperties;
+
+    /**
+     * Load a TMX map, or a map baked by {@link BakedMap}.
+     */
+    public static SharedMap load(String file) {
+        if (file.endsWith(BakedMap.EXTENSION)) {
+            return BakedMap.read(file, Gdx.files.internal(file));
+        }
+        return new SharedMap(file, new TmxMapLoader().load(file));
+    }
+
+    /**
+     * @param map taken over: disposed with this object.
+     */
+    public SharedMap(String file, TiledMap map) {
+        this.file = file;
+        this.map = map;
+        width = map.getProperties().get("width", Integer.class);
+        height = map.getProperties().get("height", Integer.class);
+        tileWidth = map.getProperties().get("tilewidth", Integer.class);
+        tileHeight = map.getProperties().get("tileheight", Integer.class);
+
+        final Array<TiledMapTileLayer> layers = map.getLayers().getByType(TiledMapTileLayer.class);
+        masks = MapMask.generateAll(height, width, tileWidth, tileHeight, layers);
+        walls = new IntArray();
+        spawnTiles = new IntArray();
+        spawnProperties = new Array<>();
+
+        final MapMask solid = masks.get("solid");
+        if (solid != null) {
+            ColliderBaker.bake(solid, walls);
+            solidTiles = solid.count();
+        }
+        else {
+            solidTiles = 0;
+        }
+
+        for (TiledMapTileLayer layer : layers) {
+            for (int ty = 0; ty < height; ty++) {
+                for (int tx = 0; tx < width; tx++) {
+                    final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell != null && cell.getTile().getProperties().containsKey("entity")) {
+                        spawnTiles.add(tx, ty);
+                        spawnProperties.add(cell.getTile().getProperties());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A map whose masks, walls and spawns were computed beforehand.
+     */
+    SharedMap(String file, TiledMap map, ObjectMap<String, MapMask> masks, IntArray walls, int solidTiles,
+              IntArray spawnTiles, Array<MapProperties> spawnProperties) {
+        this.file = file;
+        this.map = map;
+        width = map.getProperties().get("width", Integer.class);
+        height = map.getProperties().get("height", Integer.class);
+        tileWidth = map.getProperties().get("tilewidth", Integer.class);
+        tileHeight = map.getProperties().get("tileheight", Integer.class);
+        this.masks = masks;
+        this.walls = walls;
+        this.solidTiles = solidTiles;
+        this.spawnTiles = spawnTiles;
+        this.spawnProperties = spawnProperties;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * The parsed map. Read only: it is shared with other worlds.
+     */
+    public TiledMap getMap() {
+        return map;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * Read only, like the masks in it.
+     */
+    public ObjectMap<String, MapMask> getMasks() {
+        return masks;
+    }
+
+    /**
+     * Solid tiles merged by {@link ColliderBaker}: (x, y, width, height) quadruples
+     * in tile coordinates.
+     */
+    public IntArray getWalls() {
+        return walls;
+    }
+
+    public int getSolidTiles() {
+        return solidTiles;
+    }
+
+    public int getSpawnCount() {
+        return spawnProperties.size;
+    }
+
+    public int getSpawnX(int spawn) {
+        return spawnTiles.get(spawn * 2);
+    }
+
+    public int getSpawnY(int spawn) {
+        return spawnTiles.get(spawn * 2 + 1);
+    }
+
+    public MapProperties getSpawnProperties(int spawn) {
+        return spawnProperties.get(spawn);
+    }
+
+    @Override
+    public void dispose() {
+        map.dispose();
+    }
+}
@@ -0,0 +1,119 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Uniform grid of entity ids, hashed by cell so that it has no bounds.
+ *
+ * Entities are only moved between cells when they cross a cell border, which
+ * makes {@link #update(int, float, float)} a lookup and a compare for the
+ * common case. Cell buckets are kept once created, so a warmed up grid does
+ * not allocate.
+ */
+public class SpatialGrid {
+
+    private final float cellSize;
+    private final IntMap<IntArray> cells = new IntMap<>();
+    private final IntIntMap entityCells = new IntIntMap();
+
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Insert or move an entity.
+     *
+     * @return true when the entity changed cell.
+     */
+    public boolean update(int entityId, float x, float y) {
+        final int key = key(cell(x), cell(y));
+        if (entityCells.containsKey(entityId)) {
+            final int previous = entityCells.get(entityId, 0);
+            if (previous == key) {
+                return false;
+            }
+            cells.get(previous).removeValue(entityId);
+        }
+
+        entityCells.put(entityId, key);
+        bucket(key).add(entityId);
+        return true;
+    }
+
+    public void remove(int entityId) {
+        if (entityCells.containsKey(entityId)) {
+            cells.get(entityCells.remove(entityId, 0)).removeValue(entityId);
+        }
+    }
+
+    public boolean contains(int entityId) {
+        return entityCells.containsKey(entityId);
+    }
+
+    public int size() {
+        return entityCells.size;
+    }
+
+    /**
+     * Append the entities of every cell overlapping the rectangle. Cells are
+     * visited from the top row down, so the output is roughly sorted by
+     * decreasing y.
+     */
+    public void query(float x0, float y0, float x1, float y1, IntArray out) {
+        final int cx0 = cell(x0), cx1 = cell(x1);
+        final int cy0 = cell(y0), cy1 = cell(y1);
+        for (int cy = cy1; cy >= cy0; cy--) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                final IntArray bucket = cells.get(key(cx, cy));
+                if (bucket != null && bucket.size > 0) {
+                    out.addAll(bucket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Append the entities of every cell at most {@code radius} cells away from
+     * the cell (cx, cy).
+     */
+    public void queryCells(int cx, int cy, int radius, IntArray out) {
+        for (int y = cy + radius; y >= cy - radius; y--) {
+            for (int x = cx - radius; x <= cx + radius; x++) {
+                final IntArray bucket = cells.get(key(x, y));
+                if (bucket != null && bucket.size > 0) {
+                    out.addAll(bucket);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (IntArray bucket : cells.values()) {
+            bucket.clear();
+        }
+        entityCells.clear();
+    }
+
+    public int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private IntArray bucket(int key) {
+        IntArray bucket = cells.get(key);
+        if (bucket == null) {
+            bucket = new IntArray(false, 8);
+            cells.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private static int key(int cx, int cy) {
+        return (cx << 16) | (cy & 0xFFFF);
+    }
+}
@@ -0,0 +1,37 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * The facing variants of a sprite, computed once when the sprite is packed.
+ *
+ * The regions are shared by every entity using the sprite and must never be
+ * flipped or otherwise modified: pick the variant instead.
+ */
+public final class SpriteVariants {
+    public final String name;
+    private final TextureRegion right;
+    private final TextureRegion left;
+
+    public SpriteVariants(String name, TextureRegion right) {
+        this.name = name;
+        this.right = right;
+        this.left = new TextureRegion(right);
+        this.left.flip(true, false);
+    }
+
+    public TextureRegion right() {
+        return right;
+    }
+
+    public TextureRegion left() {
+        return left;
+    }
+
+    /**
+     * @return the left-facing region when facing west, else the right-facing one.
+     */
+    public TextureRegion get(CardDir facing) {
+        return facing == CardDir.WEST ? left : right;
+    }
+}
@@ -0,0 +1,270 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Sprite vertices of the tile layers of a map, cut in square chunks, built once
+ * and kept until a cell of the chunk changes.
+ *
+ * Vertices are laid out as for a SpriteBatch or a SpriteCache: four vertices of
+ * (x, y, color, u, v) per tile, placed and flipped as OrthogonalTiledMapRenderer
+ * does at a unit scale of 1. Each chunk lists its vertices as runs of tiles of
+ * the same texture, layers in order, so that it can be submitted as a few
+ * draws. Nothing here touches GL.
+ * <p>
+ * Cells changed through the layers directly must be reported with
+ * {@link #invalidate(int, int)}; changes of layer visibility or opacity with
+ * {@link #invalidateAll()}. Animated tiles are frozen on the frame they had
+ * when their chunk was built.
+ */
+public class TileChunkGeometry {
+    public static final int VERTEX_SIZE = 5;
+    public static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+
+    private static final int X1 = 0, Y1 = 1, C1 = 2, U1 = 3, V1 = 4;
+    private static final int X2 = 5, Y2 = 6, C2 = 7, U2 = 8, V2 = 9;
+    private static final int X3 = 10, Y3 = 11, C3 = 12, U3 = 13, V3 = 14;
+    private static final int X4 = 15, Y4 = 16, C4 = 17, U4 = 18, V4 = 19;
+
+    public final int chunkSize;
+    private final Array<TiledMapTileLayer> layers;
+    private final int width, height;
+    private final int chunksX, chunksY;
+
+    private final boolean[] dirty;
+    private final FloatArray[] vertices;
+    private final Array<Texture>[] runTextures;
+    private final IntArray[] runSprites;
+
+    private final float[] sprite = new float[SPRITE_SIZE];
+    private int rebuilds;
+
+    @SuppressWarnings("unchecked")
+    public TileChunkGeometry(Array<TiledMapTileLayer> layers, int width, int height, int chunkSize) {
+        this.layers = layers;
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        chunksX = (width + chunkSize - 1) / chunkSize;
+        chunksY = (height + chunkSize - 1) / chunkSize;
+
+        final int chunks = chunksX * chunksY;
+        dirty = new boolean[chunks];
+        vertices = new FloatArray[chunks];
+        runTextures = new Array[chunks];
+        runSprites = new IntArray[chunks];
+        for (int i = 0; i < chunks; i++) {
+            dirty[i] = true;
+            vertices[i] = new FloatArray();
+            runTextures[i] = new Array<>();
+            runSprites[i] = new IntArray();
+        }
+    }
+
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    public int getChunksY() {
+        return chunksY;
+    }
+
+    public int getChunkCount() {
+        return dirty.length;
+    }
+
+    /**
+     * @return chunks built so far.
+     */
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Mark the chunk of a cell for rebuilding.
+     */
+    public void invalidate(int tx, int ty) {
+        if (tx >= 0 && ty >= 0 && tx < width && ty < height) {
+            dirty[(ty / chunkSize) * chunksX + tx / chunkSize] = true;
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < dirty.length; i++) {
+            dirty[i] = true;
+        }
+    }
+
+    public boolean isDirty(int chunk) {
+        return dirty[chunk];
+    }
+
+    /**
+     * Rebuild the vertices of a chunk from its cells.
+     */
+    public void build(int chunk) {
+        final FloatArray out = vertices[chunk];
+        final Array<Texture> textures = runTextures[chunk];
+        final IntArray sprites = runSprites[chunk];
+        out.clear();
+        textures.clear();
+        sprites.clear();
+
+        final int x0 = (chunk % chunksX) * chunkSize;
+        final int y0 = (chunk / chunksX) * chunkSize;
+        final int x1 = Math.min(x0 + chunkSize, width);
+        final int y1 = Math.min(y0 + chunkSize, height);
+
+        for (TiledMapTileLayer layer : layers) {
+            if (!layer.isVisible()) {
+                continue;
+            }
+            final float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+            final float tileWidth = layer.getTileWidth();
+            final float tileHeight = layer.getTileHeight();
+
+            // Top to bottom, as the renderer draws, so that overlapping tiles stack the same.
+            for (int ty = y1 - 1; ty >= y0; ty--) {
+                for (int tx = x0; tx < x1; tx++) {
+                    final TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell == null || cell.getTile() == null) {
+                        continue;
+                    }
+                    final TiledMapTile tile = cell.getTile();
+                    final TextureRegion region = tile.getTextureRegion();
+                    if (region == null || region.getTexture() == null) {
+                        continue;
+                    }
+
+                    quad(cell, region, tx * tileWidth + tile.getOffsetX(), ty * tileHeight + tile.getOffsetY(), color);
+                    out.addAll(sprite, 0, SPRITE_SIZE);
+
+                    final Texture texture = region.getTexture();
+                    if (textures.size > 0 && textures.peek() == texture) {
+                        sprites.incr(sprites.size - 1, 1);
+                    }
+                    else {
+                        textures.add(texture);
+                        sprites.add(1);
+                    }
+                }
+            }
+        }
+
+        dirty[chunk] = false;
+        rebuilds++;
+    }
+
+    private void quad(TiledMapTileLayer.Cell cell, TextureRegion region, float x1, float y1, float color) {
+        final float[] v = sprite;
+        final float x2 = x1 + region.getRegionWidth();
+        final float y2 = y1 + region.getRegionHeight();
+
+        final float u1 = region.getU();
+        final float v1 = region.getV2();
+        final float u2 = region.getU2();
+        final float v2 = region.getV();
+
+        v[X1] = x1;
+        v[Y1] = y1;
+        v[C1] = color;
+        v[U1] = u1;
+        v[V1] = v1;
+
+        v[X2] = x1;
+        v[Y2] = y2;
+        v[C2] = color;
+        v[U2] = u1;
+        v[V2] = v2;
+
+        v[X3] = x2;
+        v[Y3] = y2;
+        v[C3] = color;
+        v[U3] = u2;
+        v[V3] = v2;
+
+        v[X4] = x2;
+        v[Y4] = y1;
+        v[C4] = color;
+        v[U4] = u2;
+        v[V4] = v1;
+
+        if (cell.getFlipHorizontally()) {
+            swap(v, U1, U3);
+            swap(v, U2, U4);
+        }
+        if (cell.getFlipVertically()) {
+            swap(v, V1, V3);
+            swap(v, V2, V4);
+        }
+
+        switch (cell.getRotation()) {
+            case TiledMapTileLayer.Cell.ROTATE_90:
+                rotate(v, V1, V2, V3, V4);
+                rotate(v, U1, U2, U3, U4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_180:
+                swap(v, U1, U3);
+                swap(v, U2, U4);
+                swap(v, V1, V3);
+                swap(v, V2, V4);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_270:
+                rotate(v, V1, V4, V3, V2);
+                rotate(v, U1, U4, U3, U2);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void swap(float[] v, int a, int b) {
+        final float t = v[a];
+        v[a] = v[b];
+        v[b] = t;
+    }
+
+    /**
+     * a takes b, b takes c, c takes d, d takes a.
+     */
+    private static void rotate(float[] v, int a, int b, int c, int d) {
+        final float t = v[a];
+        v[a] = v[b];
+        v[b] = v[c];
+        v[c] = v[d];
+        v[d] = t;
+    }
+
+    /**
+     * @return vertices of a chunk, {@link #getSprites(int)} times {@link #SPRITE_SIZE} floats.
+     */
+    public float[] getVertices(int chunk) {
+        return vertices[chunk].items;
+    }
+
+    public int getSprites(int chunk) {
+        return vertices[chunk].size / SPRITE_SIZE;
+    }
+
+    /**
+     * @return runs of consecutive tiles sharing a texture in a chunk.
+     */
+    public int getRunCount(int chunk) {
+        return runSprites[chunk].size;
+    }
+
+    public Texture getRunTexture(int chunk, int run) {
+        return runTextures[chunk].get(run);
+    }
+
+    public int getRunSprites(int chunk, int run) {
+        return runSprites[chunk].get(run);
+    }
+}
@@ -0,0 +1,355 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The state of every entity of a world at one tick, and the map it plays on.
+ *
+ * A capture is a copy of the component fields into flat arrays, one slot per
+ * entity, so that the world can go on ticking while the copy is written. Each
+ * entity records which components it has; only those are written, each sprite
+ * name once. Bodies are kept as position, angle, velocity and flags.
+ * <p>
+ * Files are written through a channel from a small direct buffer, to a
+ * temporary file moved over the target once complete: a crash while saving
+ * leaves the previous snapshot intact.
+ */
+public class WorldSnapshot {
+    public static final String EXTENSION = ".jsnap";
+
+    private static final int MAGIC = 0x4A534E50;
+    private static final int VERSION = 1;
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    // Components an entity has.
+    public static final int POSITION = 1;
+    public static final int SIZE = 1 << 1;
+    public static final int MOTION = 1 << 2;
+    public static final int FACING = 1 << 3;
+    public static final int SPRITE = 1 << 4;
+    public static final int BODY = 1 << 5;
+    public static final int INPUT_CONTROLLED = 1 << 6;
+    public static final int CAMERA = 1 << 7;
+    public static final int FLOW_FOLLOWER = 1 << 8;
+    public static final int FIELD_OF_VIEW = 1 << 9;
+    public static final int DORMANT = 1 << 10;
+
+    // Float fields of an entity.
+    public static final int X = 0, Y = 1;
+    public static final int WIDTH = 2, HEIGHT = 3;
+    public static final int MOTION_X = 4, MOTION_Y = 5;
+    public static final int BODY_X = 6, BODY_Y = 7, BODY_ANGLE = 8, BODY_VX = 9, BODY_VY = 10;
+    public static final int FLOW_SPEED = 11;
+    private static final int FLOATS = 12;
+
+    // Int fields of an entity.
+    public static final int FACING_DIR = 0;
+    public static final int BODY_FLAGS = 1;
+    public static final int FLOW_TARGET = 2;
+    public static final int FOV_RADIUS = 3;
+    private static final int INTS = 4;
+
+    public static final int AWAKE = 1, ACTIVE = 2;
+
+    private String map;
+    private int tick;
+    private int size;
+
+    private int[] ids = new int[0];
+    private int[] components = new int[0];
+    private float[] floats = new float[0];
+    private int[] ints = new int[0];
+    private String[] sprites = new String[0];
+
+    public void clear(String map, int tick) {
+        this.map = map;
+        this.tick = tick;
+        Arrays.fill(sprites, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return the map loaded when captured, null if none or not loaded from a file.
+     */
+    public String getMap() {
+        return map;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an entity, its fields to be set next.
+     *
+     * @return its slot.
+     */
+    public int add(int id, int components) {
+        if (size == ids.length) {
+            final int capacity = Math.max(64, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            this.components = Arrays.copyOf(this.components, capacity);
+            floats = Arrays.copyOf(floats, capacity * FLOATS);
+            ints = Arrays.copyOf(ints, capacity * INTS);
+            sprites = Arrays.copyOf(sprites, capacity);
+        }
+        ids[size] = id;
+        this.components[size] = components;
+        return size++;
+    }
+
+    public int getId(int slot) {
+        return ids[slot];
+    }
+
+    public int getComponents(int slot) {
+        return components[slot];
+    }
+
+    public boolean has(int slot, int component) {
+        return (components[slot] & component) != 0;
+    }
+
+    public float getFloat(int slot, int field) {
+        return floats[slot * FLOATS + field];
+    }
+
+    public void setFloat(int slot, int field, float value) {
+        floats[slot * FLOATS + field] = value;
+    }
+
+    public int getInt(int slot, int field) {
+        return ints[slot * INTS + field];
+    }
+
+    public void setInt(int slot, int field, int value) {
+        ints[slot * INTS + field] = value;
+    }
+
+    /**
+     * @return the name of the sprite, as {@link SpriteVariants#name}.
+     */
+    public String getSprite(int slot) {
+        return sprites[slot];
+    }
+
+    public void setSprite(int slot, String name) {
+        sprites[slot] = name;
+    }
+
+    /**
+     * Write to a file, replacing it only once complete.
+     */
+    public void write(FileHandle file) {
+        final Path target = file.file().toPath();
+        final Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, ByteBuffer.allocateDirect(WRITE_BUFFER));
+                channel.force(false);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException e) {
+            throw new GdxRuntimeException("Could not write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Stream to a channel through a buffer, flushed whenever an entity might not fit.
+     */
+    public void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        // Sprite names are shared by many entities: index them.
+        final ObjectIntMap<String> spriteIndices = new ObjectIntMap<>();
+        for (int i = 0; i < size; i++) {
+            if (sprites[i] != null && !spriteIndices.containsKey(sprites[i])) {
+                spriteIndices.put(sprites[i], spriteIndices.size);
+            }
+        }
+        final String[] names = new String[spriteIndices.size];
+        for (ObjectIntMap.Entry<String> entry : spriteIndices) {
+            names[entry.value] = entry.key;
+        }
+
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(tick);
+        writeString(channel, buffer, map);
+        buffer.putInt(names.length);
+        for (String name : names) {
+            writeString(channel, buffer, name);
+        }
+        buffer.putInt(size);
+
+        final int entityBytes = 8 + (FLOATS + INTS) * 4;
+        for (int i = 0; i < size; i++) {
+            if (buffer.remaining() < entityBytes) {
+                flush(channel, buffer);
+            }
+            final int has = components[i];
+            final int f = i * FLOATS;
+            final int n = i * INTS;
+            buffer.putInt(ids[i]);
+            buffer.putInt(has);
+            if ((has & POSITION) != 0) {
+                buffer.putFloat(floats[f + X]).putFloat(floats[f + Y]);
+            }
+            if ((has & SIZE) != 0) {
+                buffer.putFloat(floats[f + WIDTH]).putFloat(floats[f + HEIGHT]);
+            }
+            if ((has & MOTION) != 0) {
+                buffer.putFloat(floats[f + MOTION_X]).putFloat(floats[f + MOTION_Y]);
+            }
+            if ((has & FACING) != 0) {
+                buffer.putInt(ints[n + FACING_DIR]);
+            }
+            if ((has & SPRITE) != 0) {
+                buffer.putInt(sprites[i] == null ? -1 : spriteIndices.get(sprites[i], -1));
+            }
+            if ((has & BODY) != 0) {
+                buffer.putFloat(floats[f + BODY_X]).putFloat(floats[f + BODY_Y]).putFloat(floats[f + BODY_ANGLE])
+                        .putFloat(floats[f + BODY_VX]).putFloat(floats[f + BODY_VY]);
+                buffer.putInt(ints[n + BODY_FLAGS]);
+            }
+            if ((has & FLOW_FOLLOWER) != 0) {
+                buffer.putFloat(floats[f + FLOW_SPEED]);
+                buffer.putInt(ints[n + FLOW_TARGET]);
+            }
+            if ((has & FIELD_OF_VIEW) != 0) {
+                buffer.putInt(ints[n + FOV_RADIUS]);
+            }
+        }
+        flush(channel, buffer);
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeString(WritableByteChannel channel, ByteBuffer buffer, String value) throws IOException {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // With room for the count that follows.
+        if (buffer.remaining() < bytes.length + 16) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Read a snapshot written by {@link #write(FileHandle)}, through a memory map.
+     */
+    public static WorldSnapshot read(FileHandle file) {
+        try (FileChannel channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+            return read(file.path(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException e) {
+            throw new GdxRuntimeException("Could not read snapshot " + file, e);
+        }
+    }
+
+    public static WorldSnapshot read(String name, ByteBuffer in) {
+        if (in.getInt() != MAGIC) {
+            throw new GdxRuntimeException(name + " is not a world snapshot");
+        }
+        final int version = in.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported snapshot version " + version + " in " + name);
+        }
+
+        final WorldSnapshot snapshot = new WorldSnapshot();
+        final int tick = in.getInt();
+        snapshot.clear(readString(in), tick);
+        final String[] names = new String[in.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(in);
+        }
+
+        final int count = in.getInt();
+        for (int e = 0; e < count; e++) {
+            final int id = in.getInt();
+            final int has = in.getInt();
+            final int i = snapshot.add(id, has);
+            if ((has & POSITION) != 0) {
+                snapshot.setFloat(i, X, in.getFloat());
+                snapshot.setFloat(i, Y, in.getFloat());
+            }
+            if ((has & SIZE) != 0) {
+                snapshot.setFloat(i, WIDTH, in.getFloat());
+                snapshot.setFloat(i, HEIGHT, in.getFloat());
+            }
+            if ((has & MOTION) != 0) {
+                snapshot.setFloat(i, MOTION_X, in.getFloat());
+                snapshot.setFloat(i, MOTION_Y, in.getFloat());
+            }
+            if ((has & FACING) != 0) {
+                snapshot.setInt(i, FACING_DIR, in.getInt());
+            }
+            if ((has & SPRITE) != 0) {
+                final int sprite = in.getInt();
+                snapshot.setSprite(i, sprite < 0 ? null : names[sprite]);
+            }
+            if ((has & BODY) != 0) {
+                snapshot.setFloat(i, BODY_X, in.getFloat());
+                snapshot.setFloat(i, BODY_Y, in.getFloat());
+                snapshot.setFloat(i, BODY_ANGLE, in.getFloat());
+                snapshot.setFloat(i, BODY_VX, in.getFloat());
+                snapshot.setFloat(i, BODY_VY, in.getFloat());
+                snapshot.setInt(i, BODY_FLAGS, in.getInt());
+            }
+            if ((has & FLOW_FOLLOWER) != 0) {
+                snapshot.setFloat(i, FLOW_SPEED, in.getFloat());
+                snapshot.setInt(i, FLOW_TARGET, in.getInt());
+            }
+            if ((has & FIELD_OF_VIEW) != 0) {
+                snapshot.setInt(i, FOV_RADIUS, in.getInt());
+            }
+        }
+        return snapshot;
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package net.wytrem.jameo;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+import net.wytrem.jameo.server.HeadlessGL;
+
+/**
+ * No-op GL counting its calls by method name, to check what a renderer
+ * submits. Installed in place of the headless one until {@link #uninstall()}.
+ */
+public final class CountingGL {
+
+    private final ObjectIntMap<String> calls = new ObjectIntMap<>();
+    private final GL20 previous;
+
+    private CountingGL() {
+        previous = Gdx.gl20;
+    }
+
+    public static CountingGL install() {
+        Headless.init();
+
+        final CountingGL counting = new CountingGL();
+        final GL20 target = HeadlessGL.create();
+        final GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, (proxy, method, args) -> {
+            counting.calls.getAndIncrement(method.getName(), 0, 1);
+            try {
+                return method.invoke(target, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        return counting;
+    }
+
+    public void uninstall() {
+        Gdx.gl = previous;
+        Gdx.gl20 = previous;
+    }
+
+    /**
+     * @return calls of a GL method since the last reset.
+     */
+    public int count(String method) {
+        return calls.get(method, 0);
+    }
+
+    public void reset() {
+        calls.clear();
+    }
+}
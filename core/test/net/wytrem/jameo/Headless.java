@@ -0,0 +1,36 @@
+package net.wytrem.jameo;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+
+import net.wytrem.jameo.server.HeadlessGL;
+
+/**
+ * Headless libGDX bootstrap shared by the tests.
+ */
+public final class Headless {
+
+    private Headless() {
+    }
+
+    /**
+     * Start a headless application once per JVM: loads the natives and sets up
+     * Gdx.app, Gdx.files, Gdx.input and a no-op GL.
+     */
+    public static synchronized void init() {
+        if (Gdx.app != null) {
+            return;
+        }
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 1f;
+        new HeadlessApplication(new ApplicationAdapter() {
+        }, config);
+
+        HeadlessGL.install();
+        Box2D.init();
+    }
+}
@@ -0,0 +1,73 @@
+package net.wytrem.jameo;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+
+import java.util.Random;
+
+/**
+ * Dungeon-like maps built in code: an outer wall, rooms separated by walls with
+ * doors, scattered pillars and a few entity spawns.
+ */
+public final class SyntheticMaps {
+
+    public static final int TILE_SIZE = 16;
+    public static final int ROOM_SIZE = 12;
+
+    private SyntheticMaps() {
+    }
+
+    public static TiledMap dungeon(int size, long seed) {
+        return dungeon(size, seed, new TextureRegion());
+    }
+
+    /**
+     * @param region drawn for every tile, for benchmarks that need actual textures.
+     */
+    public static TiledMap dungeon(int size, long seed, TextureRegion region) {
+        Random random = new Random(seed);
+
+        StaticTiledMapTile floor = new StaticTiledMapTile(region);
+        StaticTiledMapTile wall = new StaticTiledMapTile(region);
+        wall.getProperties().put("solid", true);
+        StaticTiledMapTile spawn = new StaticTiledMapTile(region);
+        spawn.getProperties().put("entity", "monster");
+
+        TiledMapTileLayer ground = new TiledMapTileLayer(size, size, TILE_SIZE, TILE_SIZE);
+        TiledMapTileLayer overlay = new TiledMapTileLayer(size, size, TILE_SIZE, TILE_SIZE);
+
+        for (int ty = 0; ty < size; ty++) {
+            for (int tx = 0; tx < size; tx++) {
+                boolean border = tx == 0 || ty == 0 || tx == size - 1 || ty == size - 1;
+                boolean roomWall = (tx % ROOM_SIZE == 0 && ty % ROOM_SIZE != ROOM_SIZE / 2)
+                        || (ty % ROOM_SIZE == 0 && tx % ROOM_SIZE != ROOM_SIZE / 2);
+                boolean pillar = random.nextInt(40) == 0;
+
+                ground.setCell(tx, ty, cell(border || roomWall || pillar ? wall : floor));
+                if (!border && !roomWall && !pillar && random.nextInt(200) == 0) {
+                    overlay.setCell(tx, ty, cell(spawn));
+                }
+            }
+        }
+
+        TiledMap map = new TiledMap();
+        map.getLayers().add(ground);
+        map.getLayers().add(overlay);
+
+        MapProperties properties = map.getProperties();
+        properties.put("width", size);
+        properties.put("height", size);
+        properties.put("tilewidth", TILE_SIZE);
+        properties.put("tileheight", TILE_SIZE);
+        return map;
+    }
+
+    private static TiledMapTileLayer.Cell cell(StaticTiledMapTile tile) {
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        cell.setTile(tile);
+        return cell;
+    }
+}
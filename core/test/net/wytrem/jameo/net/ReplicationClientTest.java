@@ -0,0 +1,143 @@
+package net.wytrem.jameo.net;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import net.wytrem.jameo.utils.CardDir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationClientTest {
+
+    private static final long TIMEOUT = 5000;
+    private static final int HISTORY = 32;
+
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocate(65536);
+
+    private DatagramChannel server;
+    private SocketAddress address;
+    private ReplicationClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = DatagramChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        client = new ReplicationClient("127.0.0.1", ((InetSocketAddress) server.getLocalAddress()).getPort());
+
+        // Blocking until the HELLO of the client.
+        buffer.clear();
+        address = server.receive(buffer);
+        server.configureBlocking(false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.dispose();
+        server.close();
+    }
+
+    /**
+     * A snapshot as old as the history is dropped without being acknowledged,
+     * rather than decoded over the slot of the latest one.
+     */
+    @Test
+    public void dropsSnapshotsOlderThanTheHistory() throws IOException {
+        send(100, 10f);
+        Snapshot latest = pollUntil(100);
+
+        send(100 - HISTORY, 20f);
+        send(101, 30f);
+        pollUntil(101);
+
+        assertEquals(100, latest.tick);
+        assertEquals(10f, latest.positionX(0), 0f);
+        IntArray acks = acks();
+        assertTrue(acks.contains(100));
+        assertTrue(acks.contains(101));
+        assertFalse(acks.contains(100 - HISTORY));
+    }
+
+    /**
+     * A delta on a baseline the client no longer has is answered with the
+     * latest tick again, for the server to move its baseline to it.
+     */
+    @Test
+    public void acknowledgesTheLatestOnMissingBaselines() throws IOException {
+        send(100, 10f);
+        pollUntil(100);
+        acks();
+
+        Snapshot baseline = new Snapshot();
+        baseline.clear(50);
+        Snapshot delta = new Snapshot();
+        delta.clear(120);
+        delta.add(1, 40f, 0, 0, 0, CardDir.EAST);
+        buffer.clear();
+        buffer.put(ReplicationServer.SNAPSHOT);
+        codec.encode(delta, baseline, buffer);
+        buffer.flip();
+        server.send(buffer, address);
+        send(121, 50f);
+        pollUntil(121);
+
+        IntArray acks = acks();
+        assertEquals(100, acks.first());
+        assertFalse(acks.contains(120));
+    }
+
+    private void send(int tick, float x) throws IOException {
+        Snapshot snapshot = new Snapshot();
+        snapshot.clear(tick);
+        snapshot.add(1, x, 0, 0, 0, CardDir.EAST);
+        buffer.clear();
+        buffer.put(ReplicationServer.SNAPSHOT);
+        codec.encode(snapshot, null, buffer);
+        buffer.flip();
+        server.send(buffer, address);
+    }
+
+    private Snapshot pollUntil(int tick) {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            Snapshot latest = client.poll();
+            if (latest != null && latest.tick == tick) {
+                return latest;
+            }
+            Thread.yield();
+        }
+        Snapshot latest = client.getLatest();
+        assertNotNull("nothing received", latest);
+        assertEquals(tick, latest.tick);
+        return latest;
+    }
+
+    /**
+     * @return the ticks acknowledged since the last call.
+     */
+    private IntArray acks() throws IOException {
+        IntArray acks = new IntArray();
+        while (true) {
+            buffer.clear();
+            if (server.receive(buffer) == null) {
+                return acks;
+            }
+            buffer.flip();
+            if (buffer.get() == ReplicationServer.ACK) {
+                acks.add(buffer.getInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wytrem.jameo.Headless;
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Dormant;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ActivitySystemTest {
+
+    private static final int BODIES = 1000;
+    private static final float SPACING = 64f;
+
+    private World world;
+    private ActivitySystem activitySystem;
+    private ComponentMapper<Position> positions;
+    private int[] ids;
+    private int player;
+
+    @Before
+    public void setUp() {
+        Headless.init();
+        world = new World(new WorldConfigurationBuilder().with(new Box2dSystem(), new PosSyncSystem(), new ActivitySystem()).build());
+        activitySystem = world.getSystem(ActivitySystem.class);
+
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class).build(world);
+        positions = world.getMapper(Position.class);
+        ComponentMapper<Size> sizes = world.getMapper(Size.class);
+
+        int side = (int) Math.ceil(Math.sqrt(BODIES));
+        ids = new int[BODIES];
+        for (int i = 0; i < BODIES; i++) {
+            ids[i] = world.create(archetype);
+            Position pos = positions.get(ids[i]);
+            pos.x = (i % side) * SPACING;
+            pos.y = (i / side) * SPACING;
+            sizes.get(ids[i]).set(16, 16);
+        }
+
+        player = world.create();
+        world.edit(player).create(InputControlled.class);
+        Position center = world.edit(player).create(Position.class);
+        center.x = side * SPACING / 2;
+        center.y = side * SPACING / 2;
+        world.delta = 0;
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+    }
+
+    /**
+     * Exactly the entities beyond the zones sleep, bodies included.
+     */
+    @Test
+    public void putsFarEntitiesToSleep() {
+        tick();
+        assertActivity();
+    }
+
+    /**
+     * Sleeping entities wake when the player comes to them, and the ones left
+     * behind fall asleep.
+     */
+    @Test
+    public void followsThePlayer() {
+        tick();
+        Position center = positions.get(player);
+        float x = center.x, y = center.y;
+
+        center.x = 0;
+        center.y = 0;
+        tick();
+        assertActivity();
+
+        center.x = x;
+        center.y = y;
+        tick();
+        assertActivity();
+    }
+
+    /**
+     * Sleep and wake decisions apply on the next tick.
+     */
+    private void tick() {
+        world.process();
+        world.process();
+    }
+
+    private void assertActivity() {
+        ComponentMapper<Dormant> dormants = world.getMapper(Dormant.class);
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        Position center = positions.get(player);
+        int cx = (int) Math.floor(center.x / ActivitySystem.CELL_SIZE);
+        int cy = (int) Math.floor(center.y / ActivitySystem.CELL_SIZE);
+
+        for (int id : ids) {
+            Position pos = positions.get(id);
+            int distance = Math.max(Math.abs((int) Math.floor(pos.x / ActivitySystem.CELL_SIZE) - cx),
+                    Math.abs((int) Math.floor(pos.y / ActivitySystem.CELL_SIZE) - cy));
+            boolean asleep = activitySystem.isDormant(id);
+            if (distance <= activitySystem.radius) {
+                assertFalse("entity " + id + " " + distance + " cells away", asleep);
+            }
+            else if (distance > activitySystem.radius + 1) {
+                assertTrue("entity " + id + " " + distance + " cells away", asleep);
+            }
+            assertEquals("entity " + id + " dormant", asleep, dormants.has(id));
+            assertEquals("body of entity " + id + " active", !asleep, box2dEntities.get(id).body.isActive());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wytrem.jameo.Headless;
+import net.wytrem.jameo.utils.SpriteVariants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AssetSystemTest {
+
+    private static final String SHEET = "dungeon_tileset.png";
+
+    private World world;
+    private AssetSystem assets;
+
+    @Before
+    public void setUp() {
+        Headless.init();
+        world = new World(new WorldConfigurationBuilder().with(new AssetSystem()).build());
+        assets = world.getSystem(AssetSystem.class);
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+    }
+
+    /**
+     * A released sprite stays packed while another one keeps the atlas: asking
+     * for it again reuses its region.
+     */
+    @Test
+    public void acquiresAgainAReleasedSprite() {
+        final SpriteVariants held = assets.sprite(SHEET, 0, 0, 16, 16);
+        final SpriteVariants released = assets.sprite(SHEET, 16, 0, 16, 16);
+        assets.release(released);
+        assertNull(assets.get(released.name));
+
+        final SpriteVariants again = assets.sprite(SHEET, 16, 0, 16, 16);
+        assertNotNull(again.right());
+        assertSame(held.right().getTexture(), again.right().getTexture());
+        assertEquals(released.right().getRegionX(), again.right().getRegionX());
+        assertEquals(released.right().getRegionY(), again.right().getRegionY());
+        assertSame(again, assets.get(again.name));
+    }
+}
@@ -0,0 +1,135 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wytrem.jameo.CountingGL;
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.tests.FactorySystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MapRenderSystemTest {
+
+    /**
+     * Four chunks a side.
+     */
+    private static final int SIZE = 4 * MapRenderSystem.CHUNK_SIZE;
+    private static final int CHUNK_PIXELS = MapRenderSystem.CHUNK_SIZE * SyntheticMaps.TILE_SIZE;
+
+    private CountingGL gl;
+    private Texture texture;
+    private World world;
+    private TiledMapSystem tiledMapSystem;
+    private MapRenderSystem mapRenderSystem;
+
+    @Before
+    public void setUp() {
+        gl = CountingGL.install();
+        Pixmap pixmap = new Pixmap(64, 64, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new FactorySystem(), new TiledMapSystem(), new Box2dSystem(), new CameraSystem(1f), new MapRenderSystem())
+                .build());
+        tiledMapSystem = world.getSystem(TiledMapSystem.class);
+        mapRenderSystem = world.getSystem(MapRenderSystem.class);
+        tiledMapSystem.load(SyntheticMaps.dungeon(SIZE, 42, new TextureRegion(texture, 0, 0, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE)));
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+        texture.dispose();
+        gl.uninstall();
+    }
+
+    /**
+     * A view of two chunks a side, centered on the corner of the first chunk,
+     * overlaps three chunks a side: one draw per chunk, of all their cells.
+     */
+    @Test
+    public void drawsTheChunksInView() {
+        look(CHUNK_PIXELS, CHUNK_PIXELS, 2 * CHUNK_PIXELS, 2 * CHUNK_PIXELS);
+        gl.reset();
+        world.process();
+
+        assertEquals(9, mapRenderSystem.getVisibleChunks());
+        assertEquals(9, mapRenderSystem.getDrawCalls());
+        assertEquals(9, gl.count("glDrawElements"));
+        assertEquals(cells(0, 0, 2, 2) * 4, mapRenderSystem.getVertices());
+    }
+
+    @Test
+    public void skipsChunksOutOfView() {
+        look(-4 * CHUNK_PIXELS, -4 * CHUNK_PIXELS, 2 * CHUNK_PIXELS, 2 * CHUNK_PIXELS);
+        world.process();
+        gl.reset();
+        world.process();
+
+        assertEquals(0, mapRenderSystem.getVisibleChunks());
+        assertEquals(0, mapRenderSystem.getDrawCalls());
+        assertEquals(0, gl.count("glDrawElements"));
+    }
+
+    /**
+     * Meshes are uploaded on the first frame, then only the chunk of a changed
+     * cell is uploaded again.
+     */
+    @Test
+    public void uploadsChangedChunksOnly() {
+        look(CHUNK_PIXELS, CHUNK_PIXELS, 2 * CHUNK_PIXELS, 2 * CHUNK_PIXELS);
+        gl.reset();
+        world.process();
+        assertTrue(gl.count("glBufferData") > 0);
+        final int vertices = mapRenderSystem.getVertices();
+
+        gl.reset();
+        world.process();
+        assertEquals(0, gl.count("glBufferData"));
+
+        final int rebuilds = mapRenderSystem.getGeometry().getRebuilds();
+        final TiledMapTileLayer ground = tiledMapSystem.layers.first();
+        tiledMapSystem.setCell(ground, MapRenderSystem.CHUNK_SIZE + 1, MapRenderSystem.CHUNK_SIZE + 1, null);
+        gl.reset();
+        world.process();
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(rebuilds + 1, mapRenderSystem.getGeometry().getRebuilds());
+        assertEquals(vertices - 4, mapRenderSystem.getVertices());
+    }
+
+    private void look(float x, float y, float width, float height) {
+        final OrthographicCamera camera = new OrthographicCamera(width, height);
+        camera.position.set(x, y, 0);
+        camera.update();
+        world.getSystem(CameraSystem.class).camera = camera;
+    }
+
+    /**
+     * @return cells of the chunks in a range, bounds included.
+     */
+    private int cells(int cx0, int cy0, int cx1, int cy1) {
+        int cells = 0;
+        for (TiledMapTileLayer layer : tiledMapSystem.layers) {
+            for (int ty = cy0 * MapRenderSystem.CHUNK_SIZE; ty < (cy1 + 1) * MapRenderSystem.CHUNK_SIZE; ty++) {
+                for (int tx = cx0 * MapRenderSystem.CHUNK_SIZE; tx < (cx1 + 1) * MapRenderSystem.CHUNK_SIZE; tx++) {
+                    if (layer.getCell(tx, ty) != null) {
+                        cells++;
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,159 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import net.wytrem.jameo.Headless;
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.utils.InputCommandBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollbackSystemTest {
+
+    private static final int BODIES = 1000;
+    private static final float SPACING = 64f;
+    private static final float DELTA = 1f / 60;
+
+    private World world;
+    private RollbackSystem rollbackSystem;
+    private InputCommandBuffer commands;
+    private ComponentMapper<Position> positions;
+    private Counter skipped;
+    private Counter reporter;
+    private int[] ids;
+    private int player;
+
+    @Before
+    public void setUp() {
+        Headless.init();
+        world = new World(new WorldConfigurationBuilder()
+                .with(new InputSystem(), new Box2dSystem(), new PosSyncSystem(), new Skipped(), new RollbackSystem().skip(Skipped.class),
+                        new Reporter())
+                .build());
+        rollbackSystem = world.getSystem(RollbackSystem.class);
+        commands = world.getSystem(InputSystem.class).getCommands();
+        positions = world.getMapper(Position.class);
+        skipped = world.getSystem(Skipped.class);
+        reporter = world.getSystem(Reporter.class);
+
+        // Far enough apart never to touch: without contacts, simulating again is exact.
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class).build(world);
+        ComponentMapper<Size> sizes = world.getMapper(Size.class);
+        int side = (int) Math.ceil(Math.sqrt(BODIES));
+        ids = new int[BODIES];
+        for (int i = 0; i < BODIES; i++) {
+            ids[i] = world.create(archetype);
+            Position pos = positions.get(ids[i]);
+            pos.x = (i % side) * SPACING;
+            pos.y = (i / side) * SPACING;
+            sizes.get(ids[i]).set(16, 16);
+        }
+        player = world.create(new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class)
+                .add(InputControlled.class).add(Facing.class).build(world));
+        positions.get(player).x = -SPACING * 4;
+        positions.get(player).y = -SPACING * 4;
+        sizes.get(player).set(16, 16);
+
+        world.delta = 0;
+        world.process();
+        Random random = new Random(42);
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        for (int id : ids) {
+            box2dEntities.get(id).setLinearVelocity(random.nextFloat() * 20 - 10, random.nextFloat() * 20 - 10);
+        }
+        world.delta = DELTA;
+        for (int i = 0; i < RollbackSystem.DEFAULT_CAPACITY; i++) {
+            world.process();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+    }
+
+    /**
+     * Simulating again with the same inputs lands on the same state.
+     */
+    @Test
+    public void resimulatesExactly() {
+        float[] before = positions();
+        rollbackSystem.rollback(rollbackSystem.getTick() - 32);
+        float[] after = positions();
+        for (int i = 0; i < before.length; i++) {
+            assertEquals("body " + i / 2, before[i], after[i], 1e-3f);
+        }
+    }
+
+    /**
+     * With a late input, the player moves as if it had come in time.
+     */
+    @Test
+    public void appliesLateInputs() {
+        int late = rollbackSystem.getTick() - 16;
+        for (int tick = late; tick < rollbackSystem.getTick(); tick++) {
+            commands.put(tick, DELTA, InputCommandBuffer.RIGHT, InputCommandBuffer.facingOf(InputCommandBuffer.RIGHT));
+        }
+        float x = positions.get(player).x;
+        rollbackSystem.rollback(late);
+        assertTrue("player at " + positions.get(player).x + " from " + x, positions.get(player).x > x + 1);
+    }
+
+    /**
+     * Skipped systems and the systems after the rollback only see the ticks
+     * that actually happened.
+     */
+    @Test
+    public void runsOnlyTheSimulation() {
+        int skippedTicks = skipped.ticks;
+        int reportedTicks = reporter.ticks;
+        rollbackSystem.rollback(rollbackSystem.getTick() - 32);
+        assertEquals(skippedTicks, skipped.ticks);
+        assertEquals(reportedTicks, reporter.ticks);
+        assertTrue(skipped.isEnabled() && reporter.isEnabled());
+
+        world.process();
+        assertEquals(skippedTicks + 1, skipped.ticks);
+        assertEquals(reportedTicks + 1, reporter.ticks);
+    }
+
+    private float[] positions() {
+        float[] values = new float[ids.length * 2];
+        for (int i = 0; i < ids.length; i++) {
+            values[i * 2] = positions.get(ids[i]).x;
+            values[i * 2 + 1] = positions.get(ids[i]).y;
+        }
+        return values;
+    }
+
+    private abstract static class Counter extends BaseSystem {
+        int ticks;
+
+        @Override
+        protected void processSystem() {
+            ticks++;
+        }
+    }
+
+    private static class Skipped extends Counter {
+    }
+
+    private static class Reporter extends Counter {
+    }
+}
@@ -0,0 +1,131 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import net.wytrem.jameo.Headless;
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.tests.FactorySystem;
+import net.wytrem.jameo.utils.WorldSnapshot;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnapshotSystemTest {
+
+    private static final int MAP_SIZE = 128;
+    private static final int MONSTERS = 1000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private World world;
+    private SnapshotSystem snapshotSystem;
+    private EntitySubscription all;
+
+    @Before
+    public void setUp() {
+        Headless.init();
+        world = new World(new WorldConfigurationBuilder()
+                .with(new FactorySystem(), new TiledMapSystem(), new Box2dSystem(), new PosSyncSystem(), new SnapshotSystem())
+                .build());
+        snapshotSystem = world.getSystem(SnapshotSystem.class);
+        all = world.getAspectSubscriptionManager().get(Aspect.all());
+        world.getSystem(TiledMapSystem.class).load(SyntheticMaps.dungeon(MAP_SIZE, 42));
+        world.delta = 0;
+        world.process();
+
+        Random random = new Random(42);
+        IntArray positions = new IntArray();
+        for (int i = 0; i < MONSTERS; i++) {
+            positions.add(random.nextInt(MAP_SIZE * SyntheticMaps.TILE_SIZE), random.nextInt(MAP_SIZE * SyntheticMaps.TILE_SIZE));
+        }
+        MapProperties properties = new MapProperties();
+        properties.put("entity", "monster");
+        FactorySystem factorySystem = world.getSystem(FactorySystem.class);
+        factorySystem.beginBatch("monsters");
+        factorySystem.spawn("monster", positions, properties);
+        factorySystem.endBatch();
+        world.process();
+
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        IntBag entities = all.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            if (box2dEntities.has(entities.get(i))) {
+                box2dEntities.get(entities.get(i)).setLinearVelocity(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+            }
+        }
+        world.delta = 1f / 60;
+        for (int i = 0; i < 10; i++) {
+            world.process();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+    }
+
+    /**
+     * A snapshot read back from its file and restored captures the same
+     * entities, components and bodies again.
+     */
+    @Test
+    public void restoresWhatItCaptured() throws IOException {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshotSystem.capture(snapshot);
+        File file = folder.newFile("world" + WorldSnapshot.EXTENSION);
+        snapshot.write(new FileHandle(file));
+        WorldSnapshot loaded = WorldSnapshot.read(new FileHandle(file));
+        assertEquals(all.getEntities().size(), snapshot.size());
+        assertEquals(snapshot.size(), loaded.size());
+
+        snapshotSystem.restore(loaded);
+        assertEquals(snapshot.size(), all.getEntities().size());
+        WorldSnapshot restored = new WorldSnapshot();
+        snapshotSystem.capture(restored);
+
+        // Entities got new ids: match them by their state.
+        Integer[] expected = sorted(snapshot);
+        Integer[] actual = sorted(restored);
+        for (int i = 0; i < expected.length; i++) {
+            int e = expected[i], a = actual[i];
+            String entity = "entity " + snapshot.getId(e);
+            assertEquals(entity + " components", snapshot.getComponents(e), restored.getComponents(a));
+            for (int field : new int[]{WorldSnapshot.X, WorldSnapshot.Y, WorldSnapshot.WIDTH, WorldSnapshot.HEIGHT, WorldSnapshot.BODY_X,
+                    WorldSnapshot.BODY_Y, WorldSnapshot.BODY_ANGLE, WorldSnapshot.BODY_VX, WorldSnapshot.BODY_VY}) {
+                assertEquals(entity + " field " + field, snapshot.getFloat(e, field), restored.getFloat(a, field), 1e-4f);
+            }
+            assertEquals(entity + " body flags", snapshot.getInt(e, WorldSnapshot.BODY_FLAGS), restored.getInt(a, WorldSnapshot.BODY_FLAGS));
+        }
+    }
+
+    private static Integer[] sorted(WorldSnapshot snapshot) {
+        Integer[] slots = new Integer[snapshot.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, Comparator.<Integer>comparingDouble(slot -> snapshot.getFloat(slot, WorldSnapshot.X))
+                .thenComparingDouble(slot -> snapshot.getFloat(slot, WorldSnapshot.Y)));
+        return slots;
+    }
+}
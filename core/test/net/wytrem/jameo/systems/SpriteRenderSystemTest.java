@@ -0,0 +1,112 @@
+package net.wytrem.jameo.systems;
+
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.physics.box2d.Body;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wytrem.jameo.CountingGL;
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.components.SpriteComponent;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpriteRenderSystemTest {
+
+    private static final float IN_VIEW = 100f;
+    private static final float OUT_OF_VIEW = 1000f;
+
+    private CountingGL gl;
+    private Texture texture;
+    private World world;
+    private RollbackSystem rollbackSystem;
+    private Body body;
+
+    @Before
+    public void setUp() {
+        gl = CountingGL.install();
+        Pixmap pixmap = new Pixmap(16, 16, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new Box2dSystem(), new PosSyncSystem(), new RollbackSystem(), new CameraSystem(1f), new SpriteRenderSystem())
+                .build());
+        rollbackSystem = world.getSystem(RollbackSystem.class);
+
+        OrthographicCamera camera = new OrthographicCamera(2 * IN_VIEW, 2 * IN_VIEW);
+        camera.position.set(IN_VIEW, IN_VIEW, 0);
+        camera.update();
+        world.getSystem(CameraSystem.class).camera = camera;
+
+        int sprite = world.create(new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class)
+                .add(SpriteComponent.class).build(world));
+        world.getMapper(Position.class).get(sprite).x = IN_VIEW;
+        world.getMapper(Position.class).get(sprite).y = IN_VIEW;
+        world.getMapper(Size.class).get(sprite).set(16, 16);
+        world.getMapper(SpriteComponent.class).get(sprite).sprite = new TextureRegion(texture);
+        world.delta = 0;
+        world.process();
+        body = world.getMapper(Box2dEntity.class).get(sprite).body;
+    }
+
+    @After
+    public void tearDown() {
+        world.dispose();
+        texture.dispose();
+        gl.uninstall();
+    }
+
+    /**
+     * Sprites are drawn where their body moved them.
+     */
+    @Test
+    public void followsBodies() {
+        assertEquals(1, draws());
+
+        moveTo(OUT_OF_VIEW);
+        assertEquals(0, draws());
+
+        moveTo(IN_VIEW);
+        assertEquals(1, draws());
+    }
+
+    /**
+     * Positions put back by a rollback move the sprites too, although their
+     * bodies are where they were put back.
+     */
+    @Test
+    public void followsRollbacks() {
+        int tick = rollbackSystem.getTick();
+        moveTo(OUT_OF_VIEW);
+        assertEquals(0, draws());
+
+        rollbackSystem.rollback(tick);
+        assertEquals(1, draws());
+    }
+
+    private void moveTo(float position) {
+        body.setTransform(position, position, 0);
+        world.process();
+    }
+
+    /**
+     * @return draw calls of a frame.
+     */
+    private int draws() {
+        gl.reset();
+        world.process();
+        return gl.count("glDrawElements");
+    }
+}
@@ -0,0 +1,81 @@
+package net.wytrem.jameo.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchExtrapolatorTest {
+
+    private static final int ENTITIES = 1000;
+
+    /**
+     * Fed the same samples, including removals, the batch reads the same
+     * positions as one {@link FloatExtrapolator} per entity.
+     */
+    @Test
+    public void readsLikeFloatExtrapolators() {
+        final Random random = new Random(42);
+        // A tenth more than needed, removed afterwards so that dense indices get shuffled.
+        final int total = ENTITIES + ENTITIES / 10;
+
+        FloatExtrapolator[] all = new FloatExtrapolator[total];
+        int[] handles = new int[total];
+        BatchExtrapolator batch = new BatchExtrapolator(2, total);
+        for (int i = 0; i < total; i++) {
+            all[i] = new FloatExtrapolator(2) {
+            };
+            handles[i] = batch.add();
+        }
+
+        float[] pos = new float[2];
+        float[] vel = new float[2];
+        for (int sample = 0; sample < 40; sample++) {
+            final double packetTime = sample / 20.0;
+            for (int i = 0; i < total; i++) {
+                pos[0] = random.nextFloat() * 1000;
+                pos[1] = random.nextFloat() * 1000;
+                final double curTime = packetTime + random.nextDouble() * 0.1;
+                if (sample == 0) {
+                    all[i].reset(packetTime, curTime, pos);
+                    batch.reset(handles[i], packetTime, curTime, pos);
+                }
+                else if ((i & 1) == 0) {
+                    all[i].addSample(packetTime, curTime, pos);
+                    batch.addSample(handles[i], packetTime, curTime, pos);
+                }
+                else {
+                    vel[0] = random.nextFloat() * 50;
+                    vel[1] = random.nextFloat() * 50;
+                    all[i].addSample(packetTime, curTime, pos, vel);
+                    batch.addSample(handles[i], packetTime, curTime, pos, vel);
+                }
+            }
+        }
+
+        // Remove every tenth entity, keep the others in dense index order.
+        FloatExtrapolator[] single = new FloatExtrapolator[ENTITIES];
+        boolean[] removed = new boolean[total];
+        for (int i = 0, r = 0; i < total && r < total - ENTITIES; i += 10, r++) {
+            batch.remove(handles[i]);
+            removed[i] = true;
+        }
+        for (int i = 0; i < total; i++) {
+            if (!removed[i]) {
+                single[batch.indexOf(handles[i])] = all[i];
+            }
+        }
+
+        float[] out = new float[2];
+        float[] batchOut = new float[ENTITIES * 2];
+        for (double t = 1.9; t < 2.5; t += 0.01) {
+            batch.readPositions(t, batchOut);
+            for (int i = 0; i < ENTITIES; i++) {
+                single[i].readPosition(t, out);
+                assertEquals("x of entity " + i + " at " + t, out[0], batchOut[i * 2], 0f);
+                assertEquals("y of entity " + i + " at " + t, out[1], batchOut[i * 2 + 1], 0f);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.wytrem.jameo.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShadowcastingFovTest {
+
+    /**
+     * In the open the view is the disc of the radius.
+     */
+    @Test
+    public void seesADiscInTheOpen() {
+        for (int radius : new int[]{8, 16}) {
+            final int size = radius * 4;
+            final MapMask open = new MapMask(size, size, 16, 16);
+            final MapMask view = open.copy();
+            final int c = size / 2;
+            new ShadowcastingFov(open).compute(c, c, radius, view, null);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    final int dx = x - c, dy = y - c;
+                    assertEquals("radius " + radius + " at " + dx + "," + dy, dx * dx + dy * dy <= radius * radius + radius,
+                            view.atGrid(x, y, false));
+                }
+            }
+        }
+    }
+
+    /**
+     * A wall is seen, and hides what is right behind it.
+     */
+    @Test
+    public void wallCastsAShadow() {
+        final int radius = 8;
+        final int size = radius * 4;
+        final int c = size / 2;
+        final MapMask wall = new MapMask(size, size, 16, 16);
+        wall.set(c + 2, c);
+        final MapMask view = new MapMask(size, size, 16, 16);
+        new ShadowcastingFov(wall).compute(c, c, radius, view, null);
+
+        assertTrue(view.atGrid(c + 2, c, false));
+        assertFalse(view.atGrid(c + 3, c, false));
+        assertFalse(view.atGrid(c + radius, c, false));
+    }
+}
@@ -0,0 +1,100 @@
+package net.wytrem.jameo.utils;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wytrem.jameo.Headless;
+import net.wytrem.jameo.SyntheticMaps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TileChunkGeometryTest {
+
+    private static final int SIZE = 64;
+    private static final int CHUNK_SIZE = 16;
+
+    private Texture texture;
+    private Array<TiledMapTileLayer> layers;
+    private TileChunkGeometry geometry;
+
+    @Before
+    public void setUp() {
+        Headless.init();
+        Pixmap pixmap = new Pixmap(64, 64, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+
+        TiledMap map = SyntheticMaps.dungeon(SIZE, 42, new TextureRegion(texture, 0, 0, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE));
+        layers = map.getLayers().getByType(TiledMapTileLayer.class);
+        geometry = new TileChunkGeometry(layers, SIZE, SIZE, CHUNK_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        texture.dispose();
+    }
+
+    /**
+     * One sprite per cell, and a single texture makes one run per chunk.
+     */
+    @Test
+    public void buildsOneSpritePerCell() {
+        for (int chunk = 0; chunk < geometry.getChunkCount(); chunk++) {
+            geometry.build(chunk);
+            final int cells = cells(chunk);
+            assertEquals("sprites of chunk " + chunk, cells, geometry.getSprites(chunk));
+            assertEquals("runs of chunk " + chunk, cells > 0 ? 1 : 0, geometry.getRunCount(chunk));
+            assertFalse(geometry.isDirty(chunk));
+        }
+    }
+
+    /**
+     * Changing a cell only rebuilds its chunk.
+     */
+    @Test
+    public void rebuildsTheChunkOfAChangedCell() {
+        for (int chunk = 0; chunk < geometry.getChunkCount(); chunk++) {
+            geometry.build(chunk);
+        }
+
+        final int rebuilds = geometry.getRebuilds();
+        final int tx = CHUNK_SIZE + 1;
+        final int ty = CHUNK_SIZE + 1;
+        final int chunk = geometry.getChunksX() + 1;
+        layers.first().setCell(tx, ty, null);
+        geometry.invalidate(tx, ty);
+        for (int i = 0; i < geometry.getChunkCount(); i++) {
+            if (geometry.isDirty(i)) {
+                geometry.build(i);
+            }
+        }
+
+        assertEquals(rebuilds + 1, geometry.getRebuilds());
+        assertEquals(cells(chunk), geometry.getSprites(chunk));
+    }
+
+    private int cells(int chunk) {
+        final int x0 = (chunk % geometry.getChunksX()) * CHUNK_SIZE;
+        final int y0 = (chunk / geometry.getChunksX()) * CHUNK_SIZE;
+        int cells = 0;
+        for (TiledMapTileLayer layer : layers) {
+            for (int ty = y0; ty < Math.min(y0 + CHUNK_SIZE, SIZE); ty++) {
+                for (int tx = x0; tx < Math.min(x0 + CHUNK_SIZE, SIZE); tx++) {
+                    if (layer.getCell(tx, ty) != null) {
+                        cells++;
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+}
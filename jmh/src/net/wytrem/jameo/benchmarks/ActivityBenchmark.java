@@ -0,0 +1,111 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.systems.ActivitySystem;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.PosSyncSystem;
+
+/**
+ * One physics and position sync tick with N moving bodies spread over a large
+ * map and a player in the middle, with and without activity zones.
+ * ActivitySystemTest checks which entities sleep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityBenchmark {
+
+    private static final float SPACING = 64f;
+
+    @Param({"1000", "10000", "50000"})
+    int bodies;
+
+    @Param({"false", "true"})
+    boolean activity;
+
+    World world;
+    ComponentMapper<Position> positions;
+    int[] ids;
+    int player;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        WorldConfigurationBuilder builder = new WorldConfigurationBuilder().with(new Box2dSystem(), new PosSyncSystem());
+        if (activity) {
+            builder.with(new ActivitySystem());
+        }
+        world = new World(builder.build());
+
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class).build(world);
+        positions = world.getMapper(Position.class);
+        ComponentMapper<Size> sizes = world.getMapper(Size.class);
+
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        ids = new int[bodies];
+        for (int i = 0; i < bodies; i++) {
+            ids[i] = world.create(archetype);
+            Position pos = positions.get(ids[i]);
+            pos.x = (i % side) * SPACING;
+            pos.y = (i / side) * SPACING;
+            sizes.get(ids[i]).set(16, 16);
+        }
+
+        player = world.create();
+        world.edit(player).create(InputControlled.class);
+        Position center = world.edit(player).create(Position.class);
+        center.x = side * SPACING / 2;
+        center.y = side * SPACING / 2;
+
+        world.delta = 0;
+        world.process();
+        world.process();
+
+        Random random = new Random(42);
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        for (int id : ids) {
+            box2dEntities.get(id).setLinearVelocity(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        world.delta = 1f / 60;
+        world.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
@@ -0,0 +1,78 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.utils.BakedMap;
+import net.wytrem.jameo.utils.SharedMap;
+
+/**
+ * Everything derived from a map on load (masks, walls, spawns) computed from
+ * its layers, against reading it all back from a baked file. The TMX parsing
+ * that baking also saves is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BakedMapBenchmark {
+
+    @Param({"64", "256", "512"})
+    int size;
+
+    TiledMap map;
+    FileHandle baked;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Benchmarks.init();
+
+        map = SyntheticMaps.dungeon(size, 42);
+        File file = File.createTempFile("synthetic", BakedMap.EXTENSION);
+        file.deleteOnExit();
+        baked = new FileHandle(file);
+        BakedMap.write(new SharedMap("synthetic", map), baked);
+
+        SharedMap read = BakedMap.read("synthetic", baked);
+        if (read.getSpawnCount() == 0 || read.getWalls().size == 0) {
+            throw new IllegalStateException("Baked map lost its spawns or walls");
+        }
+        read.dispose();
+    }
+
+    @Benchmark
+    public SharedMap derive() {
+        return new SharedMap("synthetic", map);
+    }
+
+    @Benchmark
+    public SharedMap read() {
+        return BakedMap.read("synthetic", baked);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        baked.delete();
+    }
+}
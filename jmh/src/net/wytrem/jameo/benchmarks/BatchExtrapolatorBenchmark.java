@@ -0,0 +1,119 @@
+package net.wytrem.jameo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.utils.BatchExtrapolator;
+import net.wytrem.jameo.utils.FloatExtrapolator;
+
+/**
+ * Reading the positions of every remote entity for a frame: one
+ * {@link FloatExtrapolator} per entity against one {@link BatchExtrapolator},
+ * fed the same samples. BatchExtrapolatorTest checks that they agree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchExtrapolatorBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int entities;
+
+    FloatExtrapolator[] single;
+    BatchExtrapolator batch;
+    float[] out;
+    float[] batchOut;
+    double time;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(42);
+        // A tenth more than needed, removed afterwards so that dense indices get shuffled.
+        final int total = entities + entities / 10;
+
+        FloatExtrapolator[] all = new FloatExtrapolator[total];
+        int[] handles = new int[total];
+        batch = new BatchExtrapolator(2, total);
+        for (int i = 0; i < total; i++) {
+            all[i] = new FloatExtrapolator(2) {
+            };
+            handles[i] = batch.add();
+        }
+
+        float[] pos = new float[2];
+        float[] vel = new float[2];
+        for (int sample = 0; sample < 40; sample++) {
+            final double packetTime = sample / 20.0;
+            for (int i = 0; i < total; i++) {
+                pos[0] = random.nextFloat() * 1000;
+                pos[1] = random.nextFloat() * 1000;
+                final double curTime = packetTime + random.nextDouble() * 0.1;
+                if (sample == 0) {
+                    all[i].reset(packetTime, curTime, pos);
+                    batch.reset(handles[i], packetTime, curTime, pos);
+                }
+                else if ((i & 1) == 0) {
+                    all[i].addSample(packetTime, curTime, pos);
+                    batch.addSample(handles[i], packetTime, curTime, pos);
+                }
+                else {
+                    vel[0] = random.nextFloat() * 50;
+                    vel[1] = random.nextFloat() * 50;
+                    all[i].addSample(packetTime, curTime, pos, vel);
+                    batch.addSample(handles[i], packetTime, curTime, pos, vel);
+                }
+            }
+        }
+
+        // Remove every tenth entity, keep the others in dense index order.
+        single = new FloatExtrapolator[entities];
+        boolean[] removed = new boolean[total];
+        for (int i = 0, r = 0; i < total && r < total - entities; i += 10, r++) {
+            batch.remove(handles[i]);
+            removed[i] = true;
+        }
+        for (int i = 0; i < total; i++) {
+            if (!removed[i]) {
+                single[batch.indexOf(handles[i])] = all[i];
+            }
+        }
+
+        out = new float[2];
+        batchOut = new float[entities * 2];
+        time = 2.0;
+    }
+
+    @Benchmark
+    public float perInstance() {
+        time += 1.0 / 60;
+        float sum = 0;
+        for (int i = 0; i < entities; i++) {
+            single[i].readPosition(time, out);
+            sum += out[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float batched() {
+        time += 1.0 / 60;
+        batch.readPositions(time, batchOut);
+        return batchOut[0];
+    }
+}
@@ -0,0 +1,19 @@
+package net.wytrem.jameo.benchmarks;
+
+import net.wytrem.jameo.Headless;
+
+/**
+ * Headless libGDX bootstrap shared by the benchmarks.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Start a headless application once per JVM, as the tests do.
+     */
+    public static void init() {
+        Headless.init();
+    }
+}
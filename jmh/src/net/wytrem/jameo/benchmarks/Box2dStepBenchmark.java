@@ -0,0 +1,87 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.systems.Box2dSystem;
+
+/**
+ * One {@link Box2dSystem} tick with N dynamic bodies bouncing around.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Box2dStepBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int bodies;
+
+    World world;
+    Box2dSystem box2dSystem;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder().with(new Box2dSystem()).build());
+        box2dSystem = world.getSystem(Box2dSystem.class);
+
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class).build(world);
+        ComponentMapper<Position> positions = world.getMapper(Position.class);
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        int[] ids = new int[bodies];
+        for (int i = 0; i < bodies; i++) {
+            ids[i] = world.create(archetype);
+            Position pos = positions.get(ids[i]);
+            pos.x = (i % side) * 32;
+            pos.y = (i / side) * 32;
+        }
+
+        world.delta = 0;
+        world.process();
+
+        Random random = new Random(42);
+        for (int id : ids) {
+            box2dEntities.get(id).setLinearVelocity(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+        }
+    }
+
+    @Benchmark
+    public void step() {
+        world.delta = 1f / 60;
+        box2dSystem.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
@@ -0,0 +1,154 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.utils.ColliderBaker;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * Walls built one body per solid tile (before {@link ColliderBaker}) against
+ * merged rectangles: time to create them, and step time of a world holding them
+ * plus {@link #MOVERS} dynamic bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollidersBenchmark {
+
+    private static final int MOVERS = 500;
+    private static final float TILE = SyntheticMaps.TILE_SIZE;
+
+    @Param({"64", "256", "512"})
+    int size;
+
+    MapMask solid;
+    World perTileWorld;
+    World mergedWorld;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        solid = MapMask.generateAll(size, size, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE,
+                SyntheticMaps.dungeon(size, 42).getLayers().getByType(TiledMapTileLayer.class)).get("solid");
+
+        perTileWorld = perTileWalls();
+        mergedWorld = mergedWalls();
+        addMovers(perTileWorld);
+        addMovers(mergedWorld);
+    }
+
+    @Benchmark
+    public int loadPerTile() {
+        World world = perTileWalls();
+        int bodies = world.getBodyCount();
+        world.dispose();
+        return bodies;
+    }
+
+    @Benchmark
+    public int loadMerged() {
+        World world = mergedWalls();
+        int bodies = world.getBodyCount();
+        world.dispose();
+        return bodies;
+    }
+
+    @Benchmark
+    public void stepPerTile() {
+        perTileWorld.step(1f / 60, 6, 2);
+    }
+
+    @Benchmark
+    public void stepMerged() {
+        mergedWorld.step(1f / 60, 6, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        perTileWorld.dispose();
+        mergedWorld.dispose();
+    }
+
+    private World perTileWalls() {
+        World world = new World(new Vector2(), true);
+        for (int ty = 0; ty < size; ty++) {
+            for (int tx = 0; tx < size; tx++) {
+                if (solid.atGrid(tx, ty, false)) {
+                    wall(world, tx * TILE, ty * TILE, TILE, TILE);
+                }
+            }
+        }
+        return world;
+    }
+
+    private World mergedWalls() {
+        World world = new World(new Vector2(), true);
+        IntArray rects = new IntArray();
+        ColliderBaker.bake(solid, rects);
+        for (int i = 0; i < rects.size; i += 4) {
+            int tw = rects.get(i + 2);
+            int th = rects.get(i + 3);
+            wall(world, (rects.get(i) + (tw - 1) * 0.5f) * TILE, (rects.get(i + 1) + (th - 1) * 0.5f) * TILE, tw * TILE, th * TILE);
+        }
+        return world;
+    }
+
+    private void wall(World world, float x, float y, float width, float height) {
+        BodyDef bd = new BodyDef();
+        bd.type = BodyDef.BodyType.StaticBody;
+        bd.position.set(x, y);
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(width / 2, height / 2);
+        world.createBody(bd).createFixture(shape, 1);
+        shape.dispose();
+    }
+
+    private void addMovers(World world) {
+        Random random = new Random(42);
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(TILE / 2, TILE / 2);
+        for (int i = 0; i < MOVERS; i++) {
+            int tx, ty;
+            do {
+                tx = random.nextInt(size);
+                ty = random.nextInt(size);
+            } while (solid.atGrid(tx, ty, true));
+
+            BodyDef bd = new BodyDef();
+            bd.type = BodyDef.BodyType.DynamicBody;
+            bd.position.set(tx * TILE, ty * TILE);
+            Body body = world.createBody(bd);
+            body.createFixture(shape, 0.1f);
+            body.setLinearVelocity(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+        }
+        shape.dispose();
+    }
+}
@@ -0,0 +1,136 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.utils.MapMask;
+import net.wytrem.jameo.utils.ShadowcastingFov;
+
+/**
+ * One tick of field of view for players walking at a tile every
+ * {@link #TICKS_PER_TILE} ticks: computing every view each tick, against only
+ * the views of players that entered another tile, merged for the fog.
+ * ShadowcastingFovTest checks the views.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldOfViewBenchmark {
+
+    private static final int SIZE = 256;
+    private static final int TICKS_PER_TILE = 8;
+
+    @Param({"1", "16"})
+    int players;
+
+    @Param({"8", "16"})
+    int radius;
+
+    MapMask solid;
+    ShadowcastingFov fov;
+    MapMask[] visible, explored;
+    MapMask seen;
+    int[] playerX, playerY, lastX, lastY;
+    int tick;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        TiledMap map = SyntheticMaps.dungeon(SIZE, 42);
+        solid = MapMask.generateAll(SIZE, SIZE, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE,
+                map.getLayers().getByType(TiledMapTileLayer.class)).get("solid");
+        fov = new ShadowcastingFov(solid);
+        seen = new MapMask(SIZE, SIZE, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE);
+
+        Random random = new Random(42);
+        visible = new MapMask[players];
+        explored = new MapMask[players];
+        playerX = new int[players];
+        playerY = new int[players];
+        lastX = new int[players];
+        lastY = new int[players];
+        for (int p = 0; p < players; p++) {
+            visible[p] = seen.copy();
+            explored[p] = seen.copy();
+            do {
+                playerX[p] = random.nextInt(SIZE);
+                playerY[p] = random.nextInt(SIZE);
+            } while (solid.atGrid(playerX[p], playerY[p], true));
+            lastX[p] = -1;
+        }
+    }
+
+    private void walk() {
+        tick++;
+        if (tick % TICKS_PER_TILE != 0) {
+            return;
+        }
+        for (int p = 0; p < players; p++) {
+            final int nx = playerX[p] + ((tick / TICKS_PER_TILE + p) % 4 < 2 ? 1 : -1);
+            if (!solid.atGrid(nx, playerY[p], true)) {
+                playerX[p] = nx;
+            }
+        }
+    }
+
+    private int view(int p) {
+        visible[p].fill(0, 0, SIZE, SIZE, false);
+        return fov.compute(playerX[p], playerY[p], radius, visible[p], explored[p]);
+    }
+
+    private void merge() {
+        seen.fill(0, 0, SIZE, SIZE, false);
+        for (int p = 0; p < players; p++) {
+            seen.or(visible[p]);
+        }
+    }
+
+    @Benchmark
+    public int everyTick() {
+        walk();
+        int lit = 0;
+        for (int p = 0; p < players; p++) {
+            lit += view(p);
+        }
+        merge();
+        return lit;
+    }
+
+    @Benchmark
+    public int onTileChange() {
+        walk();
+        int lit = 0;
+        for (int p = 0; p < players; p++) {
+            if (playerX[p] != lastX[p] || playerY[p] != lastY[p]) {
+                lastX[p] = playerX[p];
+                lastY[p] = playerY[p];
+                lit += view(p);
+            }
+        }
+        if (lit > 0) {
+            merge();
+        }
+        return lit;
+    }
+}
@@ -0,0 +1,57 @@
+package net.wytrem.jameo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.utils.FloatExtrapolator;
+
+/**
+ * {@link FloatExtrapolator} sample intake and position reads for one entity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloatExtrapolatorBenchmark {
+
+    FloatExtrapolator extrapolator;
+    float[] pos = new float[2];
+    float[] out = new float[2];
+    double time;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        extrapolator = new FloatExtrapolator(2) {
+        };
+        extrapolator.reset(0, 0.05, pos);
+        time = 0;
+    }
+
+    @Benchmark
+    public boolean addSample() {
+        time += 1.0 / 20;
+        pos[0] += 1;
+        pos[1] -= 0.5f;
+        return extrapolator.addSample(time, time + 0.05, pos);
+    }
+
+    @Benchmark
+    public float readPosition() {
+        time += 1.0 / 60;
+        extrapolator.readPosition(time, out);
+        return out[0];
+    }
+}
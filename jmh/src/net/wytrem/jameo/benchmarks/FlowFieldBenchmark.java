@@ -0,0 +1,117 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.systems.FlowFieldSystem;
+import net.wytrem.jameo.utils.FlowField;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * One tick of chasing: players moving a tile and their fields stepping, then
+ * every monster reading its direction from the field of the closest player.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowFieldBenchmark {
+
+    private static final int SIZE = 256;
+
+    @Param({"1", "4"})
+    int players;
+
+    @Param({"100", "1000", "10000"})
+    int monsters;
+
+    MapMask solid;
+    FlowField[] fields;
+    int[] playerX, playerY;
+    int[] monsterX, monsterY;
+    final Vector2 direction = new Vector2();
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        TiledMap map = SyntheticMaps.dungeon(SIZE, 42);
+        solid = MapMask.generateAll(SIZE, SIZE, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE,
+                map.getLayers().getByType(TiledMapTileLayer.class)).get("solid");
+
+        random = new Random(42);
+        fields = new FlowField[players];
+        playerX = new int[players];
+        playerY = new int[players];
+        for (int p = 0; p < players; p++) {
+            fields[p] = new FlowField(FlowFieldSystem.RADIUS);
+            fields[p].setBlocked(solid);
+            do {
+                playerX[p] = random.nextInt(SIZE);
+                playerY[p] = random.nextInt(SIZE);
+            } while (solid.atGrid(playerX[p], playerY[p], true));
+            fields[p].target(playerX[p], playerY[p]);
+            while (!fields[p].isReady()) {
+                fields[p].step(Integer.MAX_VALUE);
+            }
+        }
+
+        // Monsters around the players, within reach of their fields.
+        monsterX = new int[monsters];
+        monsterY = new int[monsters];
+        for (int m = 0; m < monsters; m++) {
+            int p = m % players;
+            monsterX[m] = playerX[p] + random.nextInt(FlowFieldSystem.RADIUS * 2) - FlowFieldSystem.RADIUS;
+            monsterY[m] = playerY[p] + random.nextInt(FlowFieldSystem.RADIUS * 2) - FlowFieldSystem.RADIUS;
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        for (int p = 0; p < players; p++) {
+            int x = playerX[p] + random.nextInt(3) - 1;
+            int y = playerY[p] + random.nextInt(3) - 1;
+            if (!solid.atGrid(x, y, true)) {
+                playerX[p] = x;
+                playerY[p] = y;
+            }
+            fields[p].target(playerX[p], playerY[p]);
+            fields[p].step(FlowFieldSystem.DEFAULT_BUDGET);
+        }
+
+        int moving = 0;
+        for (int m = 0; m < monsters; m++) {
+            int best = 0;
+            for (int p = 1; p < players; p++) {
+                if (fields[p].distance(monsterX[m], monsterY[m]) < fields[best].distance(monsterX[m], monsterY[m])) {
+                    best = p;
+                }
+            }
+            if (fields[best].direction(monsterX[m], monsterY[m], direction)) {
+                moving++;
+            }
+        }
+        return moving;
+    }
+}
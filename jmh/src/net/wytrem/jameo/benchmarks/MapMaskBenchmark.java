@@ -0,0 +1,86 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.utils.MapMask;
+
+/**
+ * {@link MapMask} construction from tile layers, and lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapMaskBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"64", "256", "1024"})
+    int size;
+
+    Array<TiledMapTileLayer> layers;
+    MapMask solid;
+    int[] xs, ys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        TiledMap map = SyntheticMaps.dungeon(size, 42);
+        layers = map.getLayers().getByType(TiledMapTileLayer.class);
+        solid = build().get("solid");
+
+        Random random = new Random(42);
+        xs = new int[LOOKUPS];
+        ys = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            xs[i] = random.nextInt(size * SyntheticMaps.TILE_SIZE);
+            ys[i] = random.nextInt(size * SyntheticMaps.TILE_SIZE);
+        }
+    }
+
+    private ObjectMap<String, MapMask> build() {
+        return MapMask.generateAll(size, size, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE, layers);
+    }
+
+    @Benchmark
+    public ObjectMap<String, MapMask> construct() {
+        return build();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void atScreen(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(solid.atScreen(xs[i], ys[i], true));
+        }
+    }
+
+    @Benchmark
+    public int countRooms() {
+        return solid.count(0, 0, size, size);
+    }
+}
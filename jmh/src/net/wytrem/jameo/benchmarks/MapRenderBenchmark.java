@@ -0,0 +1,104 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.CameraSystem;
+import net.wytrem.jameo.systems.MapRenderSystem;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.FactorySystem;
+
+/**
+ * CPU side of one frame of map drawing over a 1280x720 view, GL calls being
+ * no-ops: the tiled map renderer, which submits every visible cell to a batch
+ * again, against {@link MapRenderSystem} drawing its cached chunks.
+ * MapRenderSystemTest checks what the latter draws.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapRenderBenchmark {
+
+    @Param({"64", "256"})
+    int size;
+
+    Texture texture;
+    World world;
+    MapRenderSystem mapRenderSystem;
+    SpriteBatch batch;
+    OrthogonalTiledMapRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        Pixmap pixmap = new Pixmap(64, 64, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+        TiledMap map = SyntheticMaps.dungeon(size, 42, new TextureRegion(texture, 0, 0, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE));
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new FactorySystem(), new TiledMapSystem(), new Box2dSystem(), new CameraSystem(1f), new MapRenderSystem())
+                .build());
+        mapRenderSystem = world.getSystem(MapRenderSystem.class);
+
+        final OrthographicCamera camera = new OrthographicCamera(1280, 720);
+        camera.position.set(640, 360, 0);
+        camera.update();
+        world.getSystem(CameraSystem.class).camera = camera;
+
+        // Sets the map up, entity tiles cleared, and uploads the chunks in view.
+        world.getSystem(TiledMapSystem.class).load(map);
+        world.process();
+
+        batch = new SpriteBatch();
+        renderer = new OrthogonalTiledMapRenderer(map, batch);
+        renderer.setView(camera);
+    }
+
+    @Benchmark
+    public void tiledMapRenderer() {
+        renderer.render();
+    }
+
+    @Benchmark
+    public int mapRenderSystem() {
+        mapRenderSystem.process();
+        return mapRenderSystem.getVertices();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batch.dispose();
+        world.dispose();
+        texture.dispose();
+    }
+}
@@ -0,0 +1,90 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.systems.ParallelIteratingSystem;
+import net.wytrem.jameo.systems.SpriteOrientationSystem;
+import net.wytrem.jameo.utils.CardDir;
+import net.wytrem.jameo.utils.SpriteVariants;
+
+/**
+ * {@link SpriteOrientationSystem} run serially and through
+ * {@link ParallelIteratingSystem} on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelIterationBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    int entities;
+
+    @Param({"true", "false"})
+    boolean parallel;
+
+    World world;
+    SpriteOrientationSystem system;
+    ComponentMapper<Facing> facings;
+    int turn;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder().with(new SpriteOrientationSystem()).build());
+        system = world.getSystem(SpriteOrientationSystem.class);
+        system.threshold = parallel ? ParallelIteratingSystem.MIN_RANGE : Integer.MAX_VALUE;
+
+        SpriteVariants variants = new SpriteVariants("benchmark", new TextureRegion());
+        Archetype archetype = new ArchetypeBuilder().add(Facing.class).add(SpriteComponent.class).build(world);
+        ComponentMapper<SpriteComponent> sprites = world.getMapper(SpriteComponent.class);
+        for (int i = 0; i < entities; i++) {
+            sprites.get(world.create(archetype)).variants = variants;
+        }
+        facings = world.getMapper(Facing.class);
+
+        world.delta = 0;
+        world.process();
+    }
+
+    @Benchmark
+    public void orient() {
+        // Turn every entity around so that each one gets a new sprite.
+        CardDir facing = (turn++ & 1) == 0 ? CardDir.WEST : CardDir.EAST;
+        for (int i = 0; i < entities; i++) {
+            facings.get(i).value = facing;
+        }
+        system.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
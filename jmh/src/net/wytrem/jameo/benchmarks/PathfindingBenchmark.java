@@ -0,0 +1,113 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.systems.PathfindingSystem;
+import net.wytrem.jameo.utils.GridPathfinder;
+import net.wytrem.jameo.utils.MapMask;
+import net.wytrem.jameo.utils.RegionGraph;
+
+/**
+ * Long path queries: flat A* against region corridors, with the corridor cache
+ * cleared before each query and kept warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"128", "512", "1024"})
+    int size;
+
+    MapMask solid;
+    RegionGraph graph;
+    GridPathfinder finder;
+    final IntArray path = new IntArray();
+
+    int[] queries;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        TiledMap map = SyntheticMaps.dungeon(size, 42);
+        solid = MapMask.generateAll(size, size, SyntheticMaps.TILE_SIZE, SyntheticMaps.TILE_SIZE,
+                map.getLayers().getByType(TiledMapTileLayer.class)).get("solid");
+        graph = new RegionGraph(solid, PathfindingSystem.CLUSTER_SIZE);
+        finder = new GridPathfinder(solid);
+
+        // Reachable pairs at least half the map apart; both searches must agree.
+        Random random = new Random(42);
+        queries = new int[QUERIES * 4];
+        for (int q = 0; q < QUERIES; ) {
+            int sx = random.nextInt(size), sy = random.nextInt(size);
+            int gx = random.nextInt(size), gy = random.nextInt(size);
+            if (Math.abs(sx - gx) + Math.abs(sy - gy) < size / 2 || !finder.find(sx, sy, gx, gy, path)) {
+                continue;
+            }
+            if (!hierarchical(sx, sy, gx, gy)) {
+                throw new IllegalStateException("Corridor search missed a path from " + sx + "," + sy + " to " + gx + "," + gy);
+            }
+            queries[q * 4] = sx;
+            queries[q * 4 + 1] = sy;
+            queries[q * 4 + 2] = gx;
+            queries[q * 4 + 3] = gy;
+            q++;
+        }
+    }
+
+    private boolean hierarchical(int sx, int sy, int gx, int gy) {
+        int[] corridor = graph.corridor(graph.regionAt(sx, sy), graph.regionAt(gx, gy));
+        return corridor != null && finder.find(sx, sy, gx, gy, graph, corridor, path);
+    }
+
+    private int query() {
+        int q = next;
+        next = (next + 1) % QUERIES;
+        return q * 4;
+    }
+
+    @Benchmark
+    public boolean flat() {
+        int q = query();
+        return finder.find(queries[q], queries[q + 1], queries[q + 2], queries[q + 3], path);
+    }
+
+    @Benchmark
+    public boolean corridorCold() {
+        graph.clearCache();
+        int q = query();
+        return hierarchical(queries[q], queries[q + 1], queries[q + 2], queries[q + 3]);
+    }
+
+    @Benchmark
+    public boolean corridorCached() {
+        int q = query();
+        return hierarchical(queries[q], queries[q + 1], queries[q + 2], queries[q + 3]);
+    }
+}
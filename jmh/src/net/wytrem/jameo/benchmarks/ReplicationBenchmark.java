@@ -0,0 +1,116 @@
+package net.wytrem.jameo.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.net.ReplicationClient;
+import net.wytrem.jameo.net.ReplicationServer;
+import net.wytrem.jameo.net.Snapshot;
+import net.wytrem.jameo.utils.CardDir;
+
+/**
+ * One replication tick to loopback clients in the same JVM: snapshot fill,
+ * delta encoding and sends, then clients decode and acknowledge. A quarter of
+ * the entities move each tick. Bandwidth is reported as the
+ * {@link Bandwidth} secondary results: bytes per client over ticks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplicationBenchmark {
+
+    @Param({"500", "2000"})
+    int entities;
+
+    @Param({"1", "16", "64"})
+    int clients;
+
+    ReplicationServer server;
+    ReplicationClient[] loopback;
+    float[] x, y;
+    int tick;
+    Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        server = new ReplicationServer(0);
+        loopback = new ReplicationClient[clients];
+        for (int i = 0; i < clients; i++) {
+            loopback[i] = new ReplicationClient("localhost", server.getPort());
+        }
+
+        x = new float[entities];
+        y = new float[entities];
+        for (int i = 0; i < entities; i++) {
+            x[i] = random.nextFloat() * 4096;
+            y[i] = random.nextFloat() * 4096;
+        }
+    }
+
+    /**
+     * Bytes received per client, and ticks, over an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bandwidth {
+        public long bytesPerClient;
+        public long ticks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerClient = 0;
+            ticks = 0;
+        }
+    }
+
+    @Benchmark
+    public void tick(Bandwidth bandwidth) {
+        for (int i = 0; i < entities; i += 4) {
+            x[i] += random.nextFloat() * 2 - 1;
+            y[i] += random.nextFloat() * 2 - 1;
+        }
+
+        Snapshot snapshot = server.acquire(tick++);
+        for (int i = 0; i < entities; i++) {
+            snapshot.add(i, x[i], y[i], 0, 0, CardDir.EAST);
+        }
+        server.send(snapshot);
+
+        long received = 0;
+        for (ReplicationClient client : loopback) {
+            long before = client.getBytesReceived();
+            client.poll();
+            received += client.getBytesReceived() - before;
+        }
+        bandwidth.bytesPerClient += received / clients;
+        bandwidth.ticks++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (ReplicationClient client : loopback) {
+            client.dispose();
+        }
+        server.dispose();
+    }
+}
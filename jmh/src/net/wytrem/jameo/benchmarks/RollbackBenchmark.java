@@ -0,0 +1,122 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.InputSystem;
+import net.wytrem.jameo.systems.PosSyncSystem;
+import net.wytrem.jameo.systems.RollbackSystem;
+
+/**
+ * Rolling N bodies and a player back a number of ticks and simulating them
+ * again, against the 16 ms of a frame: the most ticks that fit are the largest
+ * input delay a rollback can hide. Also a plain tick, capture included.
+ * RollbackSystemTest checks what is simulated again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollbackBenchmark {
+
+    private static final float SPACING = 64f;
+    private static final float DELTA = 1f / 60;
+
+    @Param({"1000", "10000"})
+    int bodies;
+
+    @Param({"1", "8", "32"})
+    int ticks;
+
+    World world;
+    RollbackSystem rollbackSystem;
+    ComponentMapper<Position> positions;
+    int[] ids;
+    int player;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new InputSystem(), new Box2dSystem(), new PosSyncSystem(), new RollbackSystem())
+                .build());
+        rollbackSystem = world.getSystem(RollbackSystem.class);
+        positions = world.getMapper(Position.class);
+
+        // Far enough apart never to touch: without contacts, simulating again is exact.
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class).build(world);
+        ComponentMapper<Size> sizes = world.getMapper(Size.class);
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        ids = new int[bodies];
+        for (int i = 0; i < bodies; i++) {
+            ids[i] = world.create(archetype);
+            Position pos = positions.get(ids[i]);
+            pos.x = (i % side) * SPACING;
+            pos.y = (i / side) * SPACING;
+            sizes.get(ids[i]).set(16, 16);
+        }
+        player = world.create(new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class)
+                .add(InputControlled.class).add(Facing.class).build(world));
+        positions.get(player).x = -SPACING * 4;
+        positions.get(player).y = -SPACING * 4;
+        sizes.get(player).set(16, 16);
+
+        world.delta = 0;
+        world.process();
+        Random random = new Random(42);
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        for (int id : ids) {
+            box2dEntities.get(id).setLinearVelocity(random.nextFloat() * 20 - 10, random.nextFloat() * 20 - 10);
+        }
+        world.delta = DELTA;
+        for (int i = 0; i < RollbackSystem.DEFAULT_CAPACITY; i++) {
+            world.process();
+        }
+    }
+
+    @Benchmark
+    public int rollback() {
+        rollbackSystem.rollback(rollbackSystem.getTick() - ticks);
+        return rollbackSystem.getResimulated();
+    }
+
+    @Benchmark
+    public void tick() {
+        world.delta = DELTA;
+        world.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
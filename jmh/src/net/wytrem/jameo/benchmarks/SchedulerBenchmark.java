@@ -0,0 +1,102 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.Input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.components.SpriteComponent;
+import net.wytrem.jameo.scheduling.ParallelInvocationStrategy;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.InputSystem;
+import net.wytrem.jameo.systems.PosSyncSystem;
+import net.wytrem.jameo.systems.SpriteOrientationSystem;
+
+/**
+ * A full simulation tick with the default artemis strategy (0 threads) and with
+ * {@link ParallelInvocationStrategy} on pools of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"1000", "10000"})
+    int entities;
+
+    @Param({"0", "2", "4"})
+    int threads;
+
+    World world;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        WorldConfiguration configuration = new WorldConfigurationBuilder()
+                .with(new InputSystem(), new Box2dSystem(), new PosSyncSystem(), new SpriteOrientationSystem())
+                .build();
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            configuration.setInvocationStrategy(new ParallelInvocationStrategy(pool));
+        }
+        world = new World(configuration);
+
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class)
+                .add(Facing.class).add(InputControlled.class).add(SpriteComponent.class).build(world);
+        ComponentMapper<Position> positions = world.getMapper(Position.class);
+        for (int i = 0; i < entities; i++) {
+            Position pos = positions.get(world.create(archetype));
+            pos.x = (i % 256) * 32;
+            pos.y = (i / 256) * 32;
+        }
+
+        world.delta = 0;
+        world.process();
+
+        world.getSystem(InputSystem.class).keyDown(Input.Keys.R);
+    }
+
+    @Benchmark
+    public void tick() {
+        world.delta = 1f / 60;
+        world.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
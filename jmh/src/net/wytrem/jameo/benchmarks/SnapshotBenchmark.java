@@ -0,0 +1,183 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.PosSyncSystem;
+import net.wytrem.jameo.systems.SnapshotSystem;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.FactorySystem;
+import net.wytrem.jameo.utils.WorldSnapshot;
+
+/**
+ * Saving and loading a world of N moving monsters: the capture taken from the
+ * tick against writing it out, and restoring a snapshot against deleting every
+ * entity and spawning them again from their prefab, as a map load does.
+ * SnapshotSystemTest checks what a restore brings back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final int MAP_SIZE = 128;
+
+    @Param({"1000", "10000"})
+    int monsters;
+
+    World world;
+    SnapshotSystem snapshotSystem;
+    FactorySystem factorySystem;
+    EntitySubscription all;
+    WorldSnapshot snapshot;
+    WorldSnapshot loaded;
+    File file;
+    final IntArray positions = new IntArray();
+    final MapProperties properties = new MapProperties();
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new FactorySystem(), new TiledMapSystem(), new Box2dSystem(), new PosSyncSystem(), new SnapshotSystem())
+                .build());
+        snapshotSystem = world.getSystem(SnapshotSystem.class);
+        factorySystem = world.getSystem(FactorySystem.class);
+        all = world.getAspectSubscriptionManager().get(Aspect.all());
+        world.getSystem(TiledMapSystem.class).load(SyntheticMaps.dungeon(MAP_SIZE, 42));
+        world.delta = 0;
+        world.process();
+
+        Random random = new Random(42);
+        for (int i = 0; i < monsters; i++) {
+            positions.add(random.nextInt(MAP_SIZE * SyntheticMaps.TILE_SIZE), random.nextInt(MAP_SIZE * SyntheticMaps.TILE_SIZE));
+        }
+        properties.put("entity", "monster");
+        respawn();
+
+        ComponentMapper<Box2dEntity> box2dEntities = world.getMapper(Box2dEntity.class);
+        IntBag entities = all.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            if (box2dEntities.has(entities.get(i))) {
+                box2dEntities.get(entities.get(i)).setLinearVelocity(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+            }
+        }
+        world.delta = 1f / 60;
+        for (int i = 0; i < 10; i++) {
+            world.process();
+        }
+
+        snapshot = new WorldSnapshot();
+        snapshotSystem.capture(snapshot);
+        file = File.createTempFile("snapshot", WorldSnapshot.EXTENSION);
+        file.deleteOnExit();
+        snapshot.write(new FileHandle(file));
+        loaded = WorldSnapshot.read(new FileHandle(file));
+    }
+
+    private void deleteAll() {
+        IntBag entities = all.getEntities();
+        int[] ids = entities.getData();
+        for (int i = 0, s = entities.size(); i < s; i++) {
+            world.delete(ids[i]);
+        }
+    }
+
+    private int respawn() {
+        factorySystem.beginBatch("monsters");
+        factorySystem.spawn("monster", positions, properties);
+        int spawned = factorySystem.endBatch();
+        world.delta = 0;
+        world.process();
+        return spawned;
+    }
+
+    @Benchmark
+    public WorldSnapshot capture() {
+        snapshotSystem.capture(snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        // Written to memory, the disk would only add noise.
+        CountingChannel channel = new CountingChannel();
+        snapshot.write(channel, buffer);
+        return channel.written;
+    }
+
+    @Benchmark
+    public int restore() {
+        snapshotSystem.restore(loaded);
+        return all.getEntities().size();
+    }
+
+    @Benchmark
+    public int spawn() {
+        deleteAll();
+        return respawn();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+        file.delete();
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        long written;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            written += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
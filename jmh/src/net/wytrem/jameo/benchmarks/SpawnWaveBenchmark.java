@@ -0,0 +1,93 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.IntArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.FlowFollower;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.tests.FactorySystem;
+
+/**
+ * A wave of monsters spawned from their prefab and killed again, with Box2D
+ * bodies pooled or created and destroyed every time. Run with
+ * {@code -prof gc} to see allocations per wave.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnWaveBenchmark {
+
+    @Param({"2000"})
+    int wave;
+
+    @Param({"true", "false"})
+    boolean pooled;
+
+    World world;
+    FactorySystem factorySystem;
+    EntitySubscription monsters;
+    final IntArray positions = new IntArray();
+    final MapProperties properties = new MapProperties();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder().with(new FactorySystem(), new Box2dSystem()).build());
+        factorySystem = world.getSystem(FactorySystem.class);
+        monsters = world.getAspectSubscriptionManager().get(Aspect.all(FlowFollower.class));
+        world.getSystem(Box2dSystem.class).maxPooledBodies = pooled ? Box2dSystem.DEFAULT_MAX_POOLED_BODIES : 0;
+
+        int side = (int) Math.ceil(Math.sqrt(wave));
+        for (int i = 0; i < wave; i++) {
+            positions.add((i % side) * 32, (i / side) * 32);
+        }
+        properties.put("entity", "monster");
+    }
+
+    @Benchmark
+    public int spawnAndKill() {
+        factorySystem.beginBatch("wave");
+        factorySystem.spawn("monster", positions, properties);
+        int spawned = factorySystem.endBatch();
+        world.delta = 0;
+        world.process();
+
+        IntBag alive = monsters.getEntities();
+        int[] ids = alive.getData();
+        for (int i = 0, s = alive.size(); i < s; i++) {
+            world.delete(ids[i]);
+        }
+        world.process();
+        return spawned;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
@@ -0,0 +1,94 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.Input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.components.Box2dEntity;
+import net.wytrem.jameo.components.Facing;
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.components.Size;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.InputSystem;
+import net.wytrem.jameo.systems.PosSyncSystem;
+
+/**
+ * Per entity iteration cost of {@link PosSyncSystem} and {@link InputSystem},
+ * without stepping the physics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemIterationBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    int entities;
+
+    World world;
+    PosSyncSystem posSyncSystem;
+    InputSystem inputSystem;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new Box2dSystem(), new PosSyncSystem(), new InputSystem())
+                .build());
+        posSyncSystem = world.getSystem(PosSyncSystem.class);
+        inputSystem = world.getSystem(InputSystem.class);
+
+        Archetype archetype = new ArchetypeBuilder().add(Position.class).add(Size.class).add(Box2dEntity.class)
+                .add(Facing.class).add(InputControlled.class).build(world);
+        ComponentMapper<Position> positions = world.getMapper(Position.class);
+        for (int i = 0; i < entities; i++) {
+            Position pos = positions.get(world.create(archetype));
+            pos.x = (i % 256) * 32;
+            pos.y = (i / 256) * 32;
+        }
+
+        world.delta = 0;
+        world.process();
+
+        inputSystem.keyDown(Input.Keys.S);
+        inputSystem.keyDown(Input.Keys.R);
+    }
+
+    @Benchmark
+    public void posSync() {
+        posSyncSystem.process();
+    }
+
+    @Benchmark
+    public void input() {
+        inputSystem.process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+}
@@ -0,0 +1,71 @@
+package net.wytrem.jameo.benchmarks;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import net.wytrem.jameo.SyntheticMaps;
+import net.wytrem.jameo.systems.Box2dSystem;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.FactorySystem;
+
+/**
+ * {@link TiledMapSystem} load (masks) and setup (walls, spawns) on synthetic
+ * maps of increasing size. Every invocation gets a fresh world and map, since
+ * setup consumes the entity tiles; building the map is left out of the timing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TiledMapSetupBenchmark {
+
+    @Param({"64", "256", "512"})
+    int size;
+
+    World world;
+    TiledMapSystem tiledMapSystem;
+    TiledMap map;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        Benchmarks.init();
+
+        world = new World(new WorldConfigurationBuilder()
+                .with(new FactorySystem(), new TiledMapSystem(), new Box2dSystem())
+                .build());
+        tiledMapSystem = world.getSystem(TiledMapSystem.class);
+        map = SyntheticMaps.dungeon(size, 42);
+    }
+
+    @Benchmark
+    public int loadAndSetup() {
+        tiledMapSystem.load(map);
+        world.delta = 0;
+        world.process();
+        return tiledMapSystem.wallBodies;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        world.dispose();
+    }
+}
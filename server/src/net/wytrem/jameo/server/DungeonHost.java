@@ -0,0 +1,92 @@
+package net.wytrem.jameo.server;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import net.wytrem.jameo.tests.Dungeons;
+import net.wytrem.jameo.utils.BakedMap;
+
+/**
+ * Server hosting many dungeon instances through an {@link InstanceManager}.
+ *
+ * Every instance plays the same map. The first ones get a player; the others
+ * have none and fall asleep after {@link InstanceManager#IDLE_SECONDS}.
+ */
+public class DungeonHost extends ApplicationAdapter {
+
+    private static final long REPORT_INTERVAL = 5000000000L;
+
+    private final int instanceCount;
+    private final int playerCount;
+    private final int tickRate;
+    private final long tickNanos;
+    private final TickStats stats = new TickStats();
+
+    private InstanceManager manager;
+    private long accumulator;
+    private long lastTime;
+    private long lastReport;
+
+    public DungeonHost(int instanceCount, int playerCount, int tickRate) {
+        this.instanceCount = instanceCount;
+        this.playerCount = playerCount;
+        this.tickRate = tickRate;
+        this.tickNanos = 1000000000L / tickRate;
+    }
+
+    @Override
+    public void create() {
+        HeadlessGL.install();
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        manager = new InstanceManager(threads, tickRate);
+        for (int i = 0; i < instanceCount; i++) {
+            final DungeonInstance instance = manager.create(BakedMap.resolve("base.tmx"));
+            if (i < playerCount) {
+                instance.execute(() -> Dungeons.createPlayer(instance.getWorld()));
+            }
+        }
+
+        lastTime = TimeUtils.nanoTime();
+        lastReport = lastTime;
+        Gdx.app.log("DungeonHost", instanceCount + " instances on " + threads + " threads, " + manager.getMapCount() + " shared maps");
+    }
+
+    @Override
+    public void render() {
+        long now = TimeUtils.nanoTime();
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int steps = 0;
+        while (accumulator >= tickNanos && steps < DungeonServer.MAX_CATCH_UP_TICKS) {
+            long start = TimeUtils.nanoTime();
+            manager.tick();
+            stats.record(TimeUtils.nanoTime() - start);
+            accumulator -= tickNanos;
+            steps++;
+        }
+
+        if (accumulator >= tickNanos) {
+            Gdx.app.log("DungeonHost", "Falling behind, dropping " + accumulator / tickNanos + " ticks");
+            accumulator %= tickNanos;
+        }
+
+        if (now - lastReport >= REPORT_INTERVAL) {
+            lastReport = now;
+            int overruns = 0;
+            for (DungeonInstance instance : manager.getInstances()) {
+                overruns += instance.getOverruns();
+            }
+            Gdx.app.log("DungeonHost", stats.toString());
+            Gdx.app.log("DungeonHost", manager.getAwakeCount() + "/" + manager.getInstances().size + " instances awake, " + overruns + " budget overruns");
+            stats.reset();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        manager.dispose();
+    }
+}
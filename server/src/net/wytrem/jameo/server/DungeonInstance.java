@@ -0,0 +1,151 @@
+package net.wytrem.jameo.server;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import net.wytrem.jameo.components.InputControlled;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.Dungeons;
+import net.wytrem.jameo.utils.ProfilingInvocationStrategy;
+import net.wytrem.jameo.utils.SharedMap;
+
+/**
+ * One dungeon hosted by an {@link InstanceManager}: its own artemis world, with
+ * its own Box2D world, on a map shared with the other instances.
+ *
+ * An instance is ticked by one pool thread at a time. Anything done to its world
+ * from elsewhere must go through {@link #execute(Runnable)}, which runs the task
+ * before the next tick.
+ */
+public class DungeonInstance {
+
+    /**
+     * Largest number of ticks merged into one when the instance runs over budget.
+     */
+    public static final int MAX_STRIDE = 4;
+
+    private final int id;
+    private final SharedMap map;
+    private final World world;
+    private final EntitySubscription players;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final TickStats stats = new TickStats();
+
+    private volatile boolean sleeping;
+    private int idleTicks;
+
+    long budgetNanos = Long.MAX_VALUE;
+    private int stride = 1;
+    private int skipped;
+    private int overruns;
+
+    DungeonInstance(int id, SharedMap map) {
+        this.id = id;
+        this.map = map;
+
+        WorldConfiguration configuration = new WorldConfigurationBuilder().build();
+        Dungeons.setSimulationSystems(configuration);
+        configuration.setInvocationStrategy(new ProfilingInvocationStrategy());
+        world = new World(configuration);
+        world.getSystem(TiledMapSystem.class).load(map);
+
+        players = world.getAspectSubscriptionManager().get(Aspect.all(InputControlled.class));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public SharedMap getMap() {
+        return map;
+    }
+
+    /**
+     * Run a task on the world before the next tick, waking the instance up.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        sleeping = false;
+    }
+
+    /**
+     * @return the world, only to be used from tasks passed to {@link #execute(Runnable)}.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    public TickStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return ticks that took longer than the budget of the instance.
+     */
+    public int getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Runs on a pool thread.
+     *
+     * @param delta     duration of a tick.
+     * @param idleLimit ticks without any player before falling asleep.
+     */
+    void tick(float delta, int idleLimit) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+            idleTicks = 0;
+        }
+
+        // Over budget instances tick less often, with a longer delta, so that they
+        // do not starve the others.
+        if (++skipped < stride) {
+            return;
+        }
+        skipped = 0;
+
+        long start = TimeUtils.nanoTime();
+        world.delta = delta * stride;
+        world.process();
+        long elapsed = TimeUtils.nanoTime() - start;
+        stats.record(elapsed);
+
+        if (elapsed > budgetNanos) {
+            overruns++;
+            stride = Math.min(stride * 2, MAX_STRIDE);
+        }
+        else if (stride > 1 && elapsed * 2 < budgetNanos) {
+            stride /= 2;
+        }
+
+        if (players.getEntities().isEmpty()) {
+            if (++idleTicks >= idleLimit) {
+                // Set before looking at the tasks: a task added meanwhile is
+                // either seen here, or clears the flag after us in execute.
+                sleeping = true;
+                if (!tasks.isEmpty()) {
+                    sleeping = false;
+                }
+            }
+        }
+        else {
+            idleTicks = 0;
+        }
+    }
+
+    void dispose() {
+        world.dispose();
+    }
+}
@@ -0,0 +1,64 @@
+package net.wytrem.jameo.server;
+
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import net.wytrem.jameo.components.Position;
+import net.wytrem.jameo.systems.InputSystem;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.Dungeons;
+import net.wytrem.jameo.utils.InputReplay;
+import net.wytrem.jameo.utils.ProfilingInvocationStrategy;
+
+/**
+ * Plays an input recording back headless, as fast as possible, then exits.
+ *
+ * Each tick uses the recorded delta, so the session runs exactly as recorded.
+ * The final player position is logged to compare runs.
+ */
+public class DungeonReplay extends ApplicationAdapter {
+
+    private final String file;
+    private final TickStats stats = new TickStats();
+
+    public DungeonReplay(String file) {
+        this.file = file;
+    }
+
+    @Override
+    public void create() {
+        HeadlessGL.install();
+
+        WorldConfiguration configuration = new WorldConfigurationBuilder().build();
+        Dungeons.setSimulationSystems(configuration);
+        // Reports every tick to Java Flight Recorder.
+        configuration.setInvocationStrategy(new ProfilingInvocationStrategy());
+        World world = new World(configuration);
+
+        InputReplay replay = new InputReplay(Gdx.files.absolute(file).read());
+        int player = Dungeons.createPlayer(world).getId();
+        world.getSystem(TiledMapSystem.class).load(replay.getMap());
+        world.getSystem(InputSystem.class).replay(replay);
+
+        long start = TimeUtils.nanoTime();
+        while (replay.next()) {
+            long tickStart = TimeUtils.nanoTime();
+            world.delta = replay.getDelta();
+            world.process();
+            stats.record(TimeUtils.nanoTime() - tickStart);
+        }
+        long elapsed = TimeUtils.nanoTime() - start;
+        replay.close();
+
+        Position position = world.getMapper(Position.class).get(player);
+        Gdx.app.log("DungeonReplay", stats.toString());
+        Gdx.app.log("DungeonReplay", String.format("Replayed in %.1f ms, player at %.3f, %.3f", elapsed / 1e6, position.x, position.y));
+
+        world.dispose();
+        Gdx.app.exit();
+    }
+}
@@ -0,0 +1,140 @@
+package net.wytrem.jameo.server;
+
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import net.wytrem.jameo.net.ReplicationServer;
+import net.wytrem.jameo.net.ReplicationSystem;
+import net.wytrem.jameo.scheduling.ParallelInvocationStrategy;
+import net.wytrem.jameo.systems.RollbackSystem;
+import net.wytrem.jameo.systems.SnapshotSystem;
+import net.wytrem.jameo.systems.TiledMapSystem;
+import net.wytrem.jameo.tests.Dungeons;
+import net.wytrem.jameo.utils.BakedMap;
+import net.wytrem.jameo.utils.ProfilingInvocationStrategy;
+
+/**
+ * Dedicated server: runs the simulation systems of {@link Dungeons} without any
+ * rendering, at a fixed tick rate.
+ *
+ * Real time is accumulated between frames and consumed in fixed steps, so that
+ * Box2D always steps with the same delta. A late frame is caught up with several
+ * ticks, up to {@link #MAX_CATCH_UP_TICKS}; time beyond that is dropped.
+ */
+public class DungeonServer extends ApplicationAdapter {
+
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_PORT = 7777;
+    public static final int MAX_CATCH_UP_TICKS = 5;
+    public static final int AUTOSAVE_SECONDS = 10;
+    private static final long REPORT_INTERVAL = 5000000000L;
+
+    private final int tickRate;
+    private final int port;
+    private final long tickNanos;
+    private final TickStats stats = new TickStats();
+
+    private World world;
+    private ReplicationServer replication;
+    private long accumulator;
+    private long lastTime;
+    private long lastReport;
+
+    public DungeonServer(int tickRate, int port) {
+        this.tickRate = tickRate;
+        this.port = port;
+        this.tickNanos = 1000000000L / tickRate;
+    }
+
+    @Override
+    public void create() {
+        HeadlessGL.install();
+
+        WorldConfiguration configuration = new WorldConfigurationBuilder().build();
+        Dungeons.setSimulationSystems(configuration);
+        // Rollback processes every system again: only in this world, which renders nothing.
+        configuration.setSystem(RollbackSystem.class);
+        // -Ddungeons.parallel runs independent systems concurrently. Either strategy
+        // reports every tick to Java Flight Recorder.
+        ParallelInvocationStrategy parallel = null;
+        if (Boolean.getBoolean("dungeons.parallel")) {
+            parallel = new ParallelInvocationStrategy();
+            configuration.setInvocationStrategy(parallel);
+        }
+        else {
+            configuration.setInvocationStrategy(new ProfilingInvocationStrategy());
+        }
+        replication = new ReplicationServer(port);
+        configuration.setSystem(new ReplicationSystem(replication));
+        world = new World(configuration);
+        if (parallel != null) {
+            Gdx.app.log("DungeonServer", "Running systems in parallel:\n" + parallel.describe());
+        }
+
+        // -Ddungeons.snapshot=<file> resumes from that file when it exists, and
+        // saves to it every few seconds.
+        String snapshot = System.getProperty("dungeons.snapshot");
+        SnapshotSystem snapshotSystem = world.getSystem(SnapshotSystem.class);
+        if (snapshot != null && Gdx.files.absolute(snapshot).exists()) {
+            snapshotSystem.load(Gdx.files.absolute(snapshot));
+        }
+        else {
+            Dungeons.createPlayer(world);
+            world.getSystem(TiledMapSystem.class).load(BakedMap.resolve("base.tmx"));
+        }
+        if (snapshot != null) {
+            snapshotSystem.autosave(Gdx.files.absolute(snapshot), tickRate * AUTOSAVE_SECONDS);
+        }
+
+        lastTime = TimeUtils.nanoTime();
+        lastReport = lastTime;
+        Gdx.app.log("DungeonServer", "Ticking at " + tickRate + " Hz, replicating on port " + replication.getPort());
+    }
+
+    @Override
+    public void render() {
+        long now = TimeUtils.nanoTime();
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int steps = 0;
+        while (accumulator >= tickNanos && steps < MAX_CATCH_UP_TICKS) {
+            tick();
+            accumulator -= tickNanos;
+            steps++;
+        }
+
+        if (accumulator >= tickNanos) {
+            Gdx.app.log("DungeonServer", "Falling behind, dropping " + accumulator / tickNanos + " ticks");
+            accumulator %= tickNanos;
+        }
+
+        if (now - lastReport >= REPORT_INTERVAL) {
+            lastReport = now;
+            Gdx.app.log("DungeonServer", stats.toString());
+            Gdx.app.log("DungeonServer", String.format("%d clients, %.0f bytes/client/s, %.2f ms/s serializing",
+                    replication.getClientCount(), replication.getBytesPerClientPerSecond(), replication.getEncodeMillisPerSecond()));
+            stats.reset();
+        }
+    }
+
+    private void tick() {
+        long start = TimeUtils.nanoTime();
+        world.delta = 1f / tickRate;
+        world.process();
+        stats.record(TimeUtils.nanoTime() - start);
+    }
+
+    public TickStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void dispose() {
+        world.dispose();
+    }
+}
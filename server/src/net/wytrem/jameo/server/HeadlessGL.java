@@ -0,0 +1,64 @@
+package net.wytrem.jameo.server;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * No-op GL for the headless backend.
+ *
+ * The server never draws, but TmxMapLoader still creates the tileset textures.
+ * Every GL call is swallowed and returns the default value of its return type,
+ * except that shaders and programs are created, compiled and linked, so that
+ * batches and renderers can be built and run for their CPU side.
+ */
+public final class HeadlessGL {
+
+    private HeadlessGL() {
+    }
+
+    public static void install() {
+        if (Gdx.gl != null) {
+            return;
+        }
+
+        GL20 gl = create();
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+    }
+
+    /**
+     * @return a new no-op GL, not installed.
+     */
+    public static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return 1;
+                case "glGetShaderiv":
+                case "glGetProgramiv":
+                    // Compiled and linked, without any active attribute or uniform.
+                    final int pname = (Integer) args[1];
+                    ((IntBuffer) args[2]).put(0, pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS ? 1 : 0);
+                    return null;
+                default:
+                    break;
+            }
+
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            if (type == float.class) {
+                return 0f;
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package net.wytrem.jameo.server;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.wytrem.jameo.utils.SharedMap;
+
+/**
+ * Hosts many independent {@link DungeonInstance}s and ticks them on a shared
+ * thread pool.
+ *
+ * Maps are parsed once and shared by every instance playing them, then disposed
+ * with the last of those instances. Each tick, the time of one tick on every
+ * thread is split evenly between the awake instances: that is their budget.
+ * Instances without players fall asleep and are skipped until something is
+ * {@link DungeonInstance#execute(Runnable) executed} on them.
+ * <p>
+ * Instances are created, destroyed and ticked from one thread.
+ */
+public class InstanceManager implements Disposable {
+
+    /**
+     * Seconds without any player before an instance falls asleep.
+     */
+    public static final float IDLE_SECONDS = 5f;
+
+    private final int threads;
+    private final int tickRate;
+    private final long tickNanos;
+    private final ExecutorService pool;
+
+    private final Array<DungeonInstance> instances = new Array<>();
+    private final ObjectMap<String, SharedMap> maps = new ObjectMap<>();
+    private final ObjectIntMap<String> mapUsers = new ObjectIntMap<>();
+    private final List<Callable<Void>> awake = new ArrayList<>();
+    private int nextId;
+
+    public InstanceManager(int threads, int tickRate) {
+        this.threads = threads;
+        this.tickRate = tickRate;
+        this.tickNanos = 1000000000L / tickRate;
+
+        final AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "instance-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create an instance on a map, parsing the map if no other instance uses it.
+     */
+    public DungeonInstance create(String file) {
+        SharedMap map = maps.get(file);
+        if (map == null) {
+            map = SharedMap.load(file);
+            maps.put(file, map);
+            Gdx.app.log("InstanceManager", "Loaded " + file);
+        }
+        mapUsers.getAndIncrement(file, 0, 1);
+
+        DungeonInstance instance = new DungeonInstance(nextId++, map);
+        instances.add(instance);
+        return instance;
+    }
+
+    public void destroy(DungeonInstance instance) {
+        if (!instances.removeValue(instance, true)) {
+            return;
+        }
+        instance.dispose();
+
+        String file = instance.getMap().getFile();
+        if (mapUsers.getAndIncrement(file, 0, -1) == 1) {
+            mapUsers.remove(file, 0);
+            maps.remove(file).dispose();
+        }
+    }
+
+    /**
+     * Tick every awake instance once, in parallel, and wait for all of them.
+     */
+    public void tick() {
+        awake.clear();
+        for (DungeonInstance instance : instances) {
+            if (!instance.isSleeping()) {
+                awake.add(() -> {
+                    instance.tick(1f / tickRate, (int) (IDLE_SECONDS * tickRate));
+                    return null;
+                });
+            }
+        }
+        if (awake.isEmpty()) {
+            return;
+        }
+
+        long budget = tickNanos * threads / awake.size();
+        for (DungeonInstance instance : instances) {
+            instance.budgetNanos = budget;
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(awake)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Instance tick failed", e.getCause());
+        }
+    }
+
+    public Array<DungeonInstance> getInstances() {
+        return instances;
+    }
+
+    public int getAwakeCount() {
+        return awake.size();
+    }
+
+    public int getMapCount() {
+        return maps.size;
+    }
+
+    @Override
+    public void dispose() {
+        pool.shutdownNow();
+        for (DungeonInstance instance : instances) {
+            instance.dispose();
+        }
+        instances.clear();
+        for (SharedMap map : maps.values()) {
+            map.dispose();
+        }
+        maps.clear();
+        mapUsers.clear();
+    }
+}
@@ -0,0 +1,52 @@
+package net.wytrem.jameo.server;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import net.wytrem.jameo.utils.BakedMap;
+import net.wytrem.jameo.utils.SharedMap;
+
+/**
+ * Compiles TMX maps into {@link BakedMap} files next to them. Map files are
+ * given as arguments, relative to the working directory.
+ */
+public class MapBaker extends ApplicationAdapter {
+
+    private final String[] files;
+
+    public MapBaker(String[] files) {
+        this.files = files;
+    }
+
+    @Override
+    public void create() {
+        HeadlessGL.install();
+
+        for (String file : files) {
+            long start = TimeUtils.nanoTime();
+            SharedMap map = SharedMap.load(file);
+            long parsed = TimeUtils.nanoTime();
+
+            FileHandle out = Gdx.files.local(file.substring(0, file.lastIndexOf('.')) + BakedMap.EXTENSION);
+            BakedMap.write(map, out);
+            map.dispose();
+
+            long loadStart = TimeUtils.nanoTime();
+            BakedMap.read(out.path(), out).dispose();
+            long loaded = TimeUtils.nanoTime();
+
+            Gdx.app.log("MapBaker", String.format("%s -> %s (%d bytes): TMX load %.1f ms, baked load %.1f ms",
+                    file, out.path(), out.length(), (parsed - start) / 1e6, (loaded - loadStart) / 1e6));
+        }
+
+        Gdx.app.exit();
+    }
+
+    public static void main(String[] arg) {
+        new HeadlessApplication(new MapBaker(arg), new HeadlessApplicationConfiguration());
+    }
+}
@@ -0,0 +1,32 @@
+package net.wytrem.jameo.server;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+public class ServerLauncher {
+	public static void main (String[] arg) {
+		if (arg.length > 1 && arg[0].equals("replay")) {
+			new HeadlessApplication(new DungeonReplay(arg[1]), new HeadlessApplicationConfiguration());
+			return;
+		}
+
+		if (arg.length > 1 && arg[0].equals("host")) {
+			int instances = Integer.parseInt(arg[1]);
+			int players = arg.length > 2 ? Integer.parseInt(arg[2]) : instances;
+			int tickRate = arg.length > 3 ? Integer.parseInt(arg[3]) : DungeonServer.DEFAULT_TICK_RATE;
+
+			HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+			config.renderInterval = 1f / tickRate;
+			new HeadlessApplication(new DungeonHost(instances, players, tickRate), config);
+			return;
+		}
+
+		int tickRate = arg.length > 0 ? Integer.parseInt(arg[0]) : DungeonServer.DEFAULT_TICK_RATE;
+		int port = arg.length > 1 ? Integer.parseInt(arg[1]) : DungeonServer.DEFAULT_PORT;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// Wake up at the tick rate, DungeonServer catches up on late frames.
+		config.renderInterval = 1f / tickRate;
+		new HeadlessApplication(new DungeonServer(tickRate, port), config);
+	}
+}
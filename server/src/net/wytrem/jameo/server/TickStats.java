@@ -0,0 +1,58 @@
+package net.wytrem.jameo.server;
+
+/**
+ * Running statistics of tick durations, in nanoseconds.
+ */
+public class TickStats {
+    private long ticks;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        ticks++;
+        total += nanos;
+        if (nanos < min) {
+            min = nanos;
+        }
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double meanMillis() {
+        return ticks == 0 ? 0 : total / (double) ticks / 1e6;
+    }
+
+    public double minMillis() {
+        return ticks == 0 ? 0 : min / 1e6;
+    }
+
+    public double maxMillis() {
+        return max / 1e6;
+    }
+
+    /**
+     * @return how many ticks per second a single core sustains at the mean tick cost.
+     */
+    public double sustainableTicksPerSecond() {
+        return total == 0 ? 0 : ticks * 1e9 / total;
+    }
+
+    public void reset() {
+        ticks = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks, mean %.3f ms, min %.3f ms, max %.3f ms, sustainable %.0f ticks/s",
+                ticks, meanMillis(), minMillis(), maxMillis(), sustainableTicksPerSecond());
+    }
+}